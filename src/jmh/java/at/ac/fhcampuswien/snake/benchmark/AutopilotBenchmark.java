@@ -0,0 +1,125 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.simulation.Autopilot;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Planning of a move by the {@link Autopilot}, during running games and in its worst case.
+ * <p>
+ * In the worst case a long snake lies on the {@link SnakeFixtures#hamiltonianCycle Hamiltonian cycle}, its tail
+ * halfway up the left column. A wall cell below the tail closes the column, so the food in it lies behind the
+ * body and the tail cannot be reached either: the search for the food, the safety check of every move and the
+ * search for the largest area all run over the free half of the board.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AutopilotBenchmark {
+
+    @Param({"20", "100"})
+    public int boardSize;
+
+    private final Autopilot autopilot = new Autopilot();
+    private final Autopilot trappedAutopilot = new Autopilot();
+    private GameEngine engine;
+    private GameEngine trappedStart;
+    private GameEngine trapped;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        newGame();
+        trappedStart = createTrappedGame();
+        trapped = trappedStart.snapshot();
+    }
+
+    /**
+     * Replaces an ended game and resets the worst case, which is not part of the measured time. Like in the
+     * {@link RollbackBenchmark}, the operations take microseconds, so the timestamps of an invocation level setup
+     * do not matter much.
+     */
+    @Setup(Level.Invocation)
+    public void resetGames() {
+        if (engine.isGameOver() || engine.getTick() >= 20_000) {
+            newGame();
+        }
+        trapped.copyFrom(trappedStart);
+    }
+
+    /**
+     * Operations are ticks: a plan and the step of the engine.
+     */
+    @Benchmark
+    public Direction planAndStep() {
+        Direction direction = autopilot.nextDirection(engine);
+        engine.step(direction);
+        return direction;
+    }
+
+    /**
+     * Operations are plans in the worst case.
+     */
+    @Benchmark
+    public Direction planTrapped() {
+        return trappedAutopilot.nextDirection(trapped);
+    }
+
+    private void newGame() {
+        engine = new GameEngine(Difficulty.MEDIUM, new BoardConfig(boardSize, boardSize, 1), ++seed);
+    }
+
+    private GameEngine createTrappedGame() {
+        int m = boardSize - 2;
+        int tailCell = cell(m / 2, 0);
+        int wallCell = cell(m / 2 + 3, 0);
+        int foodCell = cell(m / 2 + 1, 0);
+        int headCell = cell(m / 2 + 5, m / 2);
+
+        // The cycle leads from the tail up the left column, along the top row and down in a serpentine.
+        Direction[] next = SnakeFixtures.hamiltonianCycle(boardSize);
+        int length = 1;
+        for (int cell = tailCell; cell != headCell; cell = step(cell, next[cell])) {
+            length++;
+        }
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        Snake snake = SnakeFixtures.createSnake(grid, next, length);
+        while (snake.getTailCell() != tailCell) {
+            SnakeFixtures.move(snake, next);
+        }
+
+        GameEngine game = new GameEngine(Difficulty.MEDIUM, new BoardConfig(boardSize, boardSize, 1), 1);
+        game.getGrid().copyFrom(grid);
+        game.getGrid().occupy(wallCell);
+        game.getSnake().copyFrom(snake);
+        game.getFoodManager().getRegularFood().place(foodCell, new GameRandom(1));
+        return game;
+    }
+
+    /**
+     * @return packed index of a cell inside the perimeter wall, row and column starting at 0
+     */
+    private int cell(int row, int col) {
+        return (row + 1) * boardSize + col + 1;
+    }
+
+    private int step(int cell, Direction direction) {
+        return switch (direction) {
+            case UP -> cell - boardSize;
+            case DOWN -> cell + boardSize;
+            case LEFT -> cell - 1;
+            case RIGHT -> cell + 1;
+        };
+    }
+}
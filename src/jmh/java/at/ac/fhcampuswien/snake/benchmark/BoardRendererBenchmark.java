@@ -0,0 +1,104 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.board.BoardRenderer;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static at.ac.fhcampuswien.snake.util.Constants.GAME_BOARD_SIZE_MEDIUM;
+
+/**
+ * One tick and one frame of the renderer on an offscreen canvas.
+ * <p>
+ * This measures the cost of issuing the draw commands on the FX thread, not the rasterization,
+ * which happens later on the render thread. The canvas is cleared on every operation so that its
+ * command buffer does not grow while it is never shown.
+ * <p>
+ * Needs a JavaFX toolkit, i.e. a display (or a headless Monocle platform).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardRendererBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int boardSize;
+
+    @Param({"4", "64", "256"})
+    public int snakeLength;
+
+    /**
+     * Whether every frame repaints the whole board instead of only the changed cells.
+     */
+    @Param({"false", "true"})
+    public boolean fullRedraw;
+
+    private Direction[] next;
+    private Snake snake;
+    private FoodManager foodManager;
+    private BoardRenderer renderer;
+    private GraphicsContext gc;
+    private double width;
+    private double height;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        try {
+            Platform.startup(() -> {
+            });
+        } catch (IllegalStateException e) {
+            // Toolkit already running
+        }
+
+        BoardConfig boardConfig = BoardConfig.forViewport(boardSize, boardSize,
+                GAME_BOARD_SIZE_MEDIUM, GAME_BOARD_SIZE_MEDIUM);
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        next = SnakeFixtures.hamiltonianCycle(boardSize);
+        snake = SnakeFixtures.createSnake(grid, next, snakeLength);
+        foodManager = new FoodManager(grid, GameRules.forDifficulty(Difficulty.MEDIUM), new GameRandom(42));
+
+        // Taking the snapshot of the background needs the FX thread.
+        FutureTask<BoardRenderer> setup = new FutureTask<>(() -> {
+            Canvas canvas = new Canvas(boardConfig.getWidth(), boardConfig.getHeight());
+            BoardRenderer boardRenderer = new BoardRenderer(canvas, boardConfig);
+            boardRenderer.prepareBackground(null);
+            gc = canvas.getGraphicsContext2D();
+            return boardRenderer;
+        });
+        Platform.runLater(setup);
+        renderer = setup.get();
+        width = boardConfig.getWidth();
+        height = boardConfig.getHeight();
+        commitTick();
+    }
+
+    @Benchmark
+    public void tickAndFrame() {
+        gc.clearRect(0, 0, width, height);
+        SnakeFixtures.move(snake, next);
+        commitTick();
+        if (fullRedraw) {
+            renderer.invalidate();
+        }
+        renderer.render(snake, foodManager.getRegularFood(), foodManager.getSpecialFood(), 0.5);
+    }
+
+    private void commitTick() {
+        renderer.commitTick(snake, foodManager.getRegularFood(), foodManager.getSpecialFood());
+    }
+}
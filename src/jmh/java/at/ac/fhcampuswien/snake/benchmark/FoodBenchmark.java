@@ -0,0 +1,51 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Placement of new food on boards where a given percentage of the inner cells is blocked.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FoodBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int boardSize;
+
+    @Param({"0", "50", "90", "99"})
+    public int fillPercent;
+
+    private FoodManager foodManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        GameRandom random = new GameRandom(42);
+        for (int row = 1; row < boardSize - 1; row++) {
+            for (int col = 1; col < boardSize - 1; col++) {
+                if (random.nextInt(100) < fillPercent) {
+                    grid.occupy(row * boardSize + col);
+                }
+            }
+        }
+        foodManager = new FoodManager(grid, GameRules.forDifficulty(Difficulty.MEDIUM), random);
+    }
+
+    @Benchmark
+    public Food generateRegularFood() {
+        foodManager.generateRegularFood();
+        return foodManager.getRegularFood();
+    }
+}
@@ -0,0 +1,65 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.service.HighscoreService;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Saving a high score: the cost for the calling (FX) thread, and the cost including the write to disk.
+ * The benchmark works in a temporary directory, so the real high scores are left untouched.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HighscoreServiceBenchmark {
+
+    private Path highscoresDirectory;
+    private Player[] players;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Must be set before HighscoreService is initialized, which happens on its first use below.
+        highscoresDirectory = Files.createTempDirectory("highscores");
+        System.setProperty("snake.highscores.dir", highscoresDirectory.toString());
+
+        players = new Player[16];
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player("Player" + i, i * 7 % 23);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        HighscoreService.flush();
+        try (Stream<Path> files = Files.walk(highscoresDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void savePlayerHighscore() {
+        HighscoreService.savePlayerHighscore(Difficulty.MEDIUM, players[next]);
+        next = (next + 1) % players.length;
+    }
+
+    @Benchmark
+    public void savePlayerHighscoreAndFlush() {
+        HighscoreService.savePlayerHighscore(Difficulty.MEDIUM, players[next]);
+        HighscoreService.flush();
+        next = (next + 1) % players.length;
+    }
+}
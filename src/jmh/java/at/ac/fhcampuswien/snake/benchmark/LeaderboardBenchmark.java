@@ -0,0 +1,59 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.service.Leaderboard;
+import at.ac.fhcampuswien.snake.util.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submitting scores and rank queries on leaderboards of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class LeaderboardBenchmark {
+
+    @Param({"1000", "1000000"})
+    public int entries;
+
+    private Leaderboard leaderboard;
+    private String[] names;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        leaderboard = new Leaderboard();
+        names = new String[entries];
+        random = new Random(42);
+        for (int i = 0; i < entries; i++) {
+            names[i] = "Player" + i;
+            leaderboard.submit(names[i], random.nextInt(10_000));
+        }
+    }
+
+    @Benchmark
+    public void submit() {
+        leaderboard.submit(names[random.nextInt(entries)], random.nextInt(10_000));
+    }
+
+    @Benchmark
+    public int rankOf() {
+        return leaderboard.rankOf(names[random.nextInt(entries)]);
+    }
+
+    @Benchmark
+    public List<Player> top10() {
+        return leaderboard.topK(10);
+    }
+
+    @Benchmark
+    public List<Player> around() {
+        return leaderboard.around(1 + random.nextInt(entries), 5);
+    }
+}
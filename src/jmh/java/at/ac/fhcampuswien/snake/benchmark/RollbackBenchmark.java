@@ -0,0 +1,95 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.net.ArenaDelta;
+import at.ac.fhcampuswien.snake.net.ArenaPrediction;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rollbacks of an {@link ArenaPrediction} which runs the full {@link ArenaPrediction#MAX_PREDICTED_TICKS} ahead of
+ * the host. In every tick of the host another snake turns, which the prediction did not expect, so every confirmed
+ * tick rolls back and simulates all predicted ticks again. A game which ends is replaced by a new one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RollbackBenchmark {
+
+    @Param({"8", "64"})
+    public int players;
+
+    private final BoardConfig board = new BoardConfig(48, 48, 1);
+    private final GameRules rules = GameRules.forDifficulty(Difficulty.HARD);
+    private ArenaEngine host;
+    private ArenaPrediction prediction;
+    private Direction[] hostInputs;
+    private Direction[] directions;
+    private ArenaDelta hostDelta;
+    private long seed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hostInputs = new Direction[players];
+        directions = new Direction[players];
+        hostDelta = new ArenaDelta(players);
+        newGame();
+    }
+
+    /**
+     * Predicts as far as possible and advances the host, which is not part of the measured time. The operation
+     * takes tens of microseconds, so the timestamps of an invocation level setup do not matter.
+     */
+    @Setup(Level.Invocation)
+    public void advanceHost() {
+        if (host.isGameOver() || host.getAliveCount() < players / 2) {
+            newGame();
+        }
+        while (prediction.canPredict()) {
+            prediction.predict(null);
+        }
+        turnOneSnake(host.getTick() + 1);
+        hostDelta.begin(host);
+        host.step(hostInputs);
+        hostDelta.end(host);
+        for (int i = 0; i < players; i++) {
+            directions[i] = host.getSnake(i).getDirection();
+        }
+    }
+
+    /**
+     * Operations are rollbacks of {@link ArenaPrediction#MAX_PREDICTED_TICKS} ticks.
+     */
+    @Benchmark
+    public boolean confirmWithRollback() {
+        return prediction.confirm(host.getTick(), directions, hostDelta);
+    }
+
+    private void turnOneSnake(int tick) {
+        Arrays.fill(hostInputs, null);
+        for (int k = 0; k < players; k++) {
+            int player = (tick + k) % players;
+            if (host.getSnake(player).isAlive()) {
+                Direction direction = host.getSnake(player).getDirection();
+                boolean vertical = direction == Direction.UP || direction == Direction.DOWN;
+                hostInputs[player] = vertical ? (tick % 2 == 0 ? Direction.LEFT : Direction.RIGHT)
+                        : (tick % 2 == 0 ? Direction.UP : Direction.DOWN);
+                return;
+            }
+        }
+    }
+
+    private void newGame() {
+        host = new ArenaEngine(rules, board, ++seed, players);
+        prediction = new ArenaPrediction(host.snapshot(), 0);
+    }
+}
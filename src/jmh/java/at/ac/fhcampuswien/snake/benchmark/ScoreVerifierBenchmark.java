@@ -0,0 +1,74 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.replay.ReplayRecorder;
+import at.ac.fhcampuswien.snake.service.ScoreVerifier;
+import at.ac.fhcampuswien.snake.simulation.GreedyPolicy;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verification of recorded games, one at a time and in parallel on the common fork-join pool.
+ * The games are played by the {@link GreedyPolicy}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScoreVerifierBenchmark {
+
+    private static final int REPLAYS = 1024;
+
+    private List<Replay> replays;
+    private ScoreVerifier verifier;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        replays = new ArrayList<>(REPLAYS);
+        for (int seed = 0; seed < REPLAYS; seed++) {
+            replays.add(playGame(seed));
+        }
+        verifier = new ScoreVerifier();
+    }
+
+    /**
+     * Operations are replays verified.
+     */
+    @Benchmark
+    public ScoreVerifier.Verification verify() {
+        next = next + 1 == REPLAYS ? 0 : next + 1;
+        return ScoreVerifier.verify(replays.get(next));
+    }
+
+    /**
+     * Operations are batches of {@value #REPLAYS} replays.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public List<ScoreVerifier.Verification> verifyAllParallel() {
+        return verifier.verifyAll(replays);
+    }
+
+    static Replay playGame(long seed) {
+        GameEngine engine = new GameEngine(Difficulty.MEDIUM, BoardConfig.DEFAULT, seed);
+        ReplayRecorder recorder = new ReplayRecorder(engine);
+        GreedyPolicy player = new GreedyPolicy(~seed);
+        while (!engine.isGameOver()) {
+            Direction input = player.nextDirection(engine);
+            engine.step(input);
+            recorder.record(input);
+        }
+        return recorder.toReplay();
+    }
+}
@@ -0,0 +1,49 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Movement and collision detection of the snake. Both should cost the same for every snake length and board size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SnakeBenchmark {
+
+    @Param({"20", "100", "1000"})
+    public int boardSize;
+
+    @Param({"4", "64", "256"})
+    public int snakeLength;
+
+    private Direction[] next;
+    private Snake snake;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        next = SnakeFixtures.hamiltonianCycle(boardSize);
+        snake = SnakeFixtures.createSnake(grid, next, snakeLength);
+    }
+
+    @Benchmark
+    public int updateSnakePosition() {
+        SnakeFixtures.move(snake, next);
+        return snake.getHeadCell();
+    }
+
+    @Benchmark
+    public boolean updateAndCheckForCollisions() {
+        SnakeFixtures.move(snake, next);
+        snake.checkForCollisions();
+        return snake.isAlive();
+    }
+}
@@ -0,0 +1,77 @@
+package at.ac.fhcampuswien.snake.benchmark;
+
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+/**
+ * Builds snakes of a given length which can move forever without colliding.
+ * <p>
+ * The snake follows a Hamiltonian cycle through the inner cells of a square board: along the top row,
+ * then row by row in a serpentine back to the left column and up again. The cycle only exists if the
+ * number of inner cells per row is even, i.e. if the board size is even.
+ */
+final class SnakeFixtures {
+
+    private SnakeFixtures() {
+    }
+
+    /**
+     * Computes the direction to take from every cell of the cycle.
+     *
+     * @param boardSize number of columns and rows of the board, including the perimeter walls
+     * @return the direction per packed cell index, null for the perimeter cells
+     */
+    static Direction[] hamiltonianCycle(int boardSize) {
+        int m = boardSize - 2;
+        if (m % 2 != 0)
+            throw new IllegalArgumentException("Board size must be even, but was " + boardSize);
+
+        Direction[] next = new Direction[boardSize * boardSize];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < m; c++) {
+                Direction direction;
+                if (r == 0) {
+                    direction = c < m - 1 ? Direction.RIGHT : Direction.DOWN;
+                } else if (c == 0) {
+                    direction = Direction.UP;
+                } else if (r % 2 == 1) {
+                    direction = c > 1 || r == m - 1 ? Direction.LEFT : Direction.DOWN;
+                } else {
+                    direction = c < m - 1 ? Direction.RIGHT : Direction.DOWN;
+                }
+                next[(r + 1) * boardSize + c + 1] = direction;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Creates a snake on the cycle, grown to the requested length.
+     *
+     * @param grid   empty grid of a square board
+     * @param next   cycle computed by {@link #hamiltonianCycle(int)}
+     * @param length length of the snake, must be smaller than the number of inner cells
+     * @return the snake
+     */
+    static Snake createSnake(OccupancyGrid grid, Direction[] next, int length) {
+        int innerCells = (grid.getCols() - 2) * (grid.getRows() - 2);
+        if (length >= innerCells)
+            throw new IllegalArgumentException("Snake of length " + length + " does not fit " + innerCells + " cells");
+
+        Snake snake = new Snake(grid, 1, Direction.RIGHT);
+        while (snake.getLength() < length) {
+            snake.eats(null);
+            move(snake, next);
+        }
+        return snake;
+    }
+
+    /**
+     * Moves the snake one cell along the cycle.
+     */
+    static void move(Snake snake, Direction[] next) {
+        snake.setDirection(next[snake.getHeadCell()]);
+        snake.updateSnakePosition();
+    }
+}
@@ -1,5 +1,7 @@
 package at.ac.fhcampuswien.snake;
 
+import at.ac.fhcampuswien.snake.service.HighscoreService;
+import at.ac.fhcampuswien.snake.util.SoundFX;
 import at.ac.fhcampuswien.snake.util.StateManager;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -7,12 +9,25 @@ import java.io.IOException;
 
 public class SnakeApp extends Application {
 
+    @Override
+    public void init() {
+        // Read the high scores and decode the sounds before the UI starts, off the FX thread.
+        HighscoreService.load();
+        SoundFX.preload();
+    }
+
     @Override
     public void start(Stage stage) throws IOException {
         StateManager.initializeStage(stage);
         StateManager.switchToStartView();
     }
 
+    @Override
+    public void stop() {
+        HighscoreService.shutdown();
+        SoundFX.shutdown();
+    }
+
     public static void main(String[] args) {
         launch();
     }
@@ -0,0 +1,321 @@
+package at.ac.fhcampuswien.snake.board;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.Position;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.ingameobjects.Wall;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import static at.ac.fhcampuswien.snake.util.Constants.*;
+
+/**
+ * Draws the game objects onto the game board canvas.
+ * <p>
+ * The game logic advances in discrete ticks, but frames are drawn at the refresh rate of the monitor.
+ * Each frame shows the movement of the last tick: the head and the tail sprite are drawn between the cell
+ * they left and the cell they moved to, according to the fraction of the tick that has passed.
+ * <p>
+ * In incremental mode only the cells touched by this movement are repainted on each frame: the cells the
+ * head and the tail moved from and to. Cells that change for other reasons (food appearing or disappearing)
+ * are repainted once when the tick is committed. The number of draw calls per frame therefore does not depend
+ * on the length of the snake.
+ */
+public class BoardRenderer {
+
+    private final static Color BOARD_COLOR_LIGHT = Color.web(GAMEBOARD_COLOR_LIGHT);
+    private final static Color BOARD_COLOR_DARK = Color.web(GAMEBOARD_COLOR_DARK);
+
+    private final GraphicsContext gc;
+    private final BoardConfig boardConfig;
+    private final int cols;
+    private final double cellSize;
+
+    private final SpriteAtlas atlas;
+
+    /**
+     * Pre-rendered checkerboard and walls. These never change during a game,
+     * so they are drawn once per game and blitted on every refresh.
+     */
+    private WritableImage backgroundLayer;
+
+    private boolean fullRedrawRequired = true;
+
+    /**
+     * Movement of the last tick as packed cell indices, -1 before the first tick of a game was committed.
+     */
+    private int headFrom = -1;
+    private int headTo = -1;
+    private int tailFrom = -1;
+    private int tailTo = -1;
+    private String headSprite = SpriteAtlas.SNAKE_HEAD_RIGHT;
+
+    /**
+     * Cells of the food items drawn by the last commit, -1 if there was none.
+     * The food elements are reused by the game, so changes are detected by their cell.
+     */
+    private int lastRegularFoodCell = -1;
+    private int lastSpecialFoodCell = -1;
+
+    /**
+     * Constructor for BoardRenderer.
+     *
+     * @param gameBoardCanvas Canvas to draw on
+     * @param boardConfig     Dimensions of the board
+     */
+    public BoardRenderer(Canvas gameBoardCanvas, BoardConfig boardConfig) {
+        this.gc = gameBoardCanvas.getGraphicsContext2D();
+        this.boardConfig = boardConfig;
+        this.cols = boardConfig.getCols();
+        this.cellSize = boardConfig.getCellSize();
+        this.atlas = SpriteAtlas.getInstance();
+    }
+
+    /**
+     * Renders the static part of the board (checkerboard and walls) for a new game
+     * and schedules a full redraw for the next frame.
+     *
+     * @param innerWall the inner wall of the new game, may be null
+     */
+    public void prepareBackground(Wall innerWall) {
+        Canvas layer = new Canvas(boardConfig.getWidth(), boardConfig.getHeight());
+        GraphicsContext layerGc = layer.getGraphicsContext2D();
+        drawGameBoard(layerGc);
+        drawPerimeterWalls(layerGc);
+        if (innerWall != null)
+            drawInnerWalls(layerGc, innerWall);
+        this.backgroundLayer = layer.snapshot(null, null);
+        this.headFrom = this.headTo = this.tailFrom = this.tailTo = -1;
+        this.lastRegularFoodCell = -1;
+        this.lastSpecialFoodCell = -1;
+        invalidate();
+    }
+
+    /**
+     * Forces the next frame to repaint the whole board, e.g. after an overlay was drawn on top of it.
+     */
+    public void invalidate() {
+        this.fullRedrawRequired = true;
+    }
+
+    /**
+     * Takes over the state after a tick of the game logic. Must be called once after every tick,
+     * also if no frame was drawn since the previous one.
+     *
+     * @param snake       the snake after the tick
+     * @param regularFood the regular food currently on the board, may be null
+     * @param specialFood the special food currently on the board, may be null
+     */
+    public void commitTick(Snake snake, Food regularFood, Food specialFood) {
+        boolean incremental = !fullRedrawRequired && INCREMENTAL_RENDERING;
+
+        if (headTo < 0) {
+            headFrom = headTo = snake.getHeadCell();
+            tailFrom = tailTo = snake.getTailCell();
+        } else {
+            if (incremental) {
+                // Frames only showed part of the last movement, so the cells of the last tick are finished here.
+                if (tailFrom != tailTo) {
+                    restoreBackground(tailFrom);
+                }
+                drawBodyCell(headFrom);
+                drawBodyCell(tailTo);
+            }
+            headFrom = headTo;
+            headTo = snake.getHeadCell();
+            tailFrom = tailTo;
+            tailTo = snake.getTailCell();
+        }
+        headSprite = getSnakeHeadSprite(snake);
+
+        int regularFoodCell = regularFood == null ? -1 : regularFood.getCell();
+        int specialFoodCell = specialFood == null ? -1 : specialFood.getCell();
+        if (incremental) {
+            if (lastRegularFoodCell >= 0 && lastRegularFoodCell != regularFoodCell) {
+                restoreBackground(lastRegularFoodCell);
+            }
+            if (lastSpecialFoodCell >= 0 && lastSpecialFoodCell != specialFoodCell) {
+                restoreBackground(lastSpecialFoodCell);
+            }
+            if (regularFoodCell != lastRegularFoodCell) {
+                drawFood(regularFood);
+            }
+            if (specialFoodCell != lastSpecialFoodCell) {
+                drawFood(specialFood);
+            }
+        }
+        lastRegularFoodCell = regularFoodCell;
+        lastSpecialFoodCell = specialFoodCell;
+    }
+
+    /**
+     * Draws a frame.
+     *
+     * @param snake       the snake to draw
+     * @param regularFood the regular food currently on the board, may be null
+     * @param specialFood the special food currently on the board, may be null
+     * @param alpha       fraction of the current tick that has passed, between 0 and 1
+     */
+    public void render(Snake snake, Food regularFood, Food specialFood, double alpha) {
+        if (fullRedrawRequired || !INCREMENTAL_RENDERING) {
+            drawFullFrame(snake, regularFood, specialFood, alpha);
+            fullRedrawRequired = false;
+        } else {
+            drawMovingCells(regularFood, specialFood, alpha);
+        }
+    }
+
+    /**
+     * Repaints the whole board.
+     */
+    private void drawFullFrame(Snake snake, Food regularFood, Food specialFood, double alpha) {
+        gc.drawImage(backgroundLayer, 0, 0);
+        drawFood(regularFood);
+        drawFood(specialFood);
+
+        for (int i = 1; i < snake.getLength(); i++) {
+            drawCell(gc, SpriteAtlas.SNAKE_BODY, snake.getCell(i) % cols, snake.getCell(i) / cols);
+        }
+        drawMovingSprites(alpha);
+    }
+
+    /**
+     * Repaints only the cells the head and the tail are moving through.
+     */
+    private void drawMovingCells(Food regularFood, Food specialFood, double alpha) {
+        restoreBackground(headTo);
+        restoreBackground(tailFrom);
+        // New food may appear in the cell the tail just left.
+        redrawFoodInCell(regularFood, tailFrom);
+        redrawFoodInCell(specialFood, tailFrom);
+        drawBodyCell(headFrom);
+        drawBodyCell(tailTo);
+        drawMovingSprites(alpha);
+    }
+
+    /**
+     * Draws the tail and the head between the cells they moved from and to.
+     */
+    private void drawMovingSprites(double alpha) {
+        if (tailFrom != tailTo) {
+            drawBetween(SpriteAtlas.SNAKE_BODY, tailFrom, tailTo, alpha);
+        }
+        drawBetween(headSprite, headFrom, headTo, alpha);
+    }
+
+    private void drawBetween(String sprite, int fromCell, int toCell, double alpha) {
+        int fromX = fromCell % cols;
+        int fromY = fromCell / cols;
+        double x = fromX + (toCell % cols - fromX) * alpha;
+        double y = fromY + (toCell / cols - fromY) * alpha;
+        atlas.draw(gc, sprite, x * cellSize, y * cellSize, cellSize, cellSize);
+    }
+
+    private void drawBodyCell(int cell) {
+        restoreBackground(cell);
+        drawCell(gc, SpriteAtlas.SNAKE_BODY, cell % cols, cell / cols);
+    }
+
+    private void redrawFoodInCell(Food food, int cell) {
+        if (food != null && food.getCell() == cell) {
+            drawFood(food);
+        }
+    }
+
+    /**
+     * Copies one cell of the cached background layer onto the board.
+     *
+     * @param cell packed index of the cell to restore
+     */
+    private void restoreBackground(int cell) {
+        double x = (cell % cols) * cellSize;
+        double y = (cell / cols) * cellSize;
+        gc.drawImage(backgroundLayer, x, y, cellSize, cellSize, x, y, cellSize, cellSize);
+    }
+
+    private void drawCell(GraphicsContext gc, String sprite, int x, int y) {
+        atlas.draw(gc, sprite, x * cellSize, y * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Draws a food item on the game board.
+     *
+     * @param food The food item to draw
+     */
+    private void drawFood(Food food) {
+        if (food == null)
+            return;
+        atlas.drawFood(gc, food.getFoodType(), (food.getCell() % cols) * cellSize,
+                (food.getCell() / cols) * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Retrieves the appropriate snake head sprite based on the current direction.
+     *
+     * @return sprite of the snake's head
+     */
+    private String getSnakeHeadSprite(Snake snake) {
+        return switch (snake.getDirection()) {
+            case RIGHT -> SpriteAtlas.SNAKE_HEAD_RIGHT;
+            case DOWN -> SpriteAtlas.SNAKE_HEAD_DOWN;
+            case LEFT -> SpriteAtlas.SNAKE_HEAD_LEFT;
+            default -> SpriteAtlas.SNAKE_HEAD_UP;
+        };
+    }
+
+    /**
+     * Draws the game board with a checkerboard pattern.
+     * The pattern is written with one pixel per cell and then scaled up, which stays cheap on large boards.
+     *
+     * @param gc GraphicsContext used for drawing
+     */
+    private void drawGameBoard(GraphicsContext gc) {
+        WritableImage pattern = new WritableImage(boardConfig.getCols(), boardConfig.getRows());
+        PixelWriter writer = pattern.getPixelWriter();
+        for (int i = 0; i < boardConfig.getCols(); i++) {
+            for (int j = 0; j < boardConfig.getRows(); j++) {
+                if ((i + j) % 2 == 0) {
+                    writer.setColor(i, j, BOARD_COLOR_LIGHT);
+                } else {
+                    writer.setColor(i, j, BOARD_COLOR_DARK);
+                }
+            }
+        }
+        gc.setImageSmoothing(false);
+        gc.drawImage(pattern, 0, 0, boardConfig.getWidth(), boardConfig.getHeight());
+        gc.setImageSmoothing(true);
+    }
+
+    /**
+     * Draws the perimeter walls.
+     *
+     * @param gc GraphicsContext used for drawing
+     */
+    private void drawPerimeterWalls(GraphicsContext gc) {
+        int lastCol = boardConfig.getCols() - 1;
+        int lastRow = boardConfig.getRows() - 1;
+        for (int i = 0; i <= lastCol; i++) {
+            drawCell(gc, SpriteAtlas.WALL, i, 0); // Upper
+            drawCell(gc, SpriteAtlas.WALL, i, lastRow); // Bottom
+        }
+        for (int i = 0; i <= lastRow; i++) {
+            drawCell(gc, SpriteAtlas.WALL, 0, i); // Left
+            drawCell(gc, SpriteAtlas.WALL, lastCol, i); // Right
+        }
+    }
+
+    /**
+     * Draws the inner walls.
+     *
+     * @param gc GraphicsContext used for drawing
+     */
+    private void drawInnerWalls(GraphicsContext gc, Wall innerWall) {
+        for (Position wallSegment : innerWall.getSegments()) {
+            drawCell(gc, SpriteAtlas.WALL, wallSegment.getX(), wallSegment.getY());
+        }
+    }
+}
@@ -1,39 +1,35 @@
 package at.ac.fhcampuswien.snake.board;
 
-import at.ac.fhcampuswien.snake.ingameobjects.Food;
-import at.ac.fhcampuswien.snake.ingameobjects.Position;
-import at.ac.fhcampuswien.snake.ingameobjects.Snake;
-import at.ac.fhcampuswien.snake.ingameobjects.Wall;
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.engine.StepResult;
 import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.manager.InputQueue;
 import at.ac.fhcampuswien.snake.manager.PauseManager;
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.replay.ReplayFile;
+import at.ac.fhcampuswien.snake.replay.ReplayRecorder;
 import at.ac.fhcampuswien.snake.service.HighscoreService;
+import at.ac.fhcampuswien.snake.service.ScoreVerifier;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
 import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
 import at.ac.fhcampuswien.snake.util.Constants.Direction;
-import at.ac.fhcampuswien.snake.util.Player;
+import at.ac.fhcampuswien.snake.util.GameRandom;
 import at.ac.fhcampuswien.snake.util.SoundFX;
 import at.ac.fhcampuswien.snake.util.StateManager;
-import javafx.animation.Animation;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
 import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.TextInputDialog;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.util.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Optional;
-import java.util.Random;
-import java.util.Set;
 
 import static at.ac.fhcampuswien.snake.util.Constants.Direction.*;
 import static at.ac.fhcampuswien.snake.util.Constants.*;
@@ -47,81 +43,114 @@ public class GameBoard {
 
     private final GraphicsContext gc;
     private final Canvas gameBoardCanvas;
-    private final Timeline timeline;
+    private final GameLoop gameLoop;
     private final PauseManager pauseManager;
+    private final BoardRenderer renderer;
+    private final Difficulty difficulty;
+    private final BoardConfig boardConfig;
+
+    /**
+     * Plays instead of the player in the attract mode, null in normal games.
+     */
+    private final DirectionProvider autopilot;
 
     private boolean isGamePaused = false;
 
-    private Snake snake;
-    private Wall innerWall;
-    private FoodManager foodManager;
+    private GameEngine engine;
+    private ReplayRecorder replayRecorder;
+    private Replay lastReplay;
 
-    private int score;
-    private Food regularFood;
+    /**
+     * Directions requested by the player, applied one per tick.
+     */
+    private final InputQueue inputQueue = new InputQueue();
 
     public int getScore() {
-        return score;
+        return engine == null ? 0 : engine.getScore();
     }
 
-    private final Image snakeHeadUp;
-    private final Image snakeHeadDown;
-    private final Image snakeHeadLeft;
-    private final Image snakeHeadRight;
-    private final Image snakeBody;
-    private final Image wallPattern;
-
     /**
      * Constructor for GameBoard.
      *
      * @param gameBoardCanvas Canvas to draw on
      * @param difficulty      Game difficulty level
+     * @param boardConfig     Dimensions of the board
      */
-    public GameBoard(Canvas gameBoardCanvas, Difficulty difficulty) {
+    public GameBoard(Canvas gameBoardCanvas, Difficulty difficulty, BoardConfig boardConfig) {
+        this(gameBoardCanvas, difficulty, boardConfig, null);
+    }
+
+    /**
+     * Constructor for a GameBoard which is played by a {@link DirectionProvider} instead of the keyboard.
+     *
+     * @param gameBoardCanvas Canvas to draw on
+     * @param difficulty      Game difficulty level
+     * @param boardConfig     Dimensions of the board
+     * @param autopilot       chooses the direction every tick, or null if the player does
+     */
+    public GameBoard(Canvas gameBoardCanvas, Difficulty difficulty, BoardConfig boardConfig,
+                     DirectionProvider autopilot) {
         this.gameBoardCanvas = gameBoardCanvas;
         this.gameBoardCanvas.requestFocus();
         this.gc = gameBoardCanvas.getGraphicsContext2D();
-        this.score = 0;
+        this.difficulty = difficulty;
+        this.boardConfig = boardConfig;
+        this.autopilot = autopilot;
 
-        this.snakeHeadUp = new Image("graphics/snake/head_up.png");
-        this.snakeHeadDown = new Image("graphics/snake/head_down.png");
-        this.snakeHeadLeft = new Image("graphics/snake/head_left.png");
-        this.snakeHeadRight = new Image("graphics/snake/head_right.png");
-        this.snakeBody = new Image("graphics/snake/body.png");
-        this.wallPattern = new Image("graphics/wall/wall_pattern.png");
+        this.renderer = new BoardRenderer(gameBoardCanvas, boardConfig);
 
-        this.timeline = new Timeline(
-                new KeyFrame(Duration.millis(difficulty.getRefreshTime()), e -> refreshGameBoard()));
-        this.timeline.setCycleCount(Animation.INDEFINITE);
+        this.gameLoop = new GameLoop(difficulty.getRefreshTime(), this::refreshGameBoard, this::drawFrame);
 
         this.pauseManager = new PauseManager();
     }
 
     /**
-     * Starts a new game and a timer to refresh the game board.
+     * Starts a new game and the game loop to refresh the game board.
      */
     public void startGame() {
-        pauseManager.pauseGame(timeline::play);
+        pauseManager.pauseGame(gameLoop::start);
 
         initializeBoardObjects();
         initializeEvents();
 
         gameBoardCanvas.requestFocus();
 
-        this.score = 0;
         StateManager.getScoreBoard().drawCountdownTimer();
         StateManager.getScoreBoard().drawScoreBoard(this.getScore());
 
         SoundFX.playIntroSound();
 
-        timeline.pause();
-        pauseManager.pauseGame(timeline::play);
+        gameLoop.stop();
+        pauseManager.pauseGame(gameLoop::start);
+    }
+
+    /**
+     * Starts the attract mode: the autopilot plays one game after the other, silently and without countdown,
+     * until any key is pressed.
+     */
+    public void startAttractMode() {
+        if (autopilot == null)
+            throw new IllegalStateException("The attract mode needs an autopilot");
+
+        initializeBoardObjects();
+        gameBoardCanvas.setOnKeyPressed(event -> {
+            this.stopAnimation();
+            try {
+                StateManager.switchToStartView();
+            } catch (IOException e) {
+                LOG.error("Error switching to the Start view", e);
+            }
+        });
+        gameBoardCanvas.requestFocus();
+        drawAttractModeScore();
+        gameLoop.start();
     }
 
     /**
-     * Stops the timer which refreshes the game board.
+     * Stops the game loop which refreshes the game board.
      */
     public void stopAnimation() {
-        timeline.stop();
+        gameLoop.stop();
     }
 
     /**
@@ -130,7 +159,7 @@ public class GameBoard {
     public void endCurrentGame() {
         pauseManager.pauseGame(() -> {
             try {
-                timeline.play();
+                gameLoop.start();
                 StateManager.switchToGameOverView();
             } catch (IOException ex) {
                 LOG.error("Error switching to the GameOver view", ex);
@@ -139,17 +168,12 @@ public class GameBoard {
 
         SoundFX.playGameOverSound();
         this.stopAnimation();
+        inputQueue.logLatencyStats();
 
-        if (score != 0) {
+        if (getScore() != 0) {
             promptUserForInput();
-            try {
-                timeline.play();
-                StateManager.switchToGameOverView();
-            } catch (IOException ex) {
-                LOG.error("Error switching to the GameOver view", ex);
-            }
         } else {
-            pauseManager.pauseGame(timeline::play);
+            pauseManager.pauseGame(gameLoop::start);
         }
     }
 
@@ -157,187 +181,13 @@ public class GameBoard {
      * Initializes all game objects.
      */
     private void initializeBoardObjects() {
-        snake = new Snake(INITIAL_SIZE, INITIAL_DIRECTION);
-        innerWall = generateRandomWall();
-        foodManager = new FoodManager(snake, innerWall);
-        regularFood = foodManager.getRegularFood();
-        drawGameBoard(gc);
-        drawWalls(gc);
-        drawSnake(gc);
-        drawFood(gc, regularFood);
-    }
-
-    /**
-     * Generates a random wall inside the gameboard.
-     *
-     * @return a Wall object or null if no wall is generated
-     */
-    private Wall generateRandomWall() {
-        Random rand = new Random();
-        int wallLength = rand.nextInt(5);
-        if (wallLength == 0)
-            return null;
-
-        int randomX = getRandomWallPosition(rand, wallLength, true);
-        int randomY = getRandomWallPosition(rand, wallLength, false);
-
-        return new Wall(rand.nextBoolean(), randomX, randomY, wallLength);
-    }
-
-    /**
-     * Generates a random position for a wall.
-     *
-     * @param rand         Random instance
-     * @param wallLength   Length of the wall
-     * @param isHorizontal Determines if the wall is horizontal
-     * @return a valid random position
-     */
-    private int getRandomWallPosition(Random rand, int wallLength, boolean isHorizontal) {
-        int range = GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM * (wallLength + 2);
-        Set<Integer> exclusions = new HashSet<>();
-
-        for (Position segment : snake.getSegments()) {
-            int segmentPosition = isHorizontal ? segment.getX() : segment.getY();
-            exclusions.add(segmentPosition);
-            for (int i = 0; i < wallLength; i++) {
-                exclusions.add(segmentPosition + i * OBJECT_SIZE_MEDIUM);
-                exclusions.add(segmentPosition - i * OBJECT_SIZE_MEDIUM);
-            }
-        }
-
-        exclusions.addAll(Arrays.asList(0, OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM * 2));
-
-        int random;
-        do {
-            random = (rand.nextInt(range) / OBJECT_SIZE_MEDIUM) * OBJECT_SIZE_MEDIUM;
-        } while (exclusions.contains(random));
-
-        return random;
-    }
-
-    /**
-     * Draws the game board with a checkerboard pattern.
-     *
-     * @param gc GraphicsContext used for drawing
-     */
-    private void drawGameBoard(GraphicsContext gc) {
-        for (int i = 0; i < GAME_BOARD_SIZE_MEDIUM; i++) {
-            for (int j = 0; j < GAME_BOARD_SIZE_MEDIUM; j++) {
-                if ((i + j) % 2 == 0) {
-                    gc.setFill(Color.web(GAMEBOARD_COLOR_LIGHT));
-                } else {
-                    gc.setFill(Color.web(GAMEBOARD_COLOR_DARK));
-                }
-                gc.fillRect(i * OBJECT_SIZE_MEDIUM, j * OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM);
-            }
-        }
-    }
-
-    /**
-     * Draws a food item on the game board.
-     *
-     * @param gc   GraphicsContext used for drawing
-     * @param food The food item to draw
-     */
-    private void drawFood(GraphicsContext gc, Food food) {
-        if (food == null)
-            return;
-        Image foodImg = new Image("graphics/food/" + food.getFoodType());
-        gc.drawImage(foodImg, food.getLocation().getX(), food.getLocation().getY(), OBJECT_SIZE_MEDIUM,
-                OBJECT_SIZE_MEDIUM);
-    }
-
-    /**
-     * Draws the snake on the game board.
-     *
-     * @param gc GraphicsContext used for drawing
-     */
-    private void drawSnake(GraphicsContext gc) {
-        gc.setFill(Color.BLUE);
-        Position headPosition = snake.getSegments().get(0);
-        Image head = getSnakeHeadImage();
-
-        gc.drawImage(head, headPosition.getX(), headPosition.getY(), OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM);
-
-        for (int i = 1; i < snake.getSegments().size(); i++) {
-            Position bodySegment = snake.getSegments().get(i);
-            gc.drawImage(snakeBody, bodySegment.getX(), bodySegment.getY(), OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM);
-        }
-    }
-
-    /**
-     * Retrieves the appropriate snake head image based on the current direction.
-     *
-     * @return Image of the snake's head
-     */
-    private Image getSnakeHeadImage() {
-        return switch (snake.getDirection()) {
-            case RIGHT -> snakeHeadRight;
-            case DOWN -> snakeHeadDown;
-            case LEFT -> snakeHeadLeft;
-            default -> snakeHeadUp;
-        };
-    }
-
-    // Füge die folgende Methode hinzu oder passe die vorhandene an
-
-    /**
-     * Überprüft, ob der Kopf der Schlange sich auf dem Essen befindet.
-     *
-     * @param food Das zu überprüfende Essenobjekt.
-     * @return true, wenn der Schlange auf dem Essen ist, sonst false.
-     */
-    private boolean checkIfSnakeHeadIsOnFood(Food food) {
-        if (food == null)
-            return false;
-        Position snakeHead = snake.getSegments().get(0);
-        Position foodPos = food.getLocation();
-        boolean isCollision = snakeHead.equals(foodPos);
-        if (isCollision) {
-            LOG.info("Schlange hat das Essen an Position ({}, {}) gegessen.", foodPos.getX(), foodPos.getY());
-        } else {
-            LOG.debug("Schlangen-Kopf: ({}, {}), Essen-Position: ({}, {})",
-                    snakeHead.getX(), snakeHead.getY(), foodPos.getX(), foodPos.getY());
-        }
-        return isCollision;
-    }
-
-    /**
-     * Draws all walls on the game board.
-     *
-     * @param gc GraphicsContext used for drawing
-     */
-    private void drawWalls(GraphicsContext gc) {
-        drawPerimeterWalls(gc);
-        if (innerWall != null)
-            drawInnerWalls(gc);
-    }
-
-    /**
-     * Draws the perimeter walls.
-     *
-     * @param gc GraphicsContext used for drawing
-     */
-    private void drawPerimeterWalls(GraphicsContext gc) {
-        for (int i = 0; i < GAME_BOARD_SIZE_MEDIUM; i += OBJECT_SIZE_MEDIUM) {
-            gc.drawImage(wallPattern, i, 0, OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM); // Upper
-            gc.drawImage(wallPattern, i, GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM,
-                    OBJECT_SIZE_MEDIUM); // Bottom
-            gc.drawImage(wallPattern, 0, i, OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM); // Left
-            gc.drawImage(wallPattern, GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM, i, OBJECT_SIZE_MEDIUM,
-                    OBJECT_SIZE_MEDIUM); // Right
-        }
-    }
-
-    /**
-     * Draws the inner walls.
-     *
-     * @param gc GraphicsContext used for drawing
-     */
-    private void drawInnerWalls(GraphicsContext gc) {
-        for (Position wallSegment : innerWall.getSegments()) {
-            gc.drawImage(wallPattern, wallSegment.getX(), wallSegment.getY(), OBJECT_SIZE_MEDIUM, OBJECT_SIZE_MEDIUM);
-        }
+        engine = new GameEngine(difficulty, boardConfig, GameRandom.newSeed());
+        LOG.info("Neues Spiel mit Seed {}", engine.getSeed());
+        replayRecorder = new ReplayRecorder(engine);
+        inputQueue.reset();
+        renderer.prepareBackground(engine.getInnerWall());
+        commitBoardObjects();
+        drawFrame(0);
     }
 
     /**
@@ -346,22 +196,23 @@ public class GameBoard {
     private void initializeEvents() {
         gameBoardCanvas.setOnKeyPressed(event -> {
             switch (event.getCode()) {
-                case UP -> handleDirectionChange(UP, DOWN);
-                case DOWN -> handleDirectionChange(DOWN, UP);
-                case LEFT -> handleDirectionChange(LEFT, RIGHT);
-                case RIGHT -> handleDirectionChange(RIGHT, LEFT);
+                case UP -> handleDirectionChange(UP);
+                case DOWN -> handleDirectionChange(DOWN);
+                case LEFT -> handleDirectionChange(LEFT);
+                case RIGHT -> handleDirectionChange(RIGHT);
                 case P -> {
-                    if (snake.isAlive()) {
+                    if (!engine.isGameOver()) {
                         pauseManager.togglePause(() -> {
                             if (!pauseManager.isGamePaused()) {
-                                timeline.play();
+                                gameLoop.start();
                             } else {
-                                timeline.pause();
+                                gameLoop.stop();
                             }
                             isGamePaused = pauseManager.isGamePaused();
                         });
                     }
                 }
+                case M -> SoundFX.setMuted(!SoundFX.isMuted());
                 case ESCAPE -> handleEscape();
                 default -> throw new IllegalArgumentException("Unexpected value: " + event.getCode());
             }
@@ -370,14 +221,13 @@ public class GameBoard {
 
     /**
      * Handles the change of direction for the snake.
+     * The key press is queued and validated in the tick which applies it.
      *
-     * @param newDir      The new direction to set
-     * @param oppositeDir The opposite direction to prevent reversing
+     * @param newDir The new direction to set
      */
-    private void handleDirectionChange(Direction newDir, Direction oppositeDir) {
-        if (!isGamePaused && snake.getDirection() != oppositeDir && snake.isPositionUpdated()) {
-            snake.setDirection(newDir);
-            snake.setPositionUpdated(false);
+    private void handleDirectionChange(Direction newDir) {
+        if (!isGamePaused) {
+            inputQueue.offer(newDir, System.nanoTime());
         }
     }
 
@@ -385,7 +235,7 @@ public class GameBoard {
      * Handles the escape key press to potentially exit to the start screen.
      */
     private void handleEscape() {
-        if (snake.isAlive()) {
+        if (!engine.isGameOver()) {
             isGamePaused = true;
 
             Alert alert = new Alert(Alert.AlertType.WARNING, """
@@ -408,7 +258,8 @@ public class GameBoard {
     }
 
     /**
-     * Prompts the user to input their name for the highscore.
+     * Prompts the user to input their name for the highscore, and switches to the game over view once the score
+     * has been verified.
      */
     private void promptUserForInput() {
         TextInputDialog inputPlayerName = new TextInputDialog();
@@ -418,12 +269,41 @@ public class GameBoard {
         Optional<String> result = inputPlayerName.showAndWait();
         String name = result.map(s -> s.replace("%", "")).orElse("Anonymous");
 
-        Player player = new Player(name, score);
-        HighscoreService.savePlayerHighscore(player);
+        // The game over view shows the leaderboard with the new score, so it is shown after the verification.
+        HighscoreService.submitHighscore(name, lastReplay).whenComplete((verification, error) ->
+                Platform.runLater(() -> showGameOverView(getVerificationNotice(verification, error))));
+    }
+
+    private void showGameOverView(String notice) {
+        try {
+            gameLoop.start();
+            StateManager.switchToGameOverView(notice);
+        } catch (IOException ex) {
+            LOG.error("Error switching to the GameOver view", ex);
+        }
+    }
+
+    /**
+     * @return why the score was not saved, or null if it was saved
+     */
+    private static String getVerificationNotice(ScoreVerifier.Verification verification, Throwable error) {
+        if (error != null) {
+            LOG.error("Error verifying the score", error);
+            return "Your score could not be verified and was not saved.";
+        }
+        return switch (verification.verdict()) {
+            case VALID -> null;
+            case SCORE_MISMATCH -> "Your score was not saved: the recorded game reaches "
+                    + verification.simulatedScore() + " points.";
+            case END_MISMATCH -> "Your score was not saved: the recorded game does not end in the same tick.";
+            case UNRANKED_BOARD -> "Your score was not saved: only games on the "
+                    + BoardConfig.DEFAULT + " board are ranked.";
+            case INVALID_REPLAY -> "Your score was not saved: the recorded game cannot be replayed.";
+        };
     }
 
     /**
-     * Aktualisiert und zeichnet die Spieloberfläche neu.
+     * Aktualisiert das Spiel um einen Tick. Wird vom {@link GameLoop} im FX-Thread aufgerufen.
      */
     private void refreshGameBoard() {
         if (isGamePaused) {
@@ -431,85 +311,95 @@ public class GameBoard {
             return;
         }
 
-        Platform.runLater(() -> {
-            try {
-                snake.updateSnakePosition();
-                LOG.debug("Schlangen-Position aktualisiert. Neuer Kopf: ({}, {})",
-                        snake.getSegments().get(0).getX(), snake.getSegments().get(0).getY());
-                snake.checkForCollisions(innerWall);
-                if (snake.isAlive()) {
-                    handleFoodGeneration();
-                    gc.clearRect(0, 0, gameBoardCanvas.getWidth(), gameBoardCanvas.getHeight());
-                    drawGameBoard(gc);
-                    drawWalls(gc);
-                    drawSnake(gc);
-
-                    handleFoodConsumption();
-                } else {
-                    endCurrentGame();
+        try {
+            if (autopilot != null) {
+                refreshAttractMode();
+                return;
+            }
+
+            Direction input = inputQueue.poll(engine.getSnake().getDirection(), System.nanoTime());
+            StepResult result = engine.step(input);
+            replayRecorder.record(input);
+            switch (result) {
+                case GAME_OVER -> {
+                    // Dialogs cannot be shown while an animation pulse is processed.
+                    gameLoop.stop();
+                    lastReplay = replayRecorder.toReplay();
+                    ReplayFile.saveAsync(lastReplay);
+                    Platform.runLater(this::endCurrentGame);
+                }
+                case ATE_REGULAR_FOOD -> {
+                    SoundFX.playEatingSound();
+                    StateManager.getScoreBoard().drawScoreBoard(this.getScore());
+                }
+                case ATE_SPECIAL_FOOD -> {
+                    SoundFX.playBonusPointSound();
+                    StateManager.getScoreBoard().drawScoreBoard(this.getScore());
                 }
-            } catch (Exception ex) {
-                LOG.error("Fehler beim Aktualisieren des Spielbretts", ex);
             }
-        });
+            if (result != StepResult.GAME_OVER) {
+                commitBoardObjects();
+            }
+        } catch (Exception ex) {
+            LOG.error("Fehler beim Aktualisieren des Spielbretts", ex);
+        }
+    }
+
+    /**
+     * Plays a tick of the attract mode. Games which end, or which run for too long because the snake circles
+     * without reaching the food, are replaced by a new game.
+     */
+    private void refreshAttractMode() {
+        StepResult result = engine.step(autopilot.nextDirection(engine));
+        if (result == StepResult.GAME_OVER || engine.getTick() >= ATTRACT_MODE_MAX_TICKS) {
+            initializeBoardObjects();
+            drawAttractModeScore();
+            return;
+        }
+        if (result == StepResult.ATE_REGULAR_FOOD || result == StepResult.ATE_SPECIAL_FOOD) {
+            drawAttractModeScore();
+        }
+        commitBoardObjects();
+    }
+
+    private void drawAttractModeScore() {
+        StateManager.getScoreBoard().drawScoreBoard(this.getScore());
+        StateManager.getScoreBoard().drawAttractModeHint();
     }
 
     /**
      * Displays the paused state on the game board.
      */
     private void displayPausedState() {
+        renderer.invalidate();
+        // As large as a cell, but at least as large as a cell of the classic board, so it stays readable on
+        // boards with many small cells
+        double height = gameBoardCanvas.getHeight();
+        double size = Math.max(boardConfig.getCellSize(), height / NUMBER_OF_ROWS_AND_COLS);
         gc.setFill(Color.WHITE);
-        gc.fillRect(OBJECT_SIZE_MEDIUM * 0.3, GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM * 0.9,
-                OBJECT_SIZE_MEDIUM * 2.7, OBJECT_SIZE_MEDIUM * 0.8);
-        gc.setFont(new Font(OBJECT_SIZE_MEDIUM * 0.6));
+        gc.fillRect(size * 0.3, height - size * 0.9, size * 2.7, size * 0.8);
+        gc.setFont(new Font(size * 0.6));
         gc.setFill(Color.BLACK);
-        gc.fillText("Paused!", OBJECT_SIZE_MEDIUM * 0.6, GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM * 0.3,
-                GAME_BOARD_SIZE_MEDIUM);
+        gc.fillText("Paused!", size * 0.6, height - size * 0.3, gameBoardCanvas.getWidth());
     }
 
     /**
-     * Handles the generation of new food items.
+     * Passes the state after a tick to the renderer.
      */
-    private void handleFoodGeneration() {
-        if (foodManager.getRegularFood() == null) {
-            foodManager.generateRegularFood();
-        }
-        if (foodManager.shouldGenerateSpecialFood()) {
-            foodManager.generateSpecialFood();
-        }
+    private void commitBoardObjects() {
+        FoodManager foodManager = engine.getFoodManager();
+        renderer.commitTick(engine.getSnake(), foodManager.getRegularFood(), foodManager.getSpecialFood());
     }
 
     /**
-     * Handles the consumption of food by the snake.
+     * Draws the snake and the food items of the current game.
+     *
+     * @param alpha fraction of the current tick that has passed
      */
-    private void handleFoodConsumption() {
-        Food regular = foodManager.getRegularFood();
-        if (checkIfSnakeHeadIsOnFood(regular)) {
-            snake.eats(regular);
-            score += regular.getScoreValue();
-            foodManager.handleFoodConsumption(regular.getScoreValue());
-            StateManager.getScoreBoard().drawScoreBoard(this.getScore());
-            regularFood = null;
-        } else {
-            drawFood(gc, regular);
-        }
-
-        Food special = foodManager.getSpecialFood();
-        if (special != null) {
-            if (checkIfSnakeHeadIsOnFood(special)) {
-                snake.eats(special);
-                score += special.getScoreValue();
-                foodManager.handleFoodConsumption(special.getScoreValue());
-                StateManager.getScoreBoard().drawScoreBoard(this.getScore());
-                foodManager.resetSpecialFood();
-            } else {
-                special.decreaseSpecialFoodTimeToLive();
-                if (special.getSpecialFoodTimeToLive() == 0) {
-                    foodManager.resetSpecialFood();
-                } else {
-                    drawFood(gc, special);
-                }
-            }
-        }
+    private void drawFrame(double alpha) {
+        if (isGamePaused)
+            return;
+        FoodManager foodManager = engine.getFoodManager();
+        renderer.render(engine.getSnake(), foodManager.getRegularFood(), foodManager.getSpecialFood(), alpha);
     }
-}
\ No newline at end of file
+}
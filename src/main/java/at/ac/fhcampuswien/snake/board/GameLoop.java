@@ -0,0 +1,78 @@
+package at.ac.fhcampuswien.snake.board;
+
+import javafx.animation.AnimationTimer;
+
+import java.util.function.DoubleConsumer;
+
+/**
+ * Game loop with a fixed timestep, driven by the JavaFX pulse.
+ * <p>
+ * The game logic advances in ticks of constant length, independent of the frame rate: the time elapsed since
+ * the previous frame is added to an accumulator and as many ticks are run as fit into it. Afterwards the frame
+ * is rendered once with the fraction of the next tick that has already passed, so the game can be drawn
+ * smoothly at the refresh rate of the monitor while the logic stays deterministic.
+ */
+public class GameLoop extends AnimationTimer {
+
+    /**
+     * Upper bound for the time simulated per frame, so a stalled frame does not cause a burst of ticks.
+     */
+    private final static long MAX_FRAME_NANOS = 250_000_000L;
+
+    private final long tickNanos;
+    private final Runnable tick;
+    private final DoubleConsumer render;
+
+    private long lastFrameNanos;
+    private long accumulatorNanos;
+    private boolean running;
+
+    /**
+     * Constructor for GameLoop.
+     *
+     * @param tickMillis length of a tick in milliseconds
+     * @param tick       advances the game logic by one tick
+     * @param render     draws a frame, receives the fraction of the current tick that has passed (0 to 1)
+     */
+    public GameLoop(long tickMillis, Runnable tick, DoubleConsumer render) {
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.tick = tick;
+        this.render = render;
+    }
+
+    /**
+     * Starts or resumes the loop. The time the loop was stopped does not count towards the next tick.
+     */
+    @Override
+    public void start() {
+        lastFrameNanos = -1;
+        running = true;
+        super.start();
+    }
+
+    /**
+     * Stops the loop. Can be called from within a tick, in which case no further ticks and no frame are run.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        super.stop();
+    }
+
+    @Override
+    public void handle(long now) {
+        if (lastFrameNanos < 0) {
+            lastFrameNanos = now;
+        }
+        accumulatorNanos += Math.min(now - lastFrameNanos, MAX_FRAME_NANOS);
+        lastFrameNanos = now;
+
+        while (running && accumulatorNanos >= tickNanos) {
+            tick.run();
+            accumulatorNanos -= tickNanos;
+        }
+        if (running) {
+            render.accept((double) accumulatorNanos / tickNanos);
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package at.ac.fhcampuswien.snake.board;
 
 import at.ac.fhcampuswien.snake.service.HighscoreService;
+import at.ac.fhcampuswien.snake.service.Leaderboard;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
 import at.ac.fhcampuswien.snake.util.Player;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.ObservableListBase;
 import javafx.geometry.Insets;
+import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
@@ -14,16 +16,36 @@ import java.util.List;
 
 import static at.ac.fhcampuswien.snake.util.Constants.HIGHSCORE_BOARD_HEIGHT;
 import static at.ac.fhcampuswien.snake.util.Constants.HIGHSCORE_BOARD_WIDTH;
+import static at.ac.fhcampuswien.snake.util.Constants.HIGHSCORE_BOARD_RANK_COL_WIDTH;
 import static at.ac.fhcampuswien.snake.util.Constants.HIGHSCORE_BOARD_NAME_COL_WIDTH;
 import static at.ac.fhcampuswien.snake.util.Constants.HIGHSCORE_BOARD_SCORE_COL_WIDTH;
 
+/**
+ * Shows the leaderboard of a difficulty. The table only fetches the rows which are visible,
+ * page by page, so the leaderboard may have any number of entries.
+ */
 public class HighscoreBoard {
+
+    private final static int PAGE_SIZE = 50;
+
     @SuppressWarnings("unchecked")
-    public HighscoreBoard(VBox vBox) {
+    public HighscoreBoard(VBox vBox, Difficulty difficulty) {
         TableView<Player> table = new TableView<>();
         vBox.setMaxHeight(HIGHSCORE_BOARD_HEIGHT);
         vBox.setMaxWidth(HIGHSCORE_BOARD_WIDTH);
 
+        TableColumn<Player, Void> rankCol = new TableColumn<>("Rank");
+        rankCol.setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Void item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : String.valueOf(getIndex() + 1));
+            }
+        });
+        rankCol.setMinWidth(HIGHSCORE_BOARD_RANK_COL_WIDTH);
+        rankCol.setSortable(false);
+        rankCol.setReorderable(false);
+
         TableColumn<Player, String> nameCol = new TableColumn<>("Name");
         nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         nameCol.setMinWidth(HIGHSCORE_BOARD_NAME_COL_WIDTH);
@@ -40,13 +62,45 @@ public class HighscoreBoard {
         vBox.setPadding(new Insets(10, 10, 10, 10));
         vBox.getChildren().addAll(table);
 
-        final List<Player> playerList = HighscoreService.getSavedPlayerList();
-        final ObservableList<Player> data = FXCollections.observableArrayList(playerList);
-
+        rankCol.setStyle("-fx-alignment: CENTER;");
         nameCol.setStyle("-fx-alignment: CENTER;");
         scoreCol.setStyle("-fx-alignment: CENTER;");
 
-        table.setItems(data);
-        table.getColumns().addAll(nameCol, scoreCol);
+        table.setItems(new LeaderboardPages(HighscoreService.getLeaderboard(difficulty)));
+        table.getColumns().addAll(rankCol, nameCol, scoreCol);
+    }
+
+    /**
+     * Read-only list view on a leaderboard, which loads the entries of the requested index page by page.
+     * The size is fixed when the view is created.
+     */
+    private static class LeaderboardPages extends ObservableListBase<Player> {
+        private final Leaderboard leaderboard;
+        private final int size;
+        private int pageOffset = -1;
+        private List<Player> page = List.of();
+
+        LeaderboardPages(Leaderboard leaderboard) {
+            this.leaderboard = leaderboard;
+            this.size = leaderboard.size();
+        }
+
+        @Override
+        public Player get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            int offset = index - index % PAGE_SIZE;
+            if (offset != pageOffset) {
+                page = leaderboard.page(offset, PAGE_SIZE);
+                pageOffset = offset;
+            }
+            // The leaderboard may have shrunk since the view was created.
+            return index - offset < page.size() ? page.get(index - offset) : null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 }
\ No newline at end of file
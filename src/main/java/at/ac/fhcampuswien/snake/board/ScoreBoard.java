@@ -44,6 +44,17 @@ public class ScoreBoard {
         gc.fillText("Score: " + score, SCOREBOARD_WIDTH - 7, SCOREBOARD_HEIGHT / 2);
     }
 
+    /**
+     * Draws a hint on the left side of the scoreboard that the game is played by the computer.
+     */
+    public void drawAttractModeHint() {
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setFill(Color.WHITE);
+        gc.setFont(Font.font("Courier", OBJECT_SIZE_MEDIUM));
+        gc.fillText("Demo - press a key", 7, SCOREBOARD_HEIGHT / 2);
+    }
+
     /**
      * Draws a countdown timer on the scoreboard.
      * Replaces the Thread-based implementation with a Timeline for better integration with JavaFX.
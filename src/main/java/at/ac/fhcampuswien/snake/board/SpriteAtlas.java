@@ -0,0 +1,138 @@
+package at.ac.fhcampuswien.snake.board;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds all food, snake and wall graphics packed into a single texture.
+ * <p>
+ * The atlas is loaded once per JVM and shared by every game. Sprites are drawn with
+ * source-rectangle {@code drawImage} calls, so no image is decoded while a game is running.
+ */
+public class SpriteAtlas {
+
+    private final static Logger LOG = LoggerFactory.getLogger(SpriteAtlas.class);
+
+    public static final String SNAKE_HEAD_UP = "snake/head_up.png";
+    public static final String SNAKE_HEAD_DOWN = "snake/head_down.png";
+    public static final String SNAKE_HEAD_LEFT = "snake/head_left.png";
+    public static final String SNAKE_HEAD_RIGHT = "snake/head_right.png";
+    public static final String SNAKE_BODY = "snake/body.png";
+    public static final String WALL = "wall/wall_pattern.png";
+
+    private static final String GRAPHICS_PATH = "graphics/";
+    private static final String FOOD_PATH = "food/";
+
+    private static final String[] FOOD_TYPES = new String[]{"1.png", "2.png", "3.png",
+            "4.png", "5.png", "6.png", "7.png", "8.png", "9.png", "10.png",
+            "11.png", "12.png", "13.png", "14.png", "15.png",
+            "B1.png", "B2.png", "B3.png", "B4.png", "B5.png", "B6.png"};
+
+    private static final String[] SNAKE_AND_WALL_SPRITES = new String[]{SNAKE_HEAD_UP, SNAKE_HEAD_DOWN,
+            SNAKE_HEAD_LEFT, SNAKE_HEAD_RIGHT, SNAKE_BODY, WALL};
+
+    // Number of sprite slots per atlas row.
+    private static final int SLOTS_PER_ROW = 6;
+    // Transparent gap between slots, so scaled sprites do not sample pixels of their neighbours.
+    private static final int SLOT_PADDING = 2;
+
+    private static SpriteAtlas instance;
+
+    private final WritableImage texture;
+    private final Map<String, Rectangle2D> sprites = new HashMap<>();
+    private final Map<String, Rectangle2D> foodSprites = new HashMap<>();
+
+    /**
+     * Returns the shared atlas, loading it on first use.
+     *
+     * @return the sprite atlas
+     */
+    public static synchronized SpriteAtlas getInstance() {
+        if (instance == null) {
+            instance = new SpriteAtlas();
+        }
+        return instance;
+    }
+
+    private SpriteAtlas() {
+        int spriteCount = FOOD_TYPES.length + SNAKE_AND_WALL_SPRITES.length;
+        Image[] images = new Image[spriteCount];
+        int slotSize = 0;
+        for (int i = 0; i < spriteCount; i++) {
+            images[i] = new Image(GRAPHICS_PATH + getSpritePath(i));
+            if (images[i].isError()) {
+                throw new IllegalStateException("Could not load sprite " + getSpritePath(i), images[i].getException());
+            }
+            slotSize = (int) Math.max(slotSize, Math.max(images[i].getWidth(), images[i].getHeight()));
+        }
+        slotSize += SLOT_PADDING;
+
+        int rows = (spriteCount + SLOTS_PER_ROW - 1) / SLOTS_PER_ROW;
+        this.texture = new WritableImage(SLOTS_PER_ROW * slotSize, rows * slotSize);
+        PixelWriter writer = texture.getPixelWriter();
+
+        for (int i = 0; i < spriteCount; i++) {
+            int x = (i % SLOTS_PER_ROW) * slotSize;
+            int y = (i / SLOTS_PER_ROW) * slotSize;
+            int width = (int) images[i].getWidth();
+            int height = (int) images[i].getHeight();
+            writer.setPixels(x, y, width, height, images[i].getPixelReader(), 0, 0);
+
+            Rectangle2D region = new Rectangle2D(x, y, width, height);
+            if (i < FOOD_TYPES.length) {
+                foodSprites.put(FOOD_TYPES[i], region);
+            } else {
+                sprites.put(SNAKE_AND_WALL_SPRITES[i - FOOD_TYPES.length], region);
+            }
+        }
+        LOG.debug("Sprite atlas with {} sprites loaded ({}x{} px)", spriteCount, texture.getWidth(), texture.getHeight());
+    }
+
+    private static String getSpritePath(int index) {
+        if (index < FOOD_TYPES.length) {
+            return FOOD_PATH + FOOD_TYPES[index];
+        }
+        return SNAKE_AND_WALL_SPRITES[index - FOOD_TYPES.length];
+    }
+
+    /**
+     * Draws a snake or wall sprite.
+     *
+     * @param gc     GraphicsContext used for drawing
+     * @param sprite one of the sprite constants of this class
+     * @param x      target x coordinate
+     * @param y      target y coordinate
+     * @param width  target width
+     * @param height target height
+     */
+    public void draw(GraphicsContext gc, String sprite, double x, double y, double width, double height) {
+        drawRegion(gc, sprites.get(sprite), x, y, width, height);
+    }
+
+    /**
+     * Draws a food sprite.
+     *
+     * @param gc       GraphicsContext used for drawing
+     * @param foodType the food type as returned by {@code Food.getFoodType()}
+     * @param x        target x coordinate
+     * @param y        target y coordinate
+     * @param width    target width
+     * @param height   target height
+     */
+    public void drawFood(GraphicsContext gc, String foodType, double x, double y, double width, double height) {
+        drawRegion(gc, foodSprites.get(foodType), x, y, width, height);
+    }
+
+    private void drawRegion(GraphicsContext gc, Rectangle2D region, double x, double y, double width, double height) {
+        gc.drawImage(texture, region.getMinX(), region.getMinY(), region.getWidth(), region.getHeight(),
+                x, y, width, height);
+    }
+}
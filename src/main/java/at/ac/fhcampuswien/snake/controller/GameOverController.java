@@ -13,6 +13,9 @@ public class GameOverController {
     @FXML
     private Text scoreTextField;
 
+    @FXML
+    private Text noticeText;
+
     @FXML
     private VBox highScoreTable;
 
@@ -31,6 +34,15 @@ public class GameOverController {
     }
 
 
+    /**
+     * @param notice e.g. why the score was not saved, or null to show nothing
+     */
+    public void setNoticeText(String notice) {
+        this.noticeText.setText(notice == null ? "" : notice);
+        this.noticeText.setManaged(notice != null);
+    }
+
+
     public VBox getHighScoreTable() {
         return highScoreTable;
     }
@@ -1,5 +1,6 @@
 package at.ac.fhcampuswien.snake.controller;
 
+import at.ac.fhcampuswien.snake.util.BoardConfig;
 import at.ac.fhcampuswien.snake.util.Constants;
 import at.ac.fhcampuswien.snake.util.StateManager;
 import javafx.application.Platform;
@@ -34,6 +35,9 @@ public class MainViewController {
     @FXML
     private ComboBox comboBox;
 
+    @FXML
+    private ComboBox<String> boardSizeComboBox;
+
     @FXML
     private VBox footer;
 
@@ -65,6 +69,10 @@ public class MainViewController {
             case "Medium" -> StateManager.difficulty = Constants.Difficulty.MEDIUM;
             case "Hard" -> StateManager.difficulty = Constants.Difficulty.HARD;
         }
+        // The board size is shown as "<cols>x<rows>"
+        String[] boardSize = boardSizeComboBox.getValue().split("x");
+        StateManager.boardConfig = BoardConfig.forViewport(Integer.parseInt(boardSize[0]),
+                Integer.parseInt(boardSize[1]), Constants.GAME_BOARD_SIZE_MEDIUM, Constants.GAME_BOARD_SIZE_MEDIUM);
         StateManager.switchToGameView();
     }
 
@@ -0,0 +1,428 @@
+package at.ac.fhcampuswien.snake.engine;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+
+import java.util.Arrays;
+
+import static at.ac.fhcampuswien.snake.util.Constants.INITIAL_SIZE;
+
+/**
+ * Contains the rules of a game of several snakes on one board, e.g. for network play.
+ * <p>
+ * The snakes move at the same time: first all tails, then all heads. A snake dies if its head moves into a wall,
+ * into any snake or into the same cell as another head; the cells of dead snakes are freed for the others.
+ * There is no inner wall, and one regular food per four players. The game ends when all snakes are dead.
+ * <p>
+ * Like the {@link GameEngine}, all randomness comes from one {@link GameRandom}, so a game is fully determined
+ * by its seed, the number of players and the inputs passed to {@link #step(Direction[])}.
+ * <p>
+ * A game can return to a {@link Checkpoint} of one of its last {@link Snake#MAX_UNDONE_MOVES} ticks, e.g. to
+ * correct a prediction. A checkpoint only holds what is not on the board, the board is restored by undoing the
+ * changes the {@link OccupancyGrid} has recorded since.
+ */
+public class ArenaEngine {
+
+    /**
+     * Most snakes on one board.
+     */
+    public static final int MAX_PLAYERS = 64;
+
+    private final GameRules rules;
+    private final BoardConfig boardConfig;
+    private final GameRandom random;
+    private final OccupancyGrid grid;
+    private final Snake[] snakes;
+    private final FoodManager foodManager;
+    private final int[] scores;
+    private final StepResult[] results;
+
+    /**
+     * Stamp of the last step in which a head moved into a cell, and the snake of that head, to find heads moving
+     * into the same cell. The stamp is not part of the state of the game, so {@link #copyFrom} does not reset it
+     * to an older value which would still be found in the array.
+     */
+    private final int[] headClaimStamps;
+    private final int[] headClaimPlayers;
+    private int headClaimStamp;
+
+    private int tick;
+    private int aliveCount;
+    private boolean gameOver;
+
+    /**
+     * Creates a new game with all snakes at their {@link #getSpawnCell spawn cells} and the first regular foods.
+     *
+     * @param rules       rules of the game
+     * @param boardConfig Dimensions of the board
+     * @param seed        seed of all random decisions, equal seeds and inputs give equal games
+     * @param players     number of snakes, from 1 to {@link #MAX_PLAYERS}
+     * @throws IllegalArgumentException if the snakes do not fit onto the board
+     */
+    public ArenaEngine(GameRules rules, BoardConfig boardConfig, long seed, int players) {
+        if (players < 1 || players > MAX_PLAYERS)
+            throw new IllegalArgumentException("Players must be between 1 and " + MAX_PLAYERS + ": " + players);
+        this.rules = rules;
+        this.boardConfig = boardConfig;
+        this.random = new GameRandom(seed);
+        this.grid = new OccupancyGrid(boardConfig.getCols(), boardConfig.getRows());
+        this.snakes = new Snake[players];
+        for (int i = 0; i < players; i++) {
+            snakes[i] = new Snake(grid, INITIAL_SIZE, Direction.RIGHT, getSpawnCell(boardConfig, players, i));
+        }
+        this.foodManager = new FoodManager(grid, rules, random, getRegularFoodCount(players));
+        this.scores = new int[players];
+        this.results = new StepResult[players];
+        Arrays.fill(results, StepResult.MOVED);
+        this.headClaimStamps = new int[boardConfig.getCellCount()];
+        this.headClaimPlayers = new int[boardConfig.getCellCount()];
+        this.aliveCount = players;
+    }
+
+    /**
+     * Returns the cell of the head of a snake at the start of the game. The snakes are spread over the board in
+     * rows, all heading to the right.
+     *
+     * @param boardConfig Dimensions of the board
+     * @param players     number of snakes
+     * @param player      the snake, from 0 to players - 1
+     * @return packed cell index of the head
+     * @throws IllegalArgumentException if the snakes do not fit onto the board
+     */
+    public static int getSpawnCell(BoardConfig boardConfig, int players, int player) {
+        // As square as possible, but a snake and a free cell must fit between two heads of a row.
+        // The perimeter wall is not part of the space between the snakes.
+        int maxSlotsPerRow = (boardConfig.getCols() - 2) / (INITIAL_SIZE + 1) - 1;
+        int slotsPerRow = Math.max(1, Math.min((int) Math.ceil(Math.sqrt(players)), maxSlotsPerRow));
+        int slotRows = (players + slotsPerRow - 1) / slotsPerRow;
+        int spacingX = (boardConfig.getCols() - 2) / (slotsPerRow + 1);
+        int spacingY = (boardConfig.getRows() - 2) / (slotRows + 1);
+        if (spacingX < INITIAL_SIZE + 1 || spacingY < 2)
+            throw new IllegalArgumentException(players + " snakes do not fit onto a board of " + boardConfig);
+        int x = 1 + (player % slotsPerRow + 1) * spacingX;
+        int y = 1 + (player / slotsPerRow + 1) * spacingY;
+        return y * boardConfig.getCols() + x;
+    }
+
+    /**
+     * @param players number of snakes
+     * @return number of regular foods on the board at the same time
+     */
+    public static int getRegularFoodCount(int players) {
+        return Math.max(1, players / 4);
+    }
+
+    public GameRules getRules() {
+        return rules;
+    }
+
+    public BoardConfig getBoardConfig() {
+        return boardConfig;
+    }
+
+    /**
+     * @return the seed the game was created with
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    public OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    public int getPlayerCount() {
+        return snakes.length;
+    }
+
+    public Snake getSnake(int player) {
+        return snakes[player];
+    }
+
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    public FoodManager getFoodManager() {
+        return foodManager;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * @return number of snakes which are still alive
+     */
+    public int getAliveCount() {
+        return aliveCount;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Advances the game by one tick.
+     *
+     * @param inputs the direction requested by each player for this tick, or null entries to keep the current
+     *               direction. A request to reverse a snake is ignored.
+     * @return what happened to each snake during this tick, {@link StepResult#GAME_OVER} for dead snakes.
+     * The array is reused by the next step.
+     */
+    public StepResult[] step(Direction[] inputs) {
+        if (gameOver)
+            return results;
+
+        tick++;
+        headClaimStamp++;
+        for (int i = 0; i < snakes.length; i++) {
+            Snake snake = snakes[i];
+            if (!snake.isAlive())
+                continue;
+            Direction input = inputs[i];
+            if (input != null && input != GameEngine.getOppositeDirection(snake.getDirection())) {
+                snake.setDirection(input);
+            }
+        }
+
+        // All tails move before the first head, so a snake may follow directly behind any tail.
+        for (Snake snake : snakes) {
+            if (snake.isAlive()) {
+                snake.moveTail();
+            }
+        }
+        for (int i = 0; i < snakes.length; i++) {
+            Snake snake = snakes[i];
+            if (!snake.isAlive())
+                continue;
+            snake.moveHead();
+            int head = snake.getHeadCell();
+            if (headClaimStamps[head] == headClaimStamp) {
+                // The second head sees the cell as occupied by the first one, the first one has to be killed.
+                snakes[headClaimPlayers[head]].kill();
+            } else {
+                headClaimStamps[head] = headClaimStamp;
+                headClaimPlayers[head] = i;
+            }
+        }
+
+        // All heads have moved, so the cells of a dead snake can be freed without letting another one through.
+        for (int i = 0; i < snakes.length; i++) {
+            Snake snake = snakes[i];
+            if (results[i] == StepResult.GAME_OVER)
+                continue;
+            snake.checkForCollisions();
+            if (snake.isAlive()) {
+                results[i] = StepResult.MOVED;
+            } else {
+                results[i] = StepResult.GAME_OVER;
+                snake.removeFromBoard();
+                aliveCount--;
+            }
+        }
+        if (aliveCount == 0) {
+            gameOver = true;
+            return results;
+        }
+
+        handleFoodGeneration();
+        handleFoodConsumption();
+        return results;
+    }
+
+    /**
+     * Makes this game equal to another game with the same rules, board, seed and players, e.g. a
+     * {@link #snapshot()} taken earlier. Does not allocate, unless a snake of the other game is longer than the
+     * ones of this game have been so far. Checkpoints taken before cannot be returned to afterwards.
+     *
+     * @param other the game whose state is copied
+     */
+    public void copyFrom(ArenaEngine other) {
+        if (!other.rules.equals(rules) || other.random.getSeed() != random.getSeed()
+                || other.snakes.length != snakes.length
+                || other.boardConfig.getCols() != boardConfig.getCols()
+                || other.boardConfig.getRows() != boardConfig.getRows()) {
+            throw new IllegalArgumentException("Games differ in rules, board, seed or players");
+        }
+        grid.copyFrom(other.grid);
+        for (int i = 0; i < snakes.length; i++) {
+            snakes[i].copyFrom(other.snakes[i]);
+        }
+        foodManager.copyFrom(other.foodManager);
+        random.setState(other.random.getState());
+        System.arraycopy(other.scores, 0, scores, 0, scores.length);
+        System.arraycopy(other.results, 0, results, 0, results.length);
+        tick = other.tick;
+        aliveCount = other.aliveCount;
+        gameOver = other.gameOver;
+    }
+
+    /**
+     * The state of a game after a tick, except for the cells of the board, see {@link #checkpoint(Checkpoint)}.
+     */
+    public static final class Checkpoint {
+        private final ArenaEngine game;
+        private final Snake.Mark[] snakes;
+        private final FoodManager.Mark foods;
+        private final int[] scores;
+        private final StepResult[] results;
+        private long randomState;
+        private long gridChangeCount;
+        private int tick;
+        private int aliveCount;
+        private boolean gameOver;
+
+        private Checkpoint(ArenaEngine game) {
+            this.game = game;
+            this.snakes = new Snake.Mark[game.snakes.length];
+            for (int i = 0; i < snakes.length; i++) {
+                snakes[i] = new Snake.Mark();
+            }
+            this.foods = game.foodManager.newMark();
+            this.scores = new int[snakes.length];
+            this.results = new StepResult[snakes.length];
+        }
+
+        public int getTick() {
+            return tick;
+        }
+    }
+
+    /**
+     * Creates a checkpoint for this game, to be filled by {@link #checkpoint(Checkpoint)}. From now on the grid
+     * records its changes, which {@link #forgetChangesBefore(Checkpoint)} has to discard regularly.
+     *
+     * @return an empty checkpoint
+     */
+    public Checkpoint newCheckpoint() {
+        grid.startRecording();
+        return new Checkpoint(this);
+    }
+
+    /**
+     * Saves the current state of the game. Does not allocate.
+     *
+     * @param checkpoint a checkpoint created by {@link #newCheckpoint()} of this game
+     */
+    public void checkpoint(Checkpoint checkpoint) {
+        checkOwner(checkpoint);
+        for (int i = 0; i < snakes.length; i++) {
+            snakes[i].mark(checkpoint.snakes[i]);
+        }
+        foodManager.mark(checkpoint.foods);
+        System.arraycopy(scores, 0, checkpoint.scores, 0, scores.length);
+        System.arraycopy(results, 0, checkpoint.results, 0, results.length);
+        checkpoint.randomState = random.getState();
+        checkpoint.gridChangeCount = grid.getChangeCount();
+        checkpoint.tick = tick;
+        checkpoint.aliveCount = aliveCount;
+        checkpoint.gameOver = gameOver;
+    }
+
+    /**
+     * Returns to the state saved in a checkpoint, at most {@link Snake#MAX_UNDONE_MOVES} ticks ago. The changes of
+     * the board since are undone, so checkpoints taken after this one cannot be returned to anymore.
+     *
+     * @param checkpoint a checkpoint of this game whose grid changes have not been forgotten
+     */
+    public void rollBack(Checkpoint checkpoint) {
+        checkOwner(checkpoint);
+        if (tick - checkpoint.tick > Snake.MAX_UNDONE_MOVES)
+            throw new IllegalArgumentException("Cannot roll back from tick " + tick + " to " + checkpoint.tick);
+        grid.undoChanges(checkpoint.gridChangeCount);
+        for (int i = 0; i < snakes.length; i++) {
+            snakes[i].reset(checkpoint.snakes[i]);
+        }
+        foodManager.reset(checkpoint.foods);
+        System.arraycopy(checkpoint.scores, 0, scores, 0, scores.length);
+        System.arraycopy(checkpoint.results, 0, results, 0, results.length);
+        random.setState(checkpoint.randomState);
+        tick = checkpoint.tick;
+        aliveCount = checkpoint.aliveCount;
+        gameOver = checkpoint.gameOver;
+    }
+
+    /**
+     * Discards the changes of the board recorded before a checkpoint, earlier checkpoints cannot be returned to
+     * anymore.
+     *
+     * @param checkpoint the oldest checkpoint which is still needed
+     */
+    public void forgetChangesBefore(Checkpoint checkpoint) {
+        checkOwner(checkpoint);
+        grid.forgetChanges(checkpoint.gridChangeCount);
+    }
+
+    private void checkOwner(Checkpoint checkpoint) {
+        if (checkpoint.game != this)
+            throw new IllegalArgumentException("Checkpoint of another game");
+    }
+
+    /**
+     * Creates a copy of the current state of the game, which can later be restored with {@link #copyFrom}.
+     *
+     * @return a new engine in the same state
+     */
+    public ArenaEngine snapshot() {
+        ArenaEngine copy = new ArenaEngine(rules, boardConfig, random.getSeed(), snakes.length);
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    private void handleFoodGeneration() {
+        for (int i = 0; i < foodManager.getRegularFoodCount(); i++) {
+            if (foodManager.getRegularFood(i) == null) {
+                foodManager.generateRegularFood(i);
+            }
+        }
+        if (foodManager.shouldGenerateSpecialFood()) {
+            foodManager.generateSpecialFood();
+        }
+    }
+
+    /**
+     * Lets the snakes eat the foods their heads moved onto. Two living heads are never in the same cell, so
+     * every food is eaten by one snake at most.
+     */
+    private void handleFoodConsumption() {
+        for (int i = 0; i < snakes.length; i++) {
+            Snake snake = snakes[i];
+            if (!snake.isAlive())
+                continue;
+            for (int j = 0; j < foodManager.getRegularFoodCount(); j++) {
+                Food regular = foodManager.getRegularFood(j);
+                if (regular != null && regular.getCell() == snake.getHeadCell()) {
+                    snake.eats(regular);
+                    scores[i] += regular.getScoreValue();
+                    foodManager.consumeRegularFood(j);
+                    results[i] = StepResult.ATE_REGULAR_FOOD;
+                }
+            }
+        }
+
+        Food special = foodManager.getSpecialFood();
+        if (special == null)
+            return;
+        for (int i = 0; i < snakes.length; i++) {
+            Snake snake = snakes[i];
+            if (snake.isAlive() && special.getCell() == snake.getHeadCell()) {
+                snake.eats(special);
+                scores[i] += special.getScoreValue();
+                foodManager.resetSpecialFood();
+                results[i] = StepResult.ATE_SPECIAL_FOOD;
+                return;
+            }
+        }
+        special.decreaseSpecialFoodTimeToLive();
+        if (special.getSpecialFoodTimeToLive() == 0) {
+            foodManager.resetSpecialFood();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package at.ac.fhcampuswien.snake.engine;
+
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+/**
+ * Decides the input of each tick in place of a player, e.g. for simulations.
+ * <p>
+ * Implementations may keep state between ticks, so every game needs its own instance.
+ */
+@FunctionalInterface
+public interface DirectionProvider {
+
+    /**
+     * Called before every tick.
+     *
+     * @param engine the game, which must not be modified
+     * @return the direction for the next tick, or null to keep the current direction
+     */
+    Direction nextDirection(GameEngine engine);
+}
@@ -0,0 +1,361 @@
+package at.ac.fhcampuswien.snake.engine;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Position;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.ingameobjects.Wall;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.BitSet;
+
+import static at.ac.fhcampuswien.snake.util.Constants.*;
+
+/**
+ * Contains the rules of the Snake game: movement, collisions, food generation and consumption and scoring.
+ * <p>
+ * The engine does not depend on JavaFX, so games can be simulated without a running FX toolkit.
+ * Rendering, sound and user interaction are left to the caller, which reacts to the {@link StepResult}.
+ * <p>
+ * All randomness of a game comes from one {@link GameRandom}, so a game is fully determined by its seed and
+ * the inputs passed to {@link #step(Direction)}.
+ */
+public class GameEngine {
+
+    private final static Logger LOG = LoggerFactory.getLogger(GameEngine.class);
+
+    private final GameRules rules;
+    private final BoardConfig boardConfig;
+    private final GameRandom random;
+    private final OccupancyGrid grid;
+    private final Snake snake;
+    private final Wall innerWall;
+    private final FoodManager foodManager;
+
+    private int score;
+    private int tick;
+    private boolean gameOver;
+
+    /**
+     * Creates a new game on the default board.
+     *
+     * @param difficulty Game difficulty level
+     */
+    public GameEngine(Difficulty difficulty) {
+        this(difficulty, BoardConfig.DEFAULT);
+    }
+
+    /**
+     * Creates a new game with a new seed.
+     *
+     * @param difficulty  Game difficulty level
+     * @param boardConfig Dimensions of the board
+     */
+    public GameEngine(Difficulty difficulty, BoardConfig boardConfig) {
+        this(difficulty, boardConfig, GameRandom.newSeed());
+    }
+
+    /**
+     * Creates a new game with the rules of the given difficulty.
+     *
+     * @param difficulty  Game difficulty level
+     * @param boardConfig Dimensions of the board
+     * @param seed        seed of all random decisions, equal seeds and inputs give equal games
+     */
+    public GameEngine(Difficulty difficulty, BoardConfig boardConfig, long seed) {
+        this(GameRules.forDifficulty(difficulty), boardConfig, seed);
+    }
+
+    /**
+     * Creates a new game with a random inner wall and the first regular food.
+     *
+     * @param rules       rules of the game, e.g. modified ones to try them in simulations
+     * @param boardConfig Dimensions of the board
+     * @param seed        seed of all random decisions, equal seeds and inputs give equal games
+     */
+    public GameEngine(GameRules rules, BoardConfig boardConfig, long seed) {
+        this.rules = rules;
+        this.boardConfig = boardConfig;
+        this.random = new GameRandom(seed);
+        this.grid = new OccupancyGrid(boardConfig.getCols(), boardConfig.getRows());
+        this.snake = new Snake(grid, INITIAL_SIZE, INITIAL_DIRECTION);
+        this.innerWall = generateRandomWall();
+        if (innerWall != null) {
+            for (Position wallSegment : innerWall.getSegments()) {
+                grid.occupy(wallSegment.toCell(boardConfig.getCols()));
+            }
+        }
+        this.foodManager = new FoodManager(grid, rules, random);
+        this.score = 0;
+        this.tick = 0;
+        this.gameOver = false;
+    }
+
+    public Difficulty getDifficulty() {
+        return rules.difficulty();
+    }
+
+    public GameRules getRules() {
+        return rules;
+    }
+
+    public BoardConfig getBoardConfig() {
+        return boardConfig;
+    }
+
+    /**
+     * @return the seed the game was created with
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    public OccupancyGrid getGrid() {
+        return grid;
+    }
+
+    public Snake getSnake() {
+        return snake;
+    }
+
+    public Wall getInnerWall() {
+        return innerWall;
+    }
+
+    public FoodManager getFoodManager() {
+        return foodManager;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Advances the game by one tick.
+     *
+     * @param input the direction requested by the player for this tick, or null to keep the current direction.
+     *              A request to reverse the snake is ignored.
+     * @return what happened during this tick
+     */
+    public StepResult step(Direction input) {
+        if (gameOver)
+            return StepResult.GAME_OVER;
+
+        tick++;
+        if (input != null && input != getOppositeDirection(snake.getDirection())) {
+            snake.setDirection(input);
+        }
+
+        snake.updateSnakePosition();
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Schlangen-Position aktualisiert. Neuer Kopf: ({}, {})",
+                    snake.getHeadCell() % boardConfig.getCols(), snake.getHeadCell() / boardConfig.getCols());
+        }
+        snake.checkForCollisions();
+        if (!snake.isAlive()) {
+            gameOver = true;
+            return StepResult.GAME_OVER;
+        }
+
+        handleFoodGeneration();
+        return handleFoodConsumption();
+    }
+
+    /**
+     * Creates a copy of the current state of the game, which can later be restored with {@link #copyFrom}.
+     *
+     * @return a new engine in the same state
+     */
+    public GameEngine snapshot() {
+        GameEngine copy = new GameEngine(rules, boardConfig, random.getSeed());
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    /**
+     * Puts this game into the state of another game, e.g. a {@link #snapshot()} taken earlier.
+     * Both games must have been created with the same rules, board and seed. Does not allocate,
+     * so a set of engines can be reused to keep several snapshots.
+     *
+     * @param other the game whose state is copied
+     */
+    public void copyFrom(GameEngine other) {
+        if (!other.rules.equals(rules) || other.random.getSeed() != random.getSeed()
+                || other.boardConfig.getCols() != boardConfig.getCols()
+                || other.boardConfig.getRows() != boardConfig.getRows()) {
+            throw new IllegalArgumentException("Games differ in rules, board or seed");
+        }
+        grid.copyFrom(other.grid);
+        snake.copyFrom(other.snake);
+        foodManager.copyFrom(other.foodManager);
+        random.setState(other.random.getState());
+        score = other.score;
+        tick = other.tick;
+        gameOver = other.gameOver;
+    }
+
+    /**
+     * Returns the direction which would reverse the snake onto itself.
+     *
+     * @param direction the current direction
+     * @return the opposite direction
+     */
+    public static Direction getOppositeDirection(Direction direction) {
+        return switch (direction) {
+            case UP -> Direction.DOWN;
+            case DOWN -> Direction.UP;
+            case LEFT -> Direction.RIGHT;
+            case RIGHT -> Direction.LEFT;
+        };
+    }
+
+    /**
+     * Returns the cell next to a cell in a direction.
+     *
+     * @param cell      packed cell index
+     * @param direction the direction
+     * @return the neighbouring cell, which may be outside the board for cells of the perimeter wall
+     */
+    public int getNeighbourCell(int cell, Direction direction) {
+        return switch (direction) {
+            case UP -> cell - boardConfig.getCols();
+            case DOWN -> cell + boardConfig.getCols();
+            case LEFT -> cell - 1;
+            case RIGHT -> cell + 1;
+        };
+    }
+
+    /**
+     * Handles the generation of new food items.
+     */
+    private void handleFoodGeneration() {
+        if (foodManager.getRegularFood() == null) {
+            foodManager.generateRegularFood();
+        }
+        if (foodManager.shouldGenerateSpecialFood()) {
+            foodManager.generateSpecialFood();
+        }
+    }
+
+    /**
+     * Handles the consumption of food by the snake.
+     *
+     * @return the food that was eaten during this tick, if any
+     */
+    private StepResult handleFoodConsumption() {
+        StepResult result = StepResult.MOVED;
+
+        Food regular = foodManager.getRegularFood();
+        if (checkIfSnakeHeadIsOnFood(regular)) {
+            snake.eats(regular);
+            score += regular.getScoreValue();
+            foodManager.handleFoodConsumption(regular.getScoreValue());
+            result = StepResult.ATE_REGULAR_FOOD;
+        }
+
+        Food special = foodManager.getSpecialFood();
+        if (special != null) {
+            if (checkIfSnakeHeadIsOnFood(special)) {
+                snake.eats(special);
+                score += special.getScoreValue();
+                foodManager.handleFoodConsumption(special.getScoreValue());
+                foodManager.resetSpecialFood();
+                result = StepResult.ATE_SPECIAL_FOOD;
+            } else {
+                special.decreaseSpecialFoodTimeToLive();
+                if (special.getSpecialFoodTimeToLive() == 0) {
+                    foodManager.resetSpecialFood();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Überprüft, ob der Kopf der Schlange sich auf dem Essen befindet.
+     *
+     * @param food Das zu überprüfende Essenobjekt.
+     * @return true, wenn der Schlange auf dem Essen ist, sonst false.
+     */
+    private boolean checkIfSnakeHeadIsOnFood(Food food) {
+        if (food == null)
+            return false;
+        int cols = boardConfig.getCols();
+        int foodCell = food.getCell();
+        boolean isCollision = snake.getHeadCell() == foodCell;
+        if (isCollision) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Schlange hat das Essen an Position ({}, {}) gegessen.", foodCell % cols, foodCell / cols);
+            }
+        } else if (LOG.isDebugEnabled()) {
+            int headCell = snake.getHeadCell();
+            LOG.debug("Schlangen-Kopf: ({}, {}), Essen-Position: ({}, {})",
+                    headCell % cols, headCell / cols, foodCell % cols, foodCell / cols);
+        }
+        return isCollision;
+    }
+
+    /**
+     * Generates a random wall inside the gameboard.
+     *
+     * @return a Wall object or null if no wall is generated
+     */
+    private Wall generateRandomWall() {
+        int wallLength = random.nextInt(5);
+        if (wallLength == 0)
+            return null;
+
+        int randomX = getRandomWallPosition(wallLength, true);
+        int randomY = getRandomWallPosition(wallLength, false);
+        if (randomX < 0 || randomY < 0)
+            return null;
+
+        return new Wall(random.nextBoolean(), randomX, randomY, wallLength);
+    }
+
+    /**
+     * Generates a random position for a wall.
+     *
+     * @param wallLength   Length of the wall
+     * @param isHorizontal Determines if the wall is horizontal
+     * @return a valid random column or row, or -1 if the board is too small to fit the wall next to the snake
+     */
+    private int getRandomWallPosition(int wallLength, boolean isHorizontal) {
+        int boardSize = isHorizontal ? boardConfig.getCols() : boardConfig.getRows();
+        int range = boardSize - (wallLength + 2);
+        // Columns (or rows) which are too close to the snake.
+        BitSet exclusions = new BitSet(boardSize);
+
+        for (int i = 0; i < snake.getLength(); i++) {
+            int cell = snake.getCell(i);
+            int segmentPosition = isHorizontal ? cell % boardConfig.getCols() : cell / boardConfig.getCols();
+            exclusions.set(Math.max(0, segmentPosition - wallLength + 1), segmentPosition + wallLength);
+        }
+
+        exclusions.set(0, 3);
+        if (exclusions.nextClearBit(0) >= range)
+            return -1;
+
+        int position;
+        do {
+            position = random.nextInt(range);
+        } while (exclusions.get(position));
+
+        return position;
+    }
+}
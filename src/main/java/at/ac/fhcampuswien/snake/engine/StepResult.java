@@ -0,0 +1,8 @@
+package at.ac.fhcampuswien.snake.engine;
+
+/**
+ * Describes what happened during a single {@link GameEngine#step} call.
+ */
+public enum StepResult {
+    MOVED, ATE_REGULAR_FOOD, ATE_SPECIAL_FOOD, GAME_OVER
+}
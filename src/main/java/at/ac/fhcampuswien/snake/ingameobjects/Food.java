@@ -1,28 +1,32 @@
 package at.ac.fhcampuswien.snake.ingameobjects;
 
-import at.ac.fhcampuswien.snake.util.Constants;
-import at.ac.fhcampuswien.snake.util.StateManager;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
 
 import java.util.Objects;
 
 public class Food {
 
-    private final Position position;
+    /**
+     * Packed cell index (see {@link Position#toCell(int)}), -1 while the food is not placed.
+     */
+    private int cell = -1;
+
+    private final int cols;
 
     private String foodType;
 
-    private boolean isSpecialFood;
+    private final boolean isSpecialFood;
 
     public int getScoreValue() {
         return scoreValue;
     }
 
-    private int scoreValue;
-
-    private final static int REGULAR_SCORE_VALUE = 1;
-    private final static int SPECIAL_SCORE_VALUE = 3;
+    private final int scoreValue;
 
     private int specialFoodTimeToLive;
+    private final int minSpecialFoodTimeToLive;
+    private final int maxSpecialFoodTimeToLive;
 
     private final static String[] REGULAR_FOOD_TYPES = new String[]{"1.png", "2.png", "3.png",
             "4.png", "5.png", "6.png", "7.png", "8.png", "9.png", "10.png",
@@ -33,86 +37,75 @@ public class Food {
 
 
     /**
-     * This Constructor creates a new food Element.
-     * It checks for collisions with the SNAKE Object.
-     * By random there will also be a FoodType assigned.
+     * This Constructor creates a new food Element which is not yet placed on the board.
+     * The same element is reused for every food of its kind during a game, see {@link #place(int, GameRandom)},
+     * so spawning food does not allocate.
+     *
+     * @param isSpecialFood whether this is a special (bonus) food
+     * @param rules         rules of the game, determine the score value and the time to live
+     * @param cols          number of columns of the board
      */
-
-    public Food(Snake snake, Wall wall, Food currentlyExistingRegularFood,
-                boolean isSpecialFood, String previousFoodType) {
-        int scoreValueMultiplierBasedOnDifficulty;
-        switch (StateManager.difficulty) {
-            case EASY -> scoreValueMultiplierBasedOnDifficulty = 1;
-            case MEDIUM -> scoreValueMultiplierBasedOnDifficulty = 2;
-            case HARD -> scoreValueMultiplierBasedOnDifficulty = 3;
-            default -> throw new IllegalStateException("Unexpected value: " + StateManager.difficulty);
+    public Food(boolean isSpecialFood, GameRules rules, int cols) {
+        this.isSpecialFood = isSpecialFood;
+        this.cols = cols;
+        this.minSpecialFoodTimeToLive = rules.minSpecialFoodTimeToLive();
+        this.maxSpecialFoodTimeToLive = rules.maxSpecialFoodTimeToLive();
+        if (isSpecialFood) {
+            this.scoreValue = rules.specialScoreValue();
+        } else {
+            this.scoreValue = rules.regularScoreValue();
+            this.specialFoodTimeToLive = -1;
         }
+    }
+
+    /**
+     * Places the food at the given cell.
+     * The cell must not be occupied by the snake, a wall or another food element.
+     * By random there will also be a FoodType assigned, which differs from the previous one.
+     *
+     * @param cell   packed cell index
+     * @param random random number generator of the game
+     */
+    public void place(int cell, GameRandom random) {
+        String previousFoodType = foodType;
         if (isSpecialFood) {
-            this.isSpecialFood = true;
-            this.scoreValue = SPECIAL_SCORE_VALUE * scoreValueMultiplierBasedOnDifficulty;
-            // range: 18 - 36
-            this.specialFoodTimeToLive = (int) (18 + (Math.random() * 18));
+            this.specialFoodTimeToLive = minSpecialFoodTimeToLive
+                    + random.nextInt(maxSpecialFoodTimeToLive - minSpecialFoodTimeToLive + 1);
             do {
-                int foodTypeNumber = (int) (Math.random() * SPECIAL_FOOD_TYPES.length);
+                int foodTypeNumber = random.nextInt(SPECIAL_FOOD_TYPES.length);
                 this.foodType = SPECIAL_FOOD_TYPES[foodTypeNumber];
             } while (Objects.equals(foodType, previousFoodType));
         } else {
-            this.scoreValue = REGULAR_SCORE_VALUE * scoreValueMultiplierBasedOnDifficulty;
-            this.specialFoodTimeToLive = -1;
             do {
-                int foodTypeNumber = (int) (Math.random() * REGULAR_FOOD_TYPES.length);
+                int foodTypeNumber = random.nextInt(REGULAR_FOOD_TYPES.length);
                 foodType = REGULAR_FOOD_TYPES[foodTypeNumber];
             } while (Objects.equals(foodType, previousFoodType));
         }
-        boolean isTargetFieldFree;
-        int foodXCoord;
-        int foodYCoord;
-        // We reduce "2" from segmentNumberX, because there are two Colums being used for the outer walls.
-        int segmentNumberX = Constants.NUMBER_OF_ROWS_AND_COLS - 2;
-        // We reduce "3" from segmentNumberY, because there are two rows being used for the outer walls.
-        // Additionally there is 1 row used for the status bar at the top.
-        int segmentNumberY = Constants.NUMBER_OF_ROWS_AND_COLS - 3;
-        do {
-            isTargetFieldFree = true;
-            foodXCoord = (int) (Math.random() * segmentNumberX) + 1;
-            foodYCoord = (int) (Math.random() * segmentNumberY) + 1;
-
-            // Since the Location of the Elements of the Snake is in PX, we need to multiply
-            // the row and column number by the Object Size in PX.
-            foodXCoord *= Constants.OBJECT_SIZE_MEDIUM;
-            foodYCoord *= Constants.OBJECT_SIZE_MEDIUM;
-
-            // Check if calculated Position is inhibited by the snake
-            int i = 0;
-            do {
-                if (snake.getSegments().get(i).getX() == foodXCoord &&
-                        snake.getSegments().get(i).getY() == foodYCoord) isTargetFieldFree = false;
-                i++;
-            } while (isTargetFieldFree && i < snake.getSegments().size());
-
-            // Check if calculated Position is inhibited by the wall
-            if (wall != null && isTargetFieldFree) {
-                int j = 0;
-                do {
-                    if (wall.getSegments().get(j).getX() == foodXCoord &&
-                            wall.getSegments().get(j).getY() == foodYCoord) isTargetFieldFree = false;
-                    j++;
-                } while (isTargetFieldFree && j < wall.getSegments().size());
-            }
-
-            // Check if currently existing regular Food is on desired Position
-            if (isSpecialFood && currentlyExistingRegularFood != null && isTargetFieldFree) {
-                if (currentlyExistingRegularFood.position.getX() == foodXCoord &&
-                        currentlyExistingRegularFood.position.getY() == foodYCoord) isTargetFieldFree = false;
-            }
-
-
-        } while (!isTargetFieldFree);
-        position = new Position(foodXCoord, foodYCoord);
+        this.cell = cell;
     }
 
+    /**
+     * Takes over the cell, type and time to live of another food element of the same kind.
+     *
+     * @param other the food to copy
+     */
+    public void copyFrom(Food other) {
+        if (other.isSpecialFood != isSpecialFood)
+            throw new IllegalArgumentException("Cannot copy special and regular food onto each other");
+        this.cell = other.cell;
+        this.foodType = other.foodType;
+        this.specialFoodTimeToLive = other.specialFoodTimeToLive;
+    }
+
+    public int getCell() {
+        return cell;
+    }
+
+    /**
+     * @return the cell of the food as a new {@link Position}
+     */
     public Position getLocation() {
-        return position;
+        return Position.fromCell(cell, cols);
     }
 
     public String getFoodType() {
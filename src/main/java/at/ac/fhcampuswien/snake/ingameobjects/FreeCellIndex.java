@@ -0,0 +1,195 @@
+package at.ac.fhcampuswien.snake.ingameobjects;
+
+import at.ac.fhcampuswien.snake.util.GameRandom;
+
+import java.util.Arrays;
+
+/**
+ * Set of free cells that supports uniform random picks, insertion and removal in constant time.
+ * <p>
+ * The free cells are kept densely packed at the start of {@code cells}; {@code positions} maps each cell
+ * to its slot in {@code cells}, so a removal can swap the last free cell into the gap.
+ * <p>
+ * The index can record its changes, so they can be undone later in reverse order, which restores the order of
+ * the free cells exactly as well. This is cheaper than copying the index when only a few cells change between
+ * the states a game may return to.
+ */
+public class FreeCellIndex {
+
+    private static final int NOT_FREE = -1;
+
+    private final int[] cells;
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Recorded changes, oldest first, null while not recording. An addition is stored as the cell, a removal as
+     * the slot the cell had followed by the complement of the cell, so both can be told apart from the end.
+     */
+    private int[] changes;
+    private int changeCount;
+    /**
+     * Number of entries removed from the start of {@link #changes} by {@link #forgetChanges(long)}.
+     */
+    private long forgottenChanges;
+
+    /**
+     * Creates an empty index for a board with the given number of cells.
+     *
+     * @param cellCount number of cells of the board
+     */
+    public FreeCellIndex(int cellCount) {
+        this.cells = new int[cellCount];
+        this.positions = new int[cellCount];
+        Arrays.fill(positions, NOT_FREE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param position slot of the free cell, from 0 to {@link #size()} - 1
+     * @return the free cell in the slot. The order of the slots decides the picks of {@link #randomCell}.
+     */
+    public int get(int position) {
+        return cells[position];
+    }
+
+    public boolean contains(int cell) {
+        return positions[cell] != NOT_FREE;
+    }
+
+    /**
+     * Marks a cell as free. Does nothing if it is already free.
+     *
+     * @param cell the cell index
+     */
+    public void add(int cell) {
+        if (positions[cell] != NOT_FREE)
+            return;
+        cells[size] = cell;
+        positions[cell] = size;
+        size++;
+        if (changes != null) {
+            record(cell);
+        }
+    }
+
+    /**
+     * Marks a cell as not free. Does nothing if it is not free.
+     *
+     * @param cell the cell index
+     */
+    public void remove(int cell) {
+        int position = positions[cell];
+        if (position == NOT_FREE)
+            return;
+        size--;
+        int lastCell = cells[size];
+        cells[position] = lastCell;
+        positions[lastCell] = position;
+        positions[cell] = NOT_FREE;
+        if (changes != null) {
+            record(position);
+            record(~cell);
+        }
+    }
+
+    /**
+     * Makes this index equal to another one of the same board, including the order of the free cells,
+     * so random picks continue exactly as they would on the other index.
+     *
+     * @param other the index to copy
+     */
+    public void copyFrom(FreeCellIndex other) {
+        if (other.cells.length != cells.length)
+            throw new IllegalArgumentException("Cell count differs: " + other.cells.length + " != " + cells.length);
+        System.arraycopy(other.cells, 0, cells, 0, other.size);
+        System.arraycopy(other.positions, 0, positions, 0, positions.length);
+        size = other.size;
+        // The recorded changes lead to the old state, not to the copied one.
+        forgottenChanges += changeCount;
+        changeCount = 0;
+    }
+
+    /**
+     * Starts recording all changes, see {@link #undoLastChange()}. Does nothing if already recording.
+     */
+    public void startRecording() {
+        if (changes == null) {
+            changes = new int[256];
+        }
+    }
+
+    /**
+     * @return position in the recorded changes, to return to with {@link #undoLastChange()} or to pass to
+     * {@link #forgetChanges(long)}. Grows with every change, also past forgotten changes.
+     */
+    public long getChangeCount() {
+        return forgottenChanges + changeCount;
+    }
+
+    /**
+     * Undoes the last recorded change which is not yet undone or forgotten.
+     *
+     * @return the cell which was added or removed by the change
+     * @throws IllegalStateException if there is no such change
+     */
+    public int undoLastChange() {
+        if (changeCount == 0)
+            throw new IllegalStateException("No recorded change to undo");
+        int entry = changes[--changeCount];
+        if (entry >= 0) {
+            // The added cell is the last free cell.
+            size--;
+            positions[entry] = NOT_FREE;
+            return entry;
+        }
+        int cell = ~entry;
+        int position = changes[--changeCount];
+        if (position < size) {
+            // The cell which was swapped into the slot of the removed one goes back to the end.
+            int swappedCell = cells[position];
+            cells[size] = swappedCell;
+            positions[swappedCell] = size;
+        }
+        cells[position] = cell;
+        positions[cell] = position;
+        size++;
+        return cell;
+    }
+
+    /**
+     * Drops the recorded changes before a position, they cannot be undone anymore.
+     *
+     * @param changeCount a position returned by {@link #getChangeCount()}
+     */
+    public void forgetChanges(long changeCount) {
+        int forgotten = (int) (changeCount - forgottenChanges);
+        if (forgotten < 0 || forgotten > this.changeCount)
+            throw new IllegalArgumentException("No recorded change at " + changeCount);
+        System.arraycopy(changes, forgotten, changes, 0, this.changeCount - forgotten);
+        this.changeCount -= forgotten;
+        forgottenChanges = changeCount;
+    }
+
+    private void record(int entry) {
+        if (changeCount == changes.length) {
+            changes = Arrays.copyOf(changes, changes.length * 2);
+        }
+        changes[changeCount++] = entry;
+    }
+
+    /**
+     * Picks a free cell uniformly at random.
+     *
+     * @param random the random number generator to use
+     * @return a free cell index, or -1 if no cell is free
+     */
+    public int randomCell(GameRandom random) {
+        if (size == 0)
+            return -1;
+        return cells[random.nextInt(size)];
+    }
+}
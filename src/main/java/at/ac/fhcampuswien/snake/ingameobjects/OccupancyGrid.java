@@ -0,0 +1,123 @@
+package at.ac.fhcampuswien.snake.ingameobjects;
+
+/**
+ * Bitmap of all blocked cells of the board, indexed by packed cell index (see {@link Position#toCell(int)}).
+ * <p>
+ * The perimeter walls are blocked from the start. Inner walls and the snake body are added and removed
+ * incrementally while the game runs, so any collision check is a single lookup regardless of the snake length.
+ * The grid keeps a {@link FreeCellIndex} of all unblocked cells in sync, which is used to place food.
+ * Changes can be recorded and undone, see {@link #startRecording()}.
+ */
+public class OccupancyGrid {
+
+    private final int cols;
+    private final int rows;
+    private final long[] bits;
+    private final FreeCellIndex freeCells;
+
+    /**
+     * Creates a grid with the perimeter cells already blocked.
+     *
+     * @param cols number of columns of the board
+     * @param rows number of rows of the board
+     */
+    public OccupancyGrid(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.bits = new long[(cols * rows + 63) >>> 6];
+        this.freeCells = new FreeCellIndex(cols * rows);
+        for (int cell = 0; cell < cols * rows; cell++) {
+            freeCells.add(cell);
+        }
+
+        for (int x = 0; x < cols; x++) {
+            occupy(x); // Upper
+            occupy((rows - 1) * cols + x); // Bottom
+        }
+        for (int y = 1; y < rows - 1; y++) {
+            occupy(y * cols); // Left
+            occupy(y * cols + cols - 1); // Right
+        }
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public FreeCellIndex getFreeCells() {
+        return freeCells;
+    }
+
+    /**
+     * Makes this grid equal to another grid of the same size.
+     *
+     * @param other the grid to copy
+     */
+    public void copyFrom(OccupancyGrid other) {
+        if (other.cols != cols || other.rows != rows)
+            throw new IllegalArgumentException("Grid size differs: " + other.cols + "x" + other.rows
+                    + " != " + cols + "x" + rows);
+        System.arraycopy(other.bits, 0, bits, 0, bits.length);
+        freeCells.copyFrom(other.freeCells);
+    }
+
+    /**
+     * Starts recording the changes of the grid, so a game can return to an earlier state with
+     * {@link #undoChanges(long)} without keeping a copy of the grid.
+     */
+    public void startRecording() {
+        freeCells.startRecording();
+    }
+
+    /**
+     * @return position in the recorded changes, see {@link #undoChanges(long)} and {@link #forgetChanges(long)}
+     */
+    public long getChangeCount() {
+        return freeCells.getChangeCount();
+    }
+
+    /**
+     * Undoes the recorded changes after a position.
+     *
+     * @param changeCount a position returned by {@link #getChangeCount()} which has not been forgotten
+     */
+    public void undoChanges(long changeCount) {
+        if (changeCount > freeCells.getChangeCount())
+            throw new IllegalArgumentException("No recorded change at " + changeCount);
+        while (freeCells.getChangeCount() > changeCount) {
+            // A cell is blocked if and only if it is not free, except while the food manager excludes the cells of
+            // other foods for a moment.
+            int cell = freeCells.undoLastChange();
+            if (freeCells.contains(cell)) {
+                bits[cell >>> 6] &= ~(1L << cell);
+            } else {
+                bits[cell >>> 6] |= 1L << cell;
+            }
+        }
+    }
+
+    /**
+     * Drops the recorded changes before a position, see {@link FreeCellIndex#forgetChanges(long)}.
+     */
+    public void forgetChanges(long changeCount) {
+        freeCells.forgetChanges(changeCount);
+    }
+
+    public boolean isOccupied(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public void occupy(int cell) {
+        bits[cell >>> 6] |= 1L << cell;
+        freeCells.remove(cell);
+    }
+
+    public void release(int cell) {
+        bits[cell >>> 6] &= ~(1L << cell);
+        freeCells.add(cell);
+    }
+}
@@ -1,15 +1,16 @@
 package at.ac.fhcampuswien.snake.ingameobjects;
 
-import at.ac.fhcampuswien.snake.util.Constants;
-
+/**
+ * A cell of the game board, given by its column (x) and row (y).
+ */
 public class Position {
     private int x;
     private int y;
 
     // Konstruktor
     public Position(int x, int y) {
-        this.x = alignToGrid(x);
-        this.y = alignToGrid(y);
+        this.x = x;
+        this.y = y;
     }
 
     // Getter
@@ -21,9 +22,14 @@ public class Position {
         return y;
     }
 
-    // Hilfsmethode zur Rasterausrichtung
-    private int alignToGrid(int coordinate) {
-        return (coordinate / Constants.OBJECT_SIZE_MEDIUM) * Constants.OBJECT_SIZE_MEDIUM;
+    // Index der Zelle, zeilenweise gezählt
+    public int toCell(int cols) {
+        return y * cols + x;
+    }
+
+    // Erzeugt die Position einer Zelle
+    public static Position fromCell(int cell, int cols) {
+        return new Position(cell % cols, cell / cols);
     }
 
     // Überschreibe die equals Methode
@@ -40,4 +46,4 @@ public class Position {
     public int hashCode() {
         return 31 * x + y;
     }
-}
\ No newline at end of file
+}
@@ -1,55 +1,93 @@
 package at.ac.fhcampuswien.snake.ingameobjects;
 
-import at.ac.fhcampuswien.snake.util.SoundFX;
-
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
-import static at.ac.fhcampuswien.snake.util.Constants.*;
+import static at.ac.fhcampuswien.snake.util.Constants.Direction;
 
 
 public class Snake {
 
+    /**
+     * Most moves which can be undone with {@link #reset(Mark)}. The buffer of the body always has room for this
+     * many segments more than the snake is long, so the segments of a mark are not overwritten by later moves.
+     */
+    public static final int MAX_UNDONE_MOVES = 16;
+
     private int length;
-    private boolean positionUpdated;
     private boolean isAlive;
+    private boolean headCollided;
     private Direction direction;
-    private final List<Position> segments = new ArrayList<>();
+    private final OccupancyGrid grid;
+    private final int cols;
+
+    /**
+     * The body of the snake as packed cell indices (see {@link Position#toCell(int)}), stored in a circular buffer
+     * whose size is a power of two. Every head pushed gets the next sequence number, the head is at
+     * {@code headSequence} and the following segments have the preceding numbers; a segment is stored at its
+     * number modulo the size of the buffer. Moving pushes a new head and pops the tail in O(1). The buffer grows
+     * when the snake does, so it only allocates a few times per game.
+     */
+    private int[] cells;
+    private int headSequence;
+
+    /**
+     * Number of moves during which the tail stays in place because the snake has eaten.
+     */
+    private int pendingGrowth;
+
+    private final List<Position> segments = new SegmentView();
 
-    public Snake(int initialSize, Direction initialDirection) {
+    public Snake(OccupancyGrid grid, int initialSize, Direction initialDirection) {
+        this(grid, initialSize, initialDirection, (grid.getRows() / 2) * grid.getCols() + grid.getCols() / 2);
+    }
+
+    /**
+     * Creates a snake whose head is at the given cell and whose body lies behind it, opposite to its direction,
+     * e.g. for one of several snakes on a board.
+     *
+     * @param grid             occupancy of the board, the cells of the snake are blocked in it
+     * @param initialSize      number of segments
+     * @param initialDirection the direction the snake moves in
+     * @param initialCell      packed cell index of the head
+     */
+    public Snake(OccupancyGrid grid, int initialSize, Direction initialDirection, int initialCell) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.cells = new int[getCapacity(initialSize)];
         int initialLength = 0;
-        Position initialPosition = new Position(GAME_BOARD_SIZE_MEDIUM / 2, GAME_BOARD_SIZE_MEDIUM / 2);
 
+        // The segments are written from the tail to the head, so the head ends up at the last written index.
         switch (initialDirection) {
             case UP -> {
                 direction = Direction.UP;
-                for (int i = 0; i < initialSize; i++) {
-                    segments.add(new Position(initialPosition.getX(), (initialPosition.getY()) - i * OBJECT_SIZE_MEDIUM));
-                    initialLength++;
+                for (int i = initialSize - 1; i >= 0; i--) {
+                    cells[initialLength++] = initialCell + i * cols;
                 }
             }
             case DOWN -> {
                 direction = Direction.DOWN;
-                for (int i = 0; i < initialSize; i++) {
-                    segments.add(new Position(initialPosition.getX(), initialPosition.getY() + i * OBJECT_SIZE_MEDIUM));
-                    initialLength++;
+                for (int i = initialSize - 1; i >= 0; i--) {
+                    cells[initialLength++] = initialCell - i * cols;
                 }
             }
             case LEFT -> {
                 direction = Direction.LEFT;
-                for (int i = 0; i < initialSize; i++) {
-                    segments.add(new Position(initialPosition.getX() + i * OBJECT_SIZE_MEDIUM, initialPosition.getY()));
-                    initialLength++;
+                for (int i = initialSize - 1; i >= 0; i--) {
+                    cells[initialLength++] = initialCell + i;
                 }
             }
             case RIGHT -> {
                 direction = Direction.RIGHT;
-                for (int i = 0; i < initialSize; i++) {
-                    segments.add(new Position(initialPosition.getX() - i * OBJECT_SIZE_MEDIUM, initialPosition.getY()));
-                    initialLength++;
+                for (int i = initialSize - 1; i >= 0; i--) {
+                    cells[initialLength++] = initialCell - i;
                 }
             }
         }
+        for (int i = 0; i < initialLength; i++) {
+            grid.occupy(cells[i]);
+        }
+        this.headSequence = initialLength - 1;
         this.length = initialLength;
         this.isAlive = true;
     }
@@ -58,38 +96,46 @@ public class Snake {
         return direction;
     }
 
+    /**
+     * Returns a read-only view of the segments, starting with the head.
+     * The view reflects later moves of the snake; every access creates a new {@link Position}.
+     *
+     * @return the segments of the snake
+     */
     public List<Position> getSegments() {
         return segments;
     }
 
+    public int getLength() {
+        return length;
+    }
+
     /**
-     * This method checks if the snakes goes out of the game area or if the head collides with the body segment.
+     * Returns the packed cell index of a segment.
+     *
+     * @param index index of the segment, 0 being the head
+     * @return the cell index of the segment
      */
-    public void checkForCollisions(Wall wall) {
-        Position head = this.segments.get(0);
+    public int getCell(int index) {
+        return cells[(headSequence - index) & (cells.length - 1)];
+    }
 
-        // Checks if snake goes out of the game border.
-        if (head.getX() < OBJECT_SIZE_MEDIUM || head.getX() >= GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM ||
-                head.getY() < OBJECT_SIZE_MEDIUM || head.getY() >= GAME_BOARD_SIZE_MEDIUM - OBJECT_SIZE_MEDIUM) {
-            this.isAlive = false;
-        }
+    public int getHeadCell() {
+        return cells[headSequence & (cells.length - 1)];
+    }
 
-        // Checks if snake collides with itself.
-        for (int i = 1; i < this.length; i++) {
-            if (head.getX() == segments.get(i).getX() && head.getY() == segments.get(i).getY()) {
-                this.isAlive = false;
-                break;
-            }
-        }
+    public int getTailCell() {
+        return getCell(length - 1);
+    }
 
-        // If there is an inner wall, checks if snake collides with the inner walls
-        if (wall != null) {
-            for (Position wallSegment : wall.getSegments()) {
-                if (head.getX() == wallSegment.getX() && head.getY() == wallSegment.getY()) {
-                    this.isAlive = false;
-                    break;
-                }
-            }
+    /**
+     * This method checks if the snakes goes out of the game area or if the head collides with the body segment
+     * or a wall. The outer border, the walls and the body are all blocked cells of the {@link OccupancyGrid},
+     * so the check was already done by a single lookup when the head moved.
+     */
+    public void checkForCollisions() {
+        if (headCollided) {
+            this.isAlive = false;
         }
     }
 
@@ -98,47 +144,204 @@ public class Snake {
     }
 
     public void eats(Food food) {
-        if (food.isSpecialFood()) SoundFX.playBonusPointSound();
-        else SoundFX.playEatingSound();
-        length++;
-        segments.add(new Position(-1, -1));
+        // The tail stays in place during the next move, which makes the snake one segment longer.
+        pendingGrowth++;
     }
 
     /**
      * This method updates the position of the snake
      * based on the current {@link Direction}
      * To sum up, it will:
-     * - get current head {@link Position}
-     * - calculate new position of head based on current direction
-     * - replace current head with new head
-     * - remove last segment of the snake
+     * - get current head cell
+     * - calculate new cell of head based on current direction
+     * - drop the last segment of the snake, unless the snake is growing
+     * - check if the new head cell is blocked
+     * - push the new head onto the circular buffer
      */
     public void updateSnakePosition() {
+        moveTail();
+        moveHead();
+    }
 
-        Position currentHead = segments.get(0);
-        Position newHead = null;
-
-        switch (this.direction) {
-            case UP -> newHead = new Position(currentHead.getX(), currentHead.getY() - OBJECT_SIZE_MEDIUM);
-            case DOWN -> newHead = new Position(currentHead.getX(), currentHead.getY() + OBJECT_SIZE_MEDIUM);
-            case LEFT -> newHead = new Position(currentHead.getX() - OBJECT_SIZE_MEDIUM, currentHead.getY());
-            case RIGHT -> newHead = new Position(currentHead.getX() + OBJECT_SIZE_MEDIUM, currentHead.getY());
+    /**
+     * First half of {@link #updateSnakePosition()}: drops the last segment, unless the snake is growing.
+     * With several snakes on a board all tails move before the first head, so a snake may follow directly
+     * behind the tail of another one.
+     */
+    public void moveTail() {
+        if (pendingGrowth > 0) {
+            pendingGrowth--;
+            length++;
+            if (cells.length < length + MAX_UNDONE_MOVES) {
+                grow(getCapacity(length));
+            }
+        } else {
+            // The tail moves away before the head arrives, so the head may follow directly behind it.
+            grid.release(getTailCell());
         }
+    }
 
-        segments.add(0, newHead);
-        segments.remove(segments.size() - 1);
-        this.positionUpdated = true;
+    /**
+     * Second half of {@link #updateSnakePosition()}: pushes the new head and notes if its cell was blocked.
+     */
+    public void moveHead() {
+        int currentHead = getHeadCell();
+        int newHead = switch (this.direction) {
+            case UP -> currentHead - cols;
+            case DOWN -> currentHead + cols;
+            case LEFT -> currentHead - 1;
+            case RIGHT -> currentHead + 1;
+        };
+
+        headCollided = grid.isOccupied(newHead);
+        // moveTail has already counted the new head in length
+        headSequence++;
+        cells[headSequence & (cells.length - 1)] = newHead;
+        grid.occupy(newHead);
+    }
+
+    /**
+     * Kills the snake although its head cell was free, e.g. because another head moved into the same cell.
+     */
+    public void kill() {
+        this.isAlive = false;
+    }
+
+    /**
+     * Frees the cells of a dead snake in the {@link OccupancyGrid}, so other snakes can move through them.
+     * If the head moved into a blocked cell, that cell belongs to a wall or another snake and stays blocked.
+     */
+    public void removeFromBoard() {
+        for (int i = 1; i < length; i++) {
+            grid.release(getCell(i));
+        }
+        if (!headCollided) {
+            grid.release(getHeadCell());
+        }
     }
 
     public boolean isAlive() {
         return isAlive;
     }
 
-    public boolean isPositionUpdated() {
-        return positionUpdated;
+    /**
+     * @return true if the tail stays in place during the next move because the snake has eaten
+     */
+    public boolean isGrowing() {
+        return pendingGrowth > 0;
+    }
+
+    /**
+     * Makes this snake equal to a snake on a board of the same size.
+     * Only the snake itself is copied, its cells in the {@link OccupancyGrid} have to be copied separately.
+     * Moves made before the copy cannot be undone afterwards.
+     *
+     * @param other the snake to copy
+     */
+    public void copyFrom(Snake other) {
+        if (other.cols != cols || other.grid.getRows() != grid.getRows())
+            throw new IllegalArgumentException("Board size differs");
+        if (cells.length < other.length + MAX_UNDONE_MOVES) {
+            cells = new int[getCapacity(other.length)];
+        }
+        // Only the segments are needed, the rest of the circular buffer is overwritten before it is read.
+        for (int i = 0; i < other.length; i++) {
+            int sequence = other.headSequence - i;
+            cells[sequence & (cells.length - 1)] = other.cells[sequence & (other.cells.length - 1)];
+        }
+        headSequence = other.headSequence;
+        length = other.length;
+        isAlive = other.isAlive;
+        headCollided = other.headCollided;
+        direction = other.direction;
+        pendingGrowth = other.pendingGrowth;
     }
 
-    public void setPositionUpdated(boolean positionUpdated) {
-        this.positionUpdated = positionUpdated;
+    /**
+     * State of a snake saved with {@link #mark(Mark)}, e.g. once per tick of a game which may be rolled back.
+     */
+    public static final class Mark {
+        private int headSequence;
+        private int length;
+        private int pendingGrowth;
+        private Direction direction;
+        private boolean isAlive;
+        private boolean headCollided;
+
+        /**
+         * Creates an empty mark, to be filled by {@link #mark(Mark)}.
+         */
+        public Mark() {
+        }
+    }
+
+    /**
+     * Saves the state of the snake. Its segments are not copied, they stay in the buffer for
+     * {@link #MAX_UNDONE_MOVES} more moves.
+     *
+     * @param mark receives the state
+     */
+    public void mark(Mark mark) {
+        mark.headSequence = headSequence;
+        mark.length = length;
+        mark.pendingGrowth = pendingGrowth;
+        mark.direction = direction;
+        mark.isAlive = isAlive;
+        mark.headCollided = headCollided;
+    }
+
+    /**
+     * Undoes the moves since a {@link #mark(Mark)} of this snake, at most {@link #MAX_UNDONE_MOVES}.
+     * Like {@link #copyFrom}, the cells of the snake in the {@link OccupancyGrid} have to be restored separately.
+     *
+     * @param mark the state to return to
+     */
+    public void reset(Mark mark) {
+        if (headSequence - mark.headSequence > MAX_UNDONE_MOVES || headSequence < mark.headSequence)
+            throw new IllegalArgumentException("Cannot undo " + (headSequence - mark.headSequence) + " moves");
+        headSequence = mark.headSequence;
+        length = mark.length;
+        pendingGrowth = mark.pendingGrowth;
+        direction = mark.direction;
+        isAlive = mark.isAlive;
+        headCollided = mark.headCollided;
+    }
+
+    /**
+     * @return size of a buffer for a snake of the given length, with room for {@link #MAX_UNDONE_MOVES} more
+     * segments
+     */
+    private static int getCapacity(int length) {
+        return Integer.highestOneBit(length + MAX_UNDONE_MOVES - 1) << 1;
+    }
+
+    /**
+     * Moves the buffer into a larger one. All entries keep their sequence numbers, including the ones of segments
+     * popped recently, which a {@link #reset(Mark)} may bring back.
+     */
+    private void grow(int capacity) {
+        int[] grown = new int[capacity];
+        for (int i = 0; i < cells.length; i++) {
+            int sequence = headSequence - i;
+            grown[sequence & (capacity - 1)] = cells[sequence & (cells.length - 1)];
+        }
+        cells = grown;
+    }
+
+    /**
+     * Read-only list view on the circular buffer.
+     */
+    private class SegmentView extends AbstractList<Position> {
+        @Override
+        public Position get(int index) {
+            if (index < 0 || index >= length)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
+            return Position.fromCell(getCell(index), cols);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
     }
 }
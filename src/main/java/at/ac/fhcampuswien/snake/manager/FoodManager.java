@@ -1,97 +1,311 @@
-package at.ac.fhcampuswien.snake.manager;
-
-import at.ac.fhcampuswien.snake.ingameobjects.Food;
-import at.ac.fhcampuswien.snake.ingameobjects.Snake;
-import at.ac.fhcampuswien.snake.ingameobjects.Wall;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import java.util.Random;
-
-/**
- * Manages the creation and handling of food items in the game.
- */
-public class FoodManager {
-
-    private final static Logger LOG = LoggerFactory.getLogger(FoodManager.class);
-    private final Snake snake;
-    private final Wall innerWall;
-
-    private Food regularFood;
-    private Food specialFood;
-    private String previousRegularFoodType;
-    private String previousSpecialFoodType;
-    private int foodsEatenSinceLastSpecialFood;
-    private int foodsToEatUntilNextSpecialFood;
-
-    private static final int MAX_HIGHSCORES = 5;
-
-    public FoodManager(Snake snake, Wall innerWall) {
-        this.snake = snake;
-        this.innerWall = innerWall;
-        this.foodsEatenSinceLastSpecialFood = 0;
-        this.foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
-        generateRegularFood();
-    }
-
-    /**
-     * Generates a random number of foods to eat until the next special food appears.
-     *
-     * @return random integer between 5 and 10.
-     */
-    private int getRandomFoodsToEat() {
-        return 5 + new Random().nextInt(6); // 5 to 10
-    }
-
-    /**
-     * Generates a regular food item.
-     */
-    public void generateRegularFood() {
-        this.regularFood = new Food(snake, innerWall, null, false, previousRegularFoodType);
-        this.previousRegularFoodType = regularFood.getFoodType();
-    }
-
-    /**
-     * Generates a special food item.
-     */
-    public void generateSpecialFood() {
-        this.specialFood = new Food(snake, innerWall, regularFood, true, previousSpecialFoodType);
-        this.previousSpecialFoodType = specialFood.getFoodType();
-    }
-
-    public Food getRegularFood() {
-        return regularFood;
-    }
-
-    public Food getSpecialFood() {
-        return specialFood;
-    }
-
-    /**
-     * Handles the consumption of regular food.
-     *
-     * @param scoreValue The score value of the consumed food.
-     */
-    public void handleFoodConsumption(int scoreValue) {
-        foodsEatenSinceLastSpecialFood++;
-        foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
-        this.regularFood = null;
-    }
-
-    /**
-     * Resets the conditions for special food.
-     */
-    public void resetSpecialFood() {
-        this.specialFood = null;
-        foodsEatenSinceLastSpecialFood = 0;
-        foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
-    }
-
-    /**
-     * Determines if it's time to generate a special food.
-     *
-     * @return true if conditions are met, false otherwise.
-     */
-    public boolean shouldGenerateSpecialFood() {
-        return foodsEatenSinceLastSpecialFood >= foodsToEatUntilNextSpecialFood && specialFood == null;
-    }
+package at.ac.fhcampuswien.snake.manager;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.FreeCellIndex;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Manages the creation and handling of food items in the game.
+ */
+public class FoodManager {
+
+    private final static Logger LOG = LoggerFactory.getLogger(FoodManager.class);
+    private final GameRules rules;
+    private final GameRandom random;
+    private final int cols;
+
+    /**
+     * All cells which are neither occupied by the snake nor by a wall, kept up to date by the {@link OccupancyGrid}.
+     * Picking a random free cell takes the same time regardless of how full the board is.
+     */
+    private final FreeCellIndex freeCells;
+
+    /**
+     * The food elements of the game, reused for every spawn, one regular food per slot and one special food.
+     * {@link #regularFoods} and {@link #specialFood} point to them while they are on the board and are null
+     * otherwise.
+     */
+    private final Food[] regularFoodSlots;
+    private final Food specialFoodSlot;
+
+    private final Food[] regularFoods;
+    private Food specialFood;
+    /**
+     * Cells of the foods taken out of {@link #freeCells} while picking a cell for another food.
+     */
+    private final int[] excludedCells;
+    private int foodsEatenSinceLastSpecialFood;
+    private int foodsToEatUntilNextSpecialFood;
+    private int specialFoodsGenerated;
+
+    private static final int MAX_HIGHSCORES = 5;
+
+    /**
+     * Creates the food manager and places the first regular food.
+     *
+     * @param grid       occupancy of the board
+     * @param rules      rules of the game
+     * @param random     random number generator of the game
+     */
+    public FoodManager(OccupancyGrid grid, GameRules rules, GameRandom random) {
+        this(grid, rules, random, 1);
+    }
+
+    /**
+     * Creates the food manager and places the first regular foods, e.g. for a board shared by several snakes.
+     *
+     * @param grid             occupancy of the board
+     * @param rules            rules of the game
+     * @param random           random number generator of the game
+     * @param regularFoodCount number of regular foods on the board at the same time
+     */
+    public FoodManager(OccupancyGrid grid, GameRules rules, GameRandom random, int regularFoodCount) {
+        if (regularFoodCount < 1)
+            throw new IllegalArgumentException("At least one regular food is needed: " + regularFoodCount);
+        this.random = random;
+        this.freeCells = grid.getFreeCells();
+        this.rules = rules;
+        this.cols = grid.getCols();
+        this.regularFoodSlots = new Food[regularFoodCount];
+        for (int i = 0; i < regularFoodCount; i++) {
+            regularFoodSlots[i] = new Food(false, rules, grid.getCols());
+        }
+        this.regularFoods = new Food[regularFoodCount];
+        this.excludedCells = new int[regularFoodCount + 1];
+        this.specialFoodSlot = new Food(true, rules, grid.getCols());
+        this.foodsEatenSinceLastSpecialFood = 0;
+        this.foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
+        for (int i = 0; i < regularFoodCount; i++) {
+            generateRegularFood(i);
+        }
+    }
+
+    /**
+     * Generates a random number of foods to eat until the next special food appears.
+     *
+     * @return random integer between the minimum and maximum of the rules, by default 5 and 10.
+     */
+    private int getRandomFoodsToEat() {
+        return rules.minFoodsUntilSpecialFood()
+                + random.nextInt(rules.maxFoodsUntilSpecialFood() - rules.minFoodsUntilSpecialFood() + 1);
+    }
+
+    /**
+     * Generates a regular food item. No food is generated if there is no free cell left.
+     */
+    public void generateRegularFood() {
+        generateRegularFood(0);
+    }
+
+    /**
+     * Generates the regular food item of a slot. No food is generated if there is no free cell left.
+     *
+     * @param index the slot, from 0 to {@link #getRegularFoodCount()} - 1
+     */
+    public void generateRegularFood(int index) {
+        int cell = getRandomFreeCell(regularFoodSlots[index]);
+        if (cell < 0)
+            return;
+        regularFoodSlots[index].place(cell, random);
+        this.regularFoods[index] = regularFoodSlots[index];
+    }
+
+    /**
+     * Generates a special food item. No food is generated if there is no free cell left.
+     */
+    public void generateSpecialFood() {
+        int cell = getRandomFreeCell(specialFoodSlot);
+        if (cell < 0)
+            return;
+        specialFoodSlot.place(cell, random);
+        this.specialFood = specialFoodSlot;
+        specialFoodsGenerated++;
+    }
+
+    /**
+     * Picks a random free cell which is not covered by one of the other food items.
+     *
+     * @param slot the food element to place, its own cell is not excluded
+     * @return the cell index or -1 if there is no such cell
+     */
+    private int getRandomFreeCell(Food slot) {
+        // Take the other foods' cells out of the index for this pick only.
+        int excludedCount = 0;
+        for (int i = 0; i <= regularFoods.length; i++) {
+            Food other = i < regularFoods.length ? regularFoods[i] : specialFood;
+            if (other != null && other != slot && freeCells.contains(other.getCell())) {
+                freeCells.remove(other.getCell());
+                excludedCells[excludedCount++] = other.getCell();
+            }
+        }
+        int cell = freeCells.randomCell(random);
+        // Put them back in reverse order, so the order of the index only depends on the game so far.
+        while (excludedCount > 0) {
+            freeCells.add(excludedCells[--excludedCount]);
+        }
+        return cell;
+    }
+
+    /**
+     * Makes this food manager equal to the one of another game with the same board and rules.
+     * The random number generator is not copied.
+     *
+     * @param other the food manager to copy
+     */
+    public void copyFrom(FoodManager other) {
+        if (other.regularFoodSlots.length != regularFoodSlots.length)
+            throw new IllegalArgumentException("Number of regular foods differs: "
+                    + other.regularFoodSlots.length + " != " + regularFoodSlots.length);
+        for (int i = 0; i < regularFoodSlots.length; i++) {
+            regularFoodSlots[i].copyFrom(other.regularFoodSlots[i]);
+            regularFoods[i] = other.regularFoods[i] == null ? null : regularFoodSlots[i];
+        }
+        specialFoodSlot.copyFrom(other.specialFoodSlot);
+        specialFood = other.specialFood == null ? null : specialFoodSlot;
+        foodsEatenSinceLastSpecialFood = other.foodsEatenSinceLastSpecialFood;
+        foodsToEatUntilNextSpecialFood = other.foodsToEatUntilNextSpecialFood;
+        specialFoodsGenerated = other.specialFoodsGenerated;
+    }
+
+    /**
+     * State of the foods saved with {@link #mark(Mark)}, e.g. once per tick of a game which may be rolled back.
+     * Created with {@link #newMark()} and reused, so saving the state does not allocate.
+     */
+    public static final class Mark {
+        private final Food[] regularFoodSlots;
+        private final boolean[] regularFoodsPlaced;
+        private final Food specialFoodSlot;
+        private boolean specialFoodPlaced;
+        private int foodsEatenSinceLastSpecialFood;
+        private int foodsToEatUntilNextSpecialFood;
+        private int specialFoodsGenerated;
+
+        private Mark(int regularFoodCount, GameRules rules, int cols) {
+            this.regularFoodSlots = new Food[regularFoodCount];
+            for (int i = 0; i < regularFoodCount; i++) {
+                regularFoodSlots[i] = new Food(false, rules, cols);
+            }
+            this.regularFoodsPlaced = new boolean[regularFoodCount];
+            this.specialFoodSlot = new Food(true, rules, cols);
+        }
+    }
+
+    /**
+     * @return a mark for the state of this food manager
+     */
+    public Mark newMark() {
+        return new Mark(regularFoodSlots.length, rules, cols);
+    }
+
+    /**
+     * Saves the state of the foods. The random number generator is not saved.
+     *
+     * @param mark a mark created by {@link #newMark()} of this or an equal food manager
+     */
+    public void mark(Mark mark) {
+        for (int i = 0; i < regularFoodSlots.length; i++) {
+            mark.regularFoodSlots[i].copyFrom(regularFoodSlots[i]);
+            mark.regularFoodsPlaced[i] = regularFoods[i] != null;
+        }
+        mark.specialFoodSlot.copyFrom(specialFoodSlot);
+        mark.specialFoodPlaced = specialFood != null;
+        mark.foodsEatenSinceLastSpecialFood = foodsEatenSinceLastSpecialFood;
+        mark.foodsToEatUntilNextSpecialFood = foodsToEatUntilNextSpecialFood;
+        mark.specialFoodsGenerated = specialFoodsGenerated;
+    }
+
+    /**
+     * Restores the state of the foods saved with {@link #mark(Mark)}.
+     *
+     * @param mark the state to return to
+     */
+    public void reset(Mark mark) {
+        if (mark.regularFoodSlots.length != regularFoodSlots.length)
+            throw new IllegalArgumentException("Number of regular foods differs: "
+                    + mark.regularFoodSlots.length + " != " + regularFoodSlots.length);
+        for (int i = 0; i < regularFoodSlots.length; i++) {
+            regularFoodSlots[i].copyFrom(mark.regularFoodSlots[i]);
+            regularFoods[i] = mark.regularFoodsPlaced[i] ? regularFoodSlots[i] : null;
+        }
+        specialFoodSlot.copyFrom(mark.specialFoodSlot);
+        specialFood = mark.specialFoodPlaced ? specialFoodSlot : null;
+        foodsEatenSinceLastSpecialFood = mark.foodsEatenSinceLastSpecialFood;
+        foodsToEatUntilNextSpecialFood = mark.foodsToEatUntilNextSpecialFood;
+        specialFoodsGenerated = mark.specialFoodsGenerated;
+    }
+
+    /**
+     * @return number of special foods that have appeared during the game so far
+     */
+    public int getSpecialFoodsGenerated() {
+        return specialFoodsGenerated;
+    }
+
+    /**
+     * @return the regular food of the first slot, or null if it is not on the board
+     */
+    public Food getRegularFood() {
+        return regularFoods[0];
+    }
+
+    /**
+     * @param index the slot, from 0 to {@link #getRegularFoodCount()} - 1
+     * @return the regular food of the slot, or null if it is not on the board
+     */
+    public Food getRegularFood(int index) {
+        return regularFoods[index];
+    }
+
+    /**
+     * @return number of regular foods on the board at the same time, if there is enough space
+     */
+    public int getRegularFoodCount() {
+        return regularFoods.length;
+    }
+
+    public Food getSpecialFood() {
+        return specialFood;
+    }
+
+    /**
+     * Handles the consumption of regular food.
+     *
+     * @param scoreValue The score value of the consumed food.
+     */
+    public void handleFoodConsumption(int scoreValue) {
+        consumeRegularFood(0);
+    }
+
+    /**
+     * Handles the consumption of the regular food of a slot, which is generated anew later.
+     *
+     * @param index the slot, from 0 to {@link #getRegularFoodCount()} - 1
+     */
+    public void consumeRegularFood(int index) {
+        foodsEatenSinceLastSpecialFood++;
+        foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
+        this.regularFoods[index] = null;
+    }
+
+    /**
+     * Resets the conditions for special food.
+     */
+    public void resetSpecialFood() {
+        this.specialFood = null;
+        foodsEatenSinceLastSpecialFood = 0;
+        foodsToEatUntilNextSpecialFood = getRandomFoodsToEat();
+    }
+
+    /**
+     * Determines if it's time to generate a special food.
+     *
+     * @return true if conditions are met, false otherwise.
+     */
+    public boolean shouldGenerateSpecialFood() {
+        return foodsEatenSinceLastSpecialFood >= foodsToEatUntilNextSpecialFood && specialFood == null;
+    }
 }
\ No newline at end of file
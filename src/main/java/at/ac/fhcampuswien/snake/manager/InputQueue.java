@@ -0,0 +1,139 @@
+package at.ac.fhcampuswien.snake.manager;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffers the direction keys pressed by the player and hands out one turn per tick.
+ * <p>
+ * Several keys pressed within one tick (e.g. UP and then LEFT for a quick U-turn) are applied on consecutive
+ * ticks instead of being dropped. Entries are validated when they are taken: a key which would not change
+ * the direction, or would reverse the snake onto itself, is skipped and the next one is used in the same tick.
+ * <p>
+ * The queue also measures the latency between a key press and the tick in which it moves the snake.
+ */
+public class InputQueue {
+
+    private final static Logger LOG = LoggerFactory.getLogger(InputQueue.class);
+
+    /**
+     * Number of buffered key presses. Older presses are kept, so a flood of keys cannot delay the first turns.
+     */
+    public final static int DEFAULT_CAPACITY = 3;
+
+    private final Direction[] directions;
+    private final long[] timestamps;
+    private int first;
+    private int size;
+
+    private long latencyCount;
+    private long latencySumNanos;
+    private long latencyMaxNanos;
+
+    public InputQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public InputQueue(int capacity) {
+        this.directions = new Direction[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * Records a key press.
+     *
+     * @param direction the requested direction
+     * @param nanoTime  time of the key press as given by {@link System#nanoTime()}
+     * @return false if the key press was dropped because the queue is full or it repeats the last key press
+     */
+    public boolean offer(Direction direction, long nanoTime) {
+        if (size == directions.length)
+            return false;
+        if (size > 0 && directions[index(size - 1)] == direction)
+            return false;
+
+        int i = index(size);
+        directions[i] = direction;
+        timestamps[i] = nanoTime;
+        size++;
+        return true;
+    }
+
+    /**
+     * Takes the next valid turn for the current tick.
+     *
+     * @param currentDirection the direction the snake is moving in
+     * @param nanoTime         time of the tick as given by {@link System#nanoTime()}
+     * @return the new direction, or null if no valid turn is queued
+     */
+    public Direction poll(Direction currentDirection, long nanoTime) {
+        Direction opposite = GameEngine.getOppositeDirection(currentDirection);
+        while (size > 0) {
+            Direction direction = directions[first];
+            long pressedAt = timestamps[first];
+            directions[first] = null;
+            first = index(1);
+            size--;
+
+            if (direction != currentDirection && direction != opposite) {
+                recordLatency(nanoTime - pressedAt);
+                return direction;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Discards all queued key presses and the latency statistics, e.g. when a new game starts.
+     */
+    public void reset() {
+        while (size > 0) {
+            directions[first] = null;
+            first = index(1);
+            size--;
+        }
+        latencyCount = 0;
+        latencySumNanos = 0;
+        latencyMaxNanos = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getLatencyCount() {
+        return latencyCount;
+    }
+
+    /**
+     * @return average time between key press and move in nanoseconds, 0 if no turn was made yet
+     */
+    public long getAverageLatencyNanos() {
+        return latencyCount == 0 ? 0 : latencySumNanos / latencyCount;
+    }
+
+    public long getMaxLatencyNanos() {
+        return latencyMaxNanos;
+    }
+
+    /**
+     * Logs the latency statistics of the current game.
+     */
+    public void logLatencyStats() {
+        LOG.info("Input latency: {} turns, avg {} ms, max {} ms", latencyCount,
+                getAverageLatencyNanos() / 1_000_000.0, latencyMaxNanos / 1_000_000.0);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        latencyCount++;
+        latencySumNanos += latencyNanos;
+        latencyMaxNanos = Math.max(latencyMaxNanos, latencyNanos);
+    }
+
+    private int index(int offset) {
+        int i = first + offset;
+        return i >= directions.length ? i - directions.length : i;
+    }
+}
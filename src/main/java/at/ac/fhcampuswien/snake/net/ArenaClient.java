@@ -0,0 +1,329 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.manager.InputQueue;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection of one player to an {@link ArenaHost}.
+ * <p>
+ * The client keeps its own {@link ArenaEngine} of the game and advances it with the directions of every
+ * {@link ArenaProtocol#TICK} frame, so it knows the whole board although the host only sends what cannot be
+ * computed. The deaths and food changes of the frame are compared with the ones of the local engine, a
+ * difference is counted as a desync. The turns of the player are sent as {@link ArenaProtocol#INPUT} frames.
+ * <p>
+ * With prediction the client does not wait for the host: it advances its game every tick interval after the
+ * last tick received, applies the turns of the player at once and corrects the game when the host disagrees,
+ * see {@link ArenaPrediction}.
+ */
+public class ArenaClient implements AutoCloseable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ArenaClient.class);
+
+    /**
+     * Decides the turns of the player, e.g. from the keys pressed or by a bot.
+     */
+    public interface Controller {
+        /**
+         * Called on the receiving thread after every tick, the predicted ones if the client predicts.
+         *
+         * @param arena  the game after the tick, must not be modified
+         * @param player number of the snake of this client
+         * @return the direction to turn to, or null to keep the current direction
+         */
+        Direction nextDirection(ArenaEngine arena, int player);
+    }
+
+    private final SocketChannel channel;
+    private final Controller controller;
+    private final boolean predicting;
+    private final InputQueue ownInputs = new InputQueue();
+    private final ByteBuffer input = ByteBuffer.allocate(16 * ArenaProtocol.MAX_FRAME_SIZE);
+    private final ByteBuffer output = ByteBuffer.allocate(ArenaProtocol.MAX_FRAME_SIZE);
+
+    private ArenaEngine arena;
+    private ArenaPrediction prediction;
+    private long tickNanos;
+    private long lastTickNanos;
+    private ArenaDelta localDelta;
+    private ArenaDelta receivedDelta;
+    private Direction[] directions;
+    private Direction lastSentDirection;
+    private int player = -1;
+    private boolean ended;
+
+    private volatile int tick;
+    /**
+     * The tick a turn of the player made now is meant for: the one after the last tick shown.
+     */
+    private volatile int nextInputTick = 1;
+    private volatile long bytesReceived;
+    private volatile int desyncs;
+
+    /**
+     * Connects to a host.
+     *
+     * @param address    address of the host
+     * @param controller decides the turns of the player, or null if they are only sent with {@link #sendInput}
+     * @throws IOException if the connection fails
+     */
+    public ArenaClient(InetSocketAddress address, Controller controller) throws IOException {
+        this(address, controller, false);
+    }
+
+    /**
+     * Connects to a host.
+     *
+     * @param address    address of the host
+     * @param controller decides the turns of the player, or null if they are only sent with {@link #sendInput}
+     * @param predicting true to run the game ahead of the host, see {@link ArenaPrediction}
+     * @throws IOException if the connection fails
+     */
+    public ArenaClient(InetSocketAddress address, Controller controller, boolean predicting) throws IOException {
+        this.controller = controller;
+        this.predicting = predicting;
+        this.channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Receives and applies the frames of the host until the game has ended or the connection is closed.
+     *
+     * @throws IOException if the connection fails or the host sends an invalid frame
+     */
+    public void run() throws IOException {
+        if (predicting) {
+            runPredicting();
+        } else {
+            while (!ended && readFrames()) {
+                // The frames are handled as they arrive.
+            }
+        }
+        if (!ended) {
+            LOG.warn("Connection of player {} closed by the host before the end of the game", player);
+        }
+    }
+
+    /**
+     * Waits for frames of the host, but at most until the next tick is to be predicted.
+     */
+    private void runPredicting() throws IOException {
+        channel.configureBlocking(false);
+        try (Selector selector = Selector.open()) {
+            channel.register(selector, SelectionKey.OP_READ);
+            while (!ended) {
+                long timeoutMillis = 0;
+                if (lastTickNanos != 0) {
+                    long sinceLastTick = System.nanoTime() - lastTickNanos;
+                    long untilNextPrediction = tickNanos - Math.floorMod(sinceLastTick, tickNanos);
+                    timeoutMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(untilNextPrediction));
+                }
+                selector.select(timeoutMillis);
+                selector.selectedKeys().clear();
+                if (!readFrames())
+                    break;
+                predictDueTicks();
+            }
+        }
+    }
+
+    /**
+     * Reads what has arrived and handles all complete frames.
+     *
+     * @return false if the host has closed the connection
+     */
+    private boolean readFrames() throws IOException {
+        int read = channel.read(input);
+        if (read < 0)
+            return false;
+        bytesReceived += read;
+        input.flip();
+        ByteBuffer payload;
+        while (!ended && (payload = ArenaProtocol.nextFrame(input)) != null) {
+            handleFrame(payload);
+        }
+        input.compact();
+        return true;
+    }
+
+    /**
+     * Predicts the tick after the last one received at once, and one more for every tick interval without news
+     * from the host.
+     */
+    private void predictDueTicks() throws IOException {
+        if (prediction == null || lastTickNanos == 0 || ended)
+            return;
+        long now = System.nanoTime();
+        long target = prediction.getConfirmedTick() + 1 + (now - lastTickNanos) / tickNanos;
+        while (prediction.getPredictedTick() < target && prediction.canPredict()) {
+            Direction ownInput;
+            synchronized (ownInputs) {
+                ownInput = ownInputs.poll(arena.getSnake(player).getDirection(), now);
+            }
+            prediction.predict(ownInput);
+            nextInputTick = prediction.getPredictedTick() + 1;
+            if (controller != null && arena.getSnake(player).isAlive()) {
+                steer();
+            }
+        }
+    }
+
+    /**
+     * Sends a turn of the player for the tick after the one shown, the host applies it in that tick if it arrives
+     * in time and else in its next tick.
+     *
+     * @param direction the requested direction
+     */
+    public synchronized void sendInput(Direction direction) throws IOException {
+        if (predicting) {
+            synchronized (ownInputs) {
+                ownInputs.offer(direction, System.nanoTime());
+            }
+        }
+        output.clear();
+        ArenaProtocol.writeInput(output, new ArenaProtocol.Input(nextInputTick, direction));
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+    }
+
+    /**
+     * @return number of the snake of this client, -1 until the game has started
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * @return the local copy of the game, null until the game has started. Predicted if the client predicts,
+     * except after the end of the game. Only to be read on the receiving thread or after {@link #run()} has
+     * returned.
+     */
+    public ArenaEngine getArena() {
+        return arena;
+    }
+
+    /**
+     * @return the last tick received
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return number of ticks after which the local game differed from the one of the host
+     */
+    public int getDesyncs() {
+        return desyncs;
+    }
+
+    /**
+     * @return the prediction, null if the client does not predict or the game has not started yet
+     */
+    public ArenaPrediction getPrediction() {
+        return prediction;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void handleFrame(ByteBuffer payload) throws IOException {
+        byte type = payload.get();
+        switch (type) {
+            case ArenaProtocol.WELCOME -> {
+                ArenaProtocol.Welcome welcome;
+                try {
+                    // The rules, board and players are checked by the constructors, like a local game would be
+                    welcome = ArenaProtocol.readWelcome(payload);
+                    BoardConfig board = new BoardConfig(welcome.cols(), welcome.rows(),
+                            BoardConfig.DEFAULT.getCellSize());
+                    if (welcome.player() < 0 || welcome.player() >= welcome.players())
+                        throw new IllegalArgumentException("Invalid player " + welcome.player());
+                    arena = new ArenaEngine(welcome.rules(), board, welcome.seed(), welcome.players());
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    throw new IOException("Invalid welcome: " + e.getMessage(), e);
+                }
+                player = welcome.player();
+                localDelta = new ArenaDelta(welcome.players());
+                receivedDelta = new ArenaDelta(welcome.players());
+                directions = new Direction[welcome.players()];
+                tickNanos = TimeUnit.MILLISECONDS.toNanos(welcome.rules().tickMillis());
+                if (predicting) {
+                    prediction = new ArenaPrediction(arena, player);
+                }
+            }
+            case ArenaProtocol.TICK -> {
+                if (arena == null)
+                    throw new IOException("Tick before welcome");
+                int receivedTick = ArenaProtocol.readTick(payload, directions, receivedDelta);
+                if (receivedTick != tick + 1)
+                    throw new IOException("Expected tick " + (tick + 1) + " but got " + receivedTick);
+                boolean matches;
+                if (prediction != null) {
+                    matches = prediction.confirm(receivedTick, directions, receivedDelta);
+                } else {
+                    localDelta.begin(arena);
+                    arena.step(directions);
+                    localDelta.end(arena);
+                    matches = localDelta.matches(receivedDelta);
+                }
+                if (!matches) {
+                    if (desyncs == 0) {
+                        LOG.warn("Game of player {} differs from the host in tick {}", player, receivedTick);
+                    }
+                    desyncs++;
+                }
+                tick = receivedTick;
+                if (prediction != null) {
+                    lastTickNanos = System.nanoTime();
+                    nextInputTick = prediction.getPredictedTick() + 1;
+                } else {
+                    nextInputTick = receivedTick + 1;
+                    if (controller != null && arena.getSnake(player).isAlive()) {
+                        steer();
+                    }
+                }
+            }
+            case ArenaProtocol.END -> {
+                ended = true;
+                if (prediction != null) {
+                    prediction.discardPrediction();
+                }
+            }
+            default -> throw new IOException("Unexpected frame type " + type);
+        }
+    }
+
+    private void steer() throws IOException {
+        Direction current = arena.getSnake(player).getDirection();
+        if (current == lastSentDirection) {
+            // The last turn has been applied.
+            lastSentDirection = null;
+        }
+        Direction direction = controller.nextDirection(arena, player);
+        // A turn still on its way is not sent again.
+        if (direction != null && direction != current && direction != lastSentDirection) {
+            sendInput(direction);
+            lastSentDirection = direction;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+
+/**
+ * The changes of an {@link ArenaEngine} during one tick which are not determined by the directions of the snakes:
+ * the snakes which died and the food slots whose food appeared, moved or disappeared.
+ * <p>
+ * The host records them with {@link #begin} and {@link #end} around a step and sends them with the tick, a client
+ * records its own in the same way and compares them with the received ones. The slots are the regular foods of
+ * the {@link FoodManager} followed by the special food. Reused for every tick, so recording does not allocate.
+ */
+public final class ArenaDelta {
+
+    private final int[] foodCellsBefore;
+    private final int[] changedSlots;
+    private final int[] changedCells;
+    private long aliveMaskBefore;
+    private long diedMask;
+    private int changeCount;
+
+    /**
+     * @param players number of snakes of the game
+     */
+    public ArenaDelta(int players) {
+        int slots = ArenaEngine.getRegularFoodCount(players) + 1;
+        this.foodCellsBefore = new int[slots];
+        this.changedSlots = new int[slots];
+        this.changedCells = new int[slots];
+    }
+
+    /**
+     * Remembers the state before a step.
+     */
+    public void begin(ArenaEngine engine) {
+        aliveMaskBefore = getAliveMask(engine);
+        for (int i = 0; i < foodCellsBefore.length; i++) {
+            foodCellsBefore[i] = getFoodCell(engine.getFoodManager(), i);
+        }
+    }
+
+    /**
+     * Records the changes since {@link #begin}.
+     */
+    public void end(ArenaEngine engine) {
+        clear(aliveMaskBefore & ~getAliveMask(engine));
+        for (int i = 0; i < foodCellsBefore.length; i++) {
+            int cell = getFoodCell(engine.getFoodManager(), i);
+            if (cell != foodCellsBefore[i]) {
+                addFoodChange(i, cell);
+            }
+        }
+    }
+
+    /**
+     * Starts a new set of changes, e.g. of a received tick.
+     *
+     * @param diedMask bit i is set if player i died
+     */
+    void clear(long diedMask) {
+        this.diedMask = diedMask;
+        this.changeCount = 0;
+    }
+
+    /**
+     * @param slot the food slot
+     * @param cell the new cell of its food, or -1 if it disappeared
+     */
+    void addFoodChange(int slot, int cell) {
+        if (changeCount == changedSlots.length || slot < 0 || slot >= changedSlots.length)
+            throw new IllegalArgumentException("Invalid food change of slot " + slot);
+        changedSlots[changeCount] = slot;
+        changedCells[changeCount] = cell;
+        changeCount++;
+    }
+
+    /**
+     * @return bit i is set if player i died in the tick
+     */
+    public long getDiedMask() {
+        return diedMask;
+    }
+
+    public int getFoodChangeCount() {
+        return changeCount;
+    }
+
+    public int getChangedFoodSlot(int index) {
+        return changedSlots[index];
+    }
+
+    /**
+     * @return the new cell of the food, or -1 if it disappeared
+     */
+    public int getChangedFoodCell(int index) {
+        return changedCells[index];
+    }
+
+    /**
+     * @return true if both contain the same deaths and food changes, in the same order
+     */
+    public boolean matches(ArenaDelta other) {
+        if (diedMask != other.diedMask || changeCount != other.changeCount)
+            return false;
+        for (int i = 0; i < changeCount; i++) {
+            if (changedSlots[i] != other.changedSlots[i] || changedCells[i] != other.changedCells[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static long getAliveMask(ArenaEngine engine) {
+        long mask = 0;
+        for (int i = 0; i < engine.getPlayerCount(); i++) {
+            if (engine.getSnake(i).isAlive()) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    private static int getFoodCell(FoodManager foodManager, int slot) {
+        Food food = slot < foodManager.getRegularFoodCount() ? foodManager.getRegularFood(slot)
+                : foodManager.getSpecialFood();
+        return food == null ? -1 : food.getCell();
+    }
+}
@@ -0,0 +1,234 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.CommandLineOptions;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+import at.ac.fhcampuswien.snake.util.GameRules;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plays a networked game with bots on the loopback interface: one {@link ArenaHost} and one {@link ArenaClient}
+ * per player, each on its own thread. Prints the bytes each client received and how often the clients had to roll
+ * back their prediction, and checks that the games of all clients ended in the same state as the one of the host.
+ * <p>
+ * Usage: {@code ArenaDemo [options]}, see {@link #USAGE}. With a shorter tick interval the demo runs faster,
+ * the bandwidth is also given for the tick rate of the difficulty.
+ */
+public class ArenaDemo {
+
+    public static final String USAGE = """
+            Usage: ArenaDemo [options]
+              --players <n>                     number of bots (default 64)
+              --difficulty <EASY,MEDIUM,HARD>   rules of the game (default HARD)
+              --board <n>                       columns and rows of the board (default 48)
+              --ticks <n>                       end the game after this many ticks (default 1000)
+              --tick-millis <n>                 duration of a tick instead of the one of the difficulty
+              --seed <n>                        seed of the game (default 1)
+              --no-prediction                   clients wait for the ticks of the host
+            """;
+
+    /**
+     * IPv4 and TCP header with timestamps of every segment, each tick is sent in one segment.
+     */
+    private static final int TCP_IP_HEADER_BYTES = 52;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int players = ArenaEngine.MAX_PLAYERS;
+        Difficulty difficulty = Difficulty.HARD;
+        int boardSize = 48;
+        int ticks = 1000;
+        int tickMillis = -1;
+        long seed = 1;
+        boolean predicting = true;
+
+        CommandLineOptions options = new CommandLineOptions(args, USAGE);
+        while (options.next()) {
+            switch (options.name()) {
+                case "--players" -> players = options.intValue();
+                case "--difficulty" -> difficulty = options.enumValue(Difficulty.class);
+                case "--board" -> boardSize = options.intValue();
+                case "--ticks" -> ticks = options.intValue();
+                case "--tick-millis" -> tickMillis = options.intValue();
+                case "--seed" -> seed = options.longValue();
+                case "--no-prediction" -> predicting = false;
+                default -> options.unknown();
+            }
+        }
+
+        GameRules difficultyRules = GameRules.forDifficulty(difficulty);
+        GameRules rules = tickMillis > 0 ? difficultyRules.withTickMillis(tickMillis) : difficultyRules;
+        BoardConfig board = new BoardConfig(boardSize, boardSize, BoardConfig.DEFAULT.getCellSize());
+        ArenaHost host = new ArenaHost(rules, board, seed, players,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        host.setMaxTicks(ticks);
+        InetSocketAddress address = host.getAddress();
+        host.start();
+
+        List<ArenaClient> clients = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            ArenaClient client = new ArenaClient(address, new GreedyController(seed + i), predicting);
+            clients.add(client);
+            Thread thread = new Thread(() -> {
+                try (client) {
+                    client.run();
+                } catch (IOException e) {
+                    System.err.println("Client failed: " + e);
+                }
+            }, "arena-client-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        long start = System.nanoTime();
+        host.join();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        ArenaEngine hostArena = host.getEngine();
+        int gameTicks = hostArena.getTick();
+        long maxBytes = 0;
+        long totalBytes = 0;
+        int desyncs = 0;
+        int differentEnds = 0;
+        long rollbacks = 0;
+        long resimulatedTicks = 0;
+        long rollbackNanos = 0;
+        long maxRollbackNanos = 0;
+        for (ArenaClient client : clients) {
+            ArenaPrediction prediction = client.getPrediction();
+            if (prediction != null) {
+                rollbacks += prediction.getRollbacks();
+                resimulatedTicks += prediction.getResimulatedTicks();
+                rollbackNanos += prediction.getRollbackNanos();
+                maxRollbackNanos = Math.max(maxRollbackNanos, prediction.getMaxRollbackNanos());
+            }
+            maxBytes = Math.max(maxBytes, client.getBytesReceived());
+            totalBytes += client.getBytesReceived();
+            desyncs += client.getDesyncs();
+            if (client.getArena() == null || !sameState(hostArena, client.getArena())) {
+                differentEnds++;
+            }
+        }
+        double bytesPerTick = (double) totalBytes / players / Math.max(1, gameTicks);
+        double ticksPerSecond = 1000.0 / difficultyRules.tickMillis();
+
+        System.out.printf(Locale.ROOT, "%d players on %s, %d ticks of %d ms in %.1f s, %d still alive%n",
+                players, board, gameTicks, rules.tickMillis(), seconds, hostArena.getAliveCount());
+        System.out.printf(Locale.ROOT, "received per client: %,.1f bytes per tick, max %,d bytes in total%n",
+                bytesPerTick, maxBytes);
+        System.out.printf(Locale.ROOT, "at %s (%d ms per tick): %,.0f B/s payload, %,.0f B/s with TCP/IP headers%n",
+                difficulty, difficultyRules.tickMillis(), bytesPerTick * ticksPerSecond,
+                (bytesPerTick + TCP_IP_HEADER_BYTES) * ticksPerSecond);
+        System.out.printf(Locale.ROOT, "desyncs %d | clients ending in another state %d | dropped %d | overruns %d%n",
+                desyncs, differentEnds, host.getDroppedCount(), host.getOverruns());
+        if (predicting) {
+            // The longest rollback includes the times the thread was preempted by the other clients.
+            System.out.printf(Locale.ROOT, "prediction: %.2f rollbacks per client and tick, %.1f ticks simulated "
+                            + "again per rollback, %.0f us per rollback, longest %d us%n",
+                    (double) rollbacks / players / Math.max(1, gameTicks),
+                    (double) resimulatedTicks / Math.max(1, rollbacks),
+                    rollbackNanos / 1000.0 / Math.max(1, rollbacks), maxRollbackNanos / 1000);
+        }
+        int best = 0;
+        for (int i = 1; i < players; i++) {
+            if (hostArena.getScore(i) > hostArena.getScore(best)) {
+                best = i;
+            }
+        }
+        System.out.printf(Locale.ROOT, "best player %d with %d points%n", best, hostArena.getScore(best));
+    }
+
+    private static boolean sameState(ArenaEngine expected, ArenaEngine actual) {
+        if (expected.getTick() != actual.getTick())
+            return false;
+        for (int i = 0; i < expected.getPlayerCount(); i++) {
+            Snake a = expected.getSnake(i);
+            Snake b = actual.getSnake(i);
+            if (expected.getScore(i) != actual.getScore(i) || a.isAlive() != b.isAlive()
+                    || a.getLength() != b.getLength() || a.getHeadCell() != b.getHeadCell())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Heads for the nearest food and avoids cells which are blocked right now, like the
+     * {@link at.ac.fhcampuswien.snake.simulation.GreedyPolicy} of a single game.
+     */
+    private static final class GreedyController implements ArenaClient.Controller {
+
+        private static final Direction[] DIRECTIONS = Direction.values();
+
+        private final GameRandom random;
+
+        GreedyController(long seed) {
+            this.random = new GameRandom(seed);
+        }
+
+        @Override
+        public Direction nextDirection(ArenaEngine arena, int player) {
+            int cols = arena.getBoardConfig().getCols();
+            Snake snake = arena.getSnake(player);
+            int head = snake.getHeadCell();
+            int target = nearestFood(arena.getFoodManager(), head, cols);
+            Direction opposite = GameEngine.getOppositeDirection(snake.getDirection());
+
+            Direction best = null;
+            int bestDistance = Integer.MAX_VALUE;
+            for (Direction direction : DIRECTIONS) {
+                int cell = neighbour(head, direction, cols);
+                if (direction == opposite || arena.getGrid().isOccupied(cell))
+                    continue;
+                int distance = 4 * distance(cell, target, cols) + random.nextInt(3);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = direction;
+                }
+            }
+            return best;
+        }
+
+        private static int nearestFood(FoodManager foodManager, int head, int cols) {
+            int target = head;
+            int targetDistance = Integer.MAX_VALUE;
+            for (int i = 0; i <= foodManager.getRegularFoodCount(); i++) {
+                Food food = i < foodManager.getRegularFoodCount() ? foodManager.getRegularFood(i)
+                        : foodManager.getSpecialFood();
+                if (food != null && distance(head, food.getCell(), cols) < targetDistance) {
+                    target = food.getCell();
+                    targetDistance = distance(head, target, cols);
+                }
+            }
+            return target;
+        }
+
+        private static int neighbour(int cell, Direction direction, int cols) {
+            return switch (direction) {
+                case UP -> cell - cols;
+                case DOWN -> cell + cols;
+                case LEFT -> cell - 1;
+                case RIGHT -> cell + 1;
+            };
+        }
+
+        private static int distance(int from, int to, int cols) {
+            return Math.abs(from % cols - to % cols) + Math.abs(from / cols - to / cols);
+        }
+    }
+}
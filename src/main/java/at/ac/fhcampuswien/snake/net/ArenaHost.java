@@ -0,0 +1,441 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.manager.InputQueue;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The authoritative host of a game of several snakes, see {@link ArenaEngine}.
+ * <p>
+ * One thread does all the work with a {@link Selector}: it waits until all players have connected, sends each
+ * of them the {@link ArenaProtocol#WELCOME}, and then advances the game every tick interval and sends every
+ * client the same {@link ArenaProtocol#TICK} frame. Turns received from a client are kept until the tick they are
+ * meant for and then queued like key presses, so a client which predicts its own turns sees them in the same
+ * ticks as the host. A client which does not take its frames fast enough is disconnected, so it cannot hold up
+ * the others; its snake keeps moving without inputs.
+ */
+public class ArenaHost implements Runnable, AutoCloseable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ArenaHost.class);
+
+    /**
+     * Bytes a client may fall behind, several seconds of ticks of 64 players.
+     */
+    static final int OUTPUT_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Time the clients get to take their last frames after the game has ended.
+     */
+    static final long CLOSE_TIMEOUT_MILLIS = 1000;
+
+    private final ArenaEngine engine;
+    private final ArenaDelta delta;
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final Connection[] connections;
+    private final Direction[] inputs;
+    private final ByteBuffer frame = ByteBuffer.allocate(ArenaProtocol.MAX_FRAME_SIZE);
+    private final long tickNanos;
+    private final Thread thread;
+
+    private int maxTicks = Integer.MAX_VALUE;
+    private int connectedCount;
+    private volatile boolean running = true;
+    private volatile long overruns;
+
+    /**
+     * Opens the server socket. The game starts as soon as all players have connected.
+     *
+     * @param rules   rules of the game
+     * @param board   the board
+     * @param seed    seed of the game
+     * @param players number of players, from 1 to {@link ArenaEngine#MAX_PLAYERS}
+     * @param address address to listen on, e.g. port 0 of the loopback address for a free port
+     * @throws IOException if the socket cannot be opened
+     */
+    public ArenaHost(GameRules rules, BoardConfig board, long seed, int players, InetSocketAddress address)
+            throws IOException {
+        this.engine = new ArenaEngine(rules, board, seed, players);
+        this.delta = new ArenaDelta(players);
+        this.connections = new Connection[players];
+        this.inputs = new Direction[players];
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(rules.tickMillis());
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this, "arena-host");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * @return the address the host listens on, with the actual port
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * @param maxTicks ends the game after this many ticks, e.g. for load tests
+     */
+    public void setMaxTicks(int maxTicks) {
+        this.maxTicks = maxTicks;
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Waits until the game has ended and all clients are disconnected.
+     */
+    public void join() throws InterruptedException {
+        thread.join();
+    }
+
+    /**
+     * @return the game, which may only be read after {@link #join()}
+     */
+    public ArenaEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return bytes sent to the client of a player, including the length bytes of the frames
+     */
+    public long getBytesSent(int player) {
+        Connection connection = connections[player];
+        return connection == null ? 0 : connection.bytesSent;
+    }
+
+    /**
+     * @return number of players disconnected because they fell behind or their connection failed
+     */
+    public int getDroppedCount() {
+        int dropped = 0;
+        for (Connection connection : connections) {
+            if (connection != null && connection.dropped) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    /**
+     * @return number of ticks which started more than a tick interval late
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    @Override
+    public void run() {
+        try {
+            acceptPlayers();
+            if (running) {
+                play();
+            }
+        } catch (IOException e) {
+            LOG.error("Arena host failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the game, if it is still running, and closes all connections. If the calling thread is interrupted
+     * while waiting for the host thread, the interrupt flag is set again and the host closes the connections
+     * itself when it has stopped.
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        if (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        } else if (thread.getState() == Thread.State.NEW) {
+            closeAll();
+        }
+    }
+
+    private void acceptPlayers() throws IOException {
+        while (running && connectedCount < connections.length) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (key.isAcceptable()) {
+                    accept();
+                } else if (key.isReadable()) {
+                    read((Connection) key.attachment());
+                }
+            }
+        }
+        // Players who join later are not accepted anymore.
+        serverChannel.close();
+        if (!running)
+            return;
+        for (int i = 0; i < connections.length; i++) {
+            frame.clear();
+            ArenaProtocol.writeWelcome(frame, new ArenaProtocol.Welcome(i, connections.length, engine.getSeed(),
+                    engine.getRules(), engine.getBoardConfig().getCols(), engine.getBoardConfig().getRows()));
+            frame.flip();
+            send(connections[i], frame);
+        }
+        LOG.info("Arena started with {} players", connections.length);
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(connectedCount, channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections[connectedCount++] = connection;
+        LOG.debug("Player {} connected from {}", connection.player, channel.getRemoteAddress());
+    }
+
+    private void play() throws IOException {
+        long nextTick = System.nanoTime() + tickNanos;
+        while (running && !engine.isGameOver() && engine.getTick() < maxTicks) {
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                handleIo(wait);
+                continue;
+            }
+
+            long now = System.nanoTime();
+            tick(now);
+            nextTick += tickNanos;
+            // After a stall the missed ticks are skipped instead of being caught up in a burst.
+            if (nextTick < now) {
+                overruns++;
+                nextTick = now + tickNanos;
+            }
+        }
+
+        frame.clear();
+        ArenaProtocol.writeEnd(frame, engine.getTick());
+        frame.flip();
+        for (Connection connection : connections) {
+            send(connection, frame);
+        }
+        LOG.info("Arena ended after {} ticks", engine.getTick());
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+        long wait;
+        while (hasPendingOutput() && (wait = deadline - System.nanoTime()) > 0) {
+            handleIo(wait);
+        }
+    }
+
+    /**
+     * Waits for at most the given time for received inputs or sockets which take more output.
+     */
+    private void handleIo(long timeoutNanos) throws IOException {
+        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Connection connection = (Connection) key.attachment();
+            if (key.isValid() && key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(connection);
+            }
+        }
+    }
+
+    private boolean hasPendingOutput() {
+        for (Connection connection : connections) {
+            if (!connection.dropped && connection.output.position() > 0)
+                return true;
+        }
+        return false;
+    }
+
+    private void tick(long nanoTime) {
+        int tick = engine.getTick() + 1;
+        for (int i = 0; i < connections.length; i++) {
+            Connection connection = connections[i];
+            connection.queueEarlyInputs(tick, nanoTime);
+            inputs[i] = connection.inputQueue.poll(engine.getSnake(i).getDirection(), nanoTime);
+        }
+        delta.begin(engine);
+        engine.step(inputs);
+        delta.end(engine);
+
+        frame.clear();
+        ArenaProtocol.writeTick(frame, engine, delta);
+        frame.flip();
+        for (Connection connection : connections) {
+            send(connection, frame);
+        }
+    }
+
+    /**
+     * Queues a frame for a client and sends as much as the socket takes without blocking.
+     */
+    private void send(Connection connection, ByteBuffer frame) {
+        if (connection.dropped)
+            return;
+        ByteBuffer out = connection.output;
+        if (out.remaining() < frame.remaining()) {
+            LOG.warn("Player {} fell behind by {} bytes, disconnecting", connection.player, out.position());
+            drop(connection);
+            return;
+        }
+        connection.bytesSent += frame.remaining();
+        out.put(frame.duplicate());
+        flush(connection);
+    }
+
+    private void flush(Connection connection) {
+        ByteBuffer out = connection.output;
+        try {
+            out.flip();
+            connection.channel.write(out);
+            out.compact();
+        } catch (IOException e) {
+            LOG.warn("Sending to player {} failed: {}", connection.player, e.getMessage());
+            drop(connection);
+            return;
+        }
+        // Only wait for the socket to become writable while something is left to send.
+        connection.key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ);
+    }
+
+    private void read(Connection connection) {
+        ByteBuffer in = connection.input;
+        try {
+            if (connection.channel.read(in) < 0) {
+                LOG.info("Player {} disconnected", connection.player);
+                drop(connection);
+                return;
+            }
+            in.flip();
+            ByteBuffer payload;
+            while ((payload = ArenaProtocol.nextFrame(in)) != null) {
+                if (payload.get() != ArenaProtocol.INPUT)
+                    throw new IllegalArgumentException("Unexpected frame type");
+                receiveInput(connection, ArenaProtocol.readInput(payload));
+            }
+            in.compact();
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Receiving from player {} failed: {}", connection.player, e.getMessage());
+            drop(connection);
+        }
+    }
+
+    private void receiveInput(Connection connection, ArenaProtocol.Input input) {
+        int nextTick = engine.getTick() + 1;
+        if (input.tick() <= nextTick) {
+            // In time for the next tick, or too late for the tick it was meant for.
+            connection.inputQueue.offer(input.direction(), System.nanoTime());
+        } else if (connection.earlyInputCount < connection.earlyInputTicks.length) {
+            // A client never runs further ahead than its prediction allows.
+            int tick = Math.min(input.tick(), nextTick + ArenaPrediction.MAX_PREDICTED_TICKS);
+            connection.earlyInputTicks[connection.earlyInputCount] = tick;
+            connection.earlyInputDirections[connection.earlyInputCount] = input.direction();
+            connection.earlyInputCount++;
+        } else {
+            LOG.debug("Dropped an input of player {} for tick {}", connection.player, input.tick());
+        }
+    }
+
+    private void drop(Connection connection) {
+        connection.dropped = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            LOG.debug("Closing the connection of player {} failed", connection.player, e);
+        }
+    }
+
+    private void closeAll() {
+        for (Connection connection : connections) {
+            if (connection != null && !connection.dropped) {
+                try {
+                    connection.channel.close();
+                } catch (IOException e) {
+                    LOG.debug("Closing the connection of player {} failed", connection.player, e);
+                }
+            }
+        }
+        try {
+            serverChannel.close();
+            selector.close();
+        } catch (IOException e) {
+            LOG.debug("Closing the selector failed", e);
+        }
+    }
+
+    private static final class Connection {
+        final int player;
+        final SocketChannel channel;
+        final ByteBuffer input = ByteBuffer.allocate(ArenaProtocol.MAX_FRAME_SIZE);
+        final ByteBuffer output = ByteBuffer.allocate(OUTPUT_BUFFER_SIZE);
+        final InputQueue inputQueue = new InputQueue();
+        /**
+         * Turns received before the tick they are meant for, in the order of arrival.
+         */
+        final int[] earlyInputTicks = new int[ArenaPrediction.MAX_PREDICTED_TICKS];
+        final Direction[] earlyInputDirections = new Direction[ArenaPrediction.MAX_PREDICTED_TICKS];
+        int earlyInputCount;
+        SelectionKey key;
+        long bytesSent;
+        boolean dropped;
+
+        Connection(int player, SocketChannel channel) {
+            this.player = player;
+            this.channel = channel;
+        }
+
+        /**
+         * Moves the early turns meant for the given tick or before into the input queue.
+         */
+        void queueEarlyInputs(int tick, long nanoTime) {
+            int kept = 0;
+            for (int i = 0; i < earlyInputCount; i++) {
+                if (earlyInputTicks[i] <= tick) {
+                    inputQueue.offer(earlyInputDirections[i], nanoTime);
+                } else {
+                    earlyInputTicks[kept] = earlyInputTicks[i];
+                    earlyInputDirections[kept] = earlyInputDirections[i];
+                    kept++;
+                }
+            }
+            for (int i = kept; i < earlyInputCount; i++) {
+                earlyInputDirections[i] = null;
+            }
+            earlyInputCount = kept;
+        }
+    }
+}
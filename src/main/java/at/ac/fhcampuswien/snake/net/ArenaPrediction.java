@@ -0,0 +1,199 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Runs the game of a client ahead of the ticks confirmed by the host, so the turns of the player are shown in the
+ * next tick instead of after a round trip to the host.
+ * <p>
+ * Predicted ticks apply the turns of the player at once and let all other snakes go straight on. After every tick
+ * an {@link ArenaEngine.Checkpoint} is kept in a ring, together with the changes of the tick. When the host
+ * confirms a tick, the directions of all snakes are compared with the prediction: if they are equal, the predicted
+ * tick was right and nothing has to be done. Otherwise the game is rolled back to the checkpoint of the previous
+ * tick, advanced with the directions of the host, and the following ticks are predicted again with the same turns
+ * of the player.
+ * <p>
+ * A checkpoint holds the heads, lengths and directions of the snakes, the foods, the scores and the state of the
+ * random number generator, a few kilobytes for 64 players; the board is restored by undoing the changes of its
+ * cells. A client runs at most {@link #MAX_PREDICTED_TICKS} ahead and waits for the host after that.
+ */
+public final class ArenaPrediction {
+
+    /**
+     * Most ticks the prediction runs ahead of the host, and the deepest rollback. Not more than
+     * {@link at.ac.fhcampuswien.snake.ingameobjects.Snake#MAX_UNDONE_MOVES}.
+     */
+    public static final int MAX_PREDICTED_TICKS = 10;
+
+    private final ArenaEngine arena;
+    private final int player;
+    private final ArenaEngine.Checkpoint[] history;
+    private final ArenaDelta[] historyDeltas;
+    /**
+     * Directions of all snakes after each tick in the ring, the ones of the player are the turns it made.
+     */
+    private final Direction[][] predictedDirections;
+    private final Direction[] inputs;
+    private int confirmedTick;
+
+    private long rollbacks;
+    private long resimulatedTicks;
+    private long rollbackNanos;
+    private long maxRollbackNanos;
+
+    /**
+     * @param arena  the game at the last tick confirmed by the host, it is advanced by the prediction from now on
+     * @param player number of the snake of the player
+     */
+    public ArenaPrediction(ArenaEngine arena, int player) {
+        this.arena = arena;
+        this.player = player;
+        this.history = new ArenaEngine.Checkpoint[MAX_PREDICTED_TICKS + 1];
+        this.historyDeltas = new ArenaDelta[history.length];
+        for (int i = 0; i < history.length; i++) {
+            history[i] = arena.newCheckpoint();
+            historyDeltas[i] = new ArenaDelta(arena.getPlayerCount());
+        }
+        this.predictedDirections = new Direction[history.length][arena.getPlayerCount()];
+        this.inputs = new Direction[arena.getPlayerCount()];
+        this.confirmedTick = arena.getTick();
+        arena.checkpoint(history[index(confirmedTick)]);
+    }
+
+    /**
+     * @return the predicted game, which is shown to the player
+     */
+    public ArenaEngine getArena() {
+        return arena;
+    }
+
+    public int getConfirmedTick() {
+        return confirmedTick;
+    }
+
+    public int getPredictedTick() {
+        return arena.getTick();
+    }
+
+    /**
+     * @return true if another tick may be predicted
+     */
+    public boolean canPredict() {
+        return !arena.isGameOver() && arena.getTick() - confirmedTick < MAX_PREDICTED_TICKS;
+    }
+
+    /**
+     * Predicts the next tick.
+     *
+     * @param ownInput the turn of the player in this tick, or null to go straight on
+     */
+    public void predict(Direction ownInput) {
+        if (!canPredict())
+            throw new IllegalStateException("Cannot predict beyond tick " + arena.getTick());
+        Arrays.fill(inputs, null);
+        inputs[player] = ownInput;
+        step(inputs);
+    }
+
+    /**
+     * Takes the next tick of the host and rolls back if the prediction of it was wrong.
+     *
+     * @param tick       number of the tick, the one after {@link #getConfirmedTick()}
+     * @param directions the directions of all snakes after the tick
+     * @param received   the deaths and food changes of the tick according to the host
+     * @return false if the game of the host differs although the directions are the same, a desync
+     */
+    public boolean confirm(int tick, Direction[] directions, ArenaDelta received) {
+        if (tick != confirmedTick + 1)
+            throw new IllegalArgumentException("Expected tick " + (confirmedTick + 1) + " but got " + tick);
+        confirmedTick = tick;
+        if (tick <= arena.getTick() && hasDirections(index(tick), directions)) {
+            arena.forgetChangesBefore(history[index(tick)]);
+            return historyDeltas[index(tick)].matches(received);
+        }
+
+        long start = System.nanoTime();
+        int predictedTick = arena.getTick();
+        arena.rollBack(history[index(tick - 1)]);
+        step(directions);
+        arena.forgetChangesBefore(history[index(tick)]);
+        boolean matches = historyDeltas[index(tick)].matches(received);
+
+        // Predict the following ticks again with the turns the player made in them.
+        for (int k = tick + 1; k <= predictedTick && !arena.isGameOver(); k++) {
+            Arrays.fill(inputs, null);
+            inputs[player] = predictedDirections[index(k)][player];
+            step(inputs);
+        }
+        if (predictedTick >= tick) {
+            rollbacks++;
+            resimulatedTicks += predictedTick - tick + 1;
+            long nanos = System.nanoTime() - start;
+            rollbackNanos += nanos;
+            maxRollbackNanos = Math.max(maxRollbackNanos, nanos);
+        }
+        return matches;
+    }
+
+    /**
+     * Drops all predicted ticks, e.g. when the game has ended, so the game is the one confirmed by the host.
+     */
+    public void discardPrediction() {
+        arena.rollBack(history[index(confirmedTick)]);
+    }
+
+    /**
+     * @return number of confirmed ticks which had been predicted wrongly
+     */
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * @return number of ticks simulated again by rollbacks, including the corrected ones
+     */
+    public long getResimulatedTicks() {
+        return resimulatedTicks;
+    }
+
+    /**
+     * @return time all rollbacks took in nanoseconds, including the simulation of the ticks after them
+     */
+    public long getRollbackNanos() {
+        return rollbackNanos;
+    }
+
+    /**
+     * @return longest time a rollback took in nanoseconds, including the simulation of the ticks after it
+     */
+    public long getMaxRollbackNanos() {
+        return maxRollbackNanos;
+    }
+
+    private void step(Direction[] stepInputs) {
+        ArenaDelta delta = historyDeltas[index(arena.getTick() + 1)];
+        delta.begin(arena);
+        arena.step(stepInputs);
+        delta.end(arena);
+        int index = index(arena.getTick());
+        arena.checkpoint(history[index]);
+        for (int i = 0; i < predictedDirections[index].length; i++) {
+            predictedDirections[index][i] = arena.getSnake(i).getDirection();
+        }
+    }
+
+    private boolean hasDirections(int index, Direction[] directions) {
+        for (int i = 0; i < directions.length; i++) {
+            if (predictedDirections[index][i] != directions[i])
+                return false;
+        }
+        return true;
+    }
+
+    private int index(int tick) {
+        return tick % history.length;
+    }
+}
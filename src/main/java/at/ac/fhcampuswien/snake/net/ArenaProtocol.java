@@ -0,0 +1,234 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRules;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol between an {@link ArenaHost} and its {@link ArenaClient}s.
+ * <p>
+ * Every frame starts with one byte for the length of the rest of the frame, followed by the type and the payload.
+ * Numbers which are usually small are written as varints (7 bits per byte, lowest first).
+ * <ul>
+ *     <li>{@link #WELCOME} (host): number of the player, number of players, seed, rules and board size. Sent once
+ *     when all players have joined, both sides then create the same {@link ArenaEngine}.</li>
+ *     <li>{@link #TICK} (host): tick number, the direction of every snake in 2 bits, the players who died and the
+ *     food slots which changed. The directions are the inputs the host applied, so a client advances its engine
+ *     with them and compares the deaths and foods with its own to detect a desync.</li>
+ *     <li>{@link #INPUT} (client): a turn of the player and the tick it is meant for. Only sent when the player
+ *     turns, not in every tick. The host keeps turns which arrive early until their tick, and applies turns which
+ *     arrive late in its next tick.</li>
+ *     <li>{@link #END} (host): the last tick of the game, the host closes the connection afterwards.</li>
+ * </ul>
+ * A tick of 64 players takes 20 to 30 bytes, so a client receives about 200 bytes per second at the tick rate of
+ * {@link Difficulty#HARD}, about 550 bytes with the headers of the TCP segments.
+ */
+public final class ArenaProtocol {
+
+    public static final byte WELCOME = 1;
+    public static final byte TICK = 2;
+    public static final byte INPUT = 3;
+    public static final byte END = 4;
+
+    /**
+     * Longest frame including the length byte. A tick of 64 players with all deaths and food changes fits.
+     */
+    public static final int MAX_FRAME_SIZE = 256;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private ArenaProtocol() {
+    }
+
+    /**
+     * The first frame a client receives.
+     *
+     * @param player  number of the player of the client, from 0 to players - 1
+     * @param players number of snakes in the game
+     * @param seed    seed of the game
+     * @param rules   rules of the game
+     * @param cols    columns of the board
+     * @param rows    rows of the board
+     */
+    public record Welcome(int player, int players, long seed, GameRules rules, int cols, int rows) {
+    }
+
+    /**
+     * A turn of a player.
+     *
+     * @param tick      the tick the turn is meant for
+     * @param direction the requested direction
+     */
+    public record Input(int tick, Direction direction) {
+    }
+
+    public static void writeWelcome(ByteBuffer out, Welcome welcome) {
+        int start = beginFrame(out, WELCOME);
+        putVarInt(out, welcome.player());
+        putVarInt(out, welcome.players());
+        out.putLong(welcome.seed());
+        GameRules rules = welcome.rules();
+        out.put((byte) rules.difficulty().ordinal());
+        putVarInt(out, rules.tickMillis());
+        putVarInt(out, rules.regularScoreValue());
+        putVarInt(out, rules.specialScoreValue());
+        putVarInt(out, rules.minSpecialFoodTimeToLive());
+        putVarInt(out, rules.maxSpecialFoodTimeToLive());
+        putVarInt(out, rules.minFoodsUntilSpecialFood());
+        putVarInt(out, rules.maxFoodsUntilSpecialFood());
+        putVarInt(out, welcome.cols());
+        putVarInt(out, welcome.rows());
+        endFrame(out, start);
+    }
+
+    /**
+     * @param payload the frame after its type
+     */
+    public static Welcome readWelcome(ByteBuffer payload) {
+        int player = getVarInt(payload);
+        int players = getVarInt(payload);
+        long seed = payload.getLong();
+        GameRules rules = new GameRules(Difficulty.values()[payload.get()], getVarInt(payload), getVarInt(payload),
+                getVarInt(payload), getVarInt(payload), getVarInt(payload), getVarInt(payload), getVarInt(payload));
+        return new Welcome(player, players, seed, rules, getVarInt(payload), getVarInt(payload));
+    }
+
+    /**
+     * Writes the tick the engine has just made.
+     *
+     * @param out    the buffer to append the frame to
+     * @param engine the game after the tick
+     * @param delta  the changes of the tick
+     */
+    public static void writeTick(ByteBuffer out, ArenaEngine engine, ArenaDelta delta) {
+        int start = beginFrame(out, TICK);
+        putVarInt(out, engine.getTick());
+        int packed = 0;
+        for (int i = 0; i < engine.getPlayerCount(); i++) {
+            packed |= engine.getSnake(i).getDirection().ordinal() << (2 * (i & 3));
+            if ((i & 3) == 3 || i == engine.getPlayerCount() - 1) {
+                out.put((byte) packed);
+                packed = 0;
+            }
+        }
+        long died = delta.getDiedMask();
+        out.put((byte) Long.bitCount(died));
+        while (died != 0) {
+            out.put((byte) Long.numberOfTrailingZeros(died));
+            died &= died - 1;
+        }
+        out.put((byte) delta.getFoodChangeCount());
+        for (int i = 0; i < delta.getFoodChangeCount(); i++) {
+            out.put((byte) delta.getChangedFoodSlot(i));
+            // 0 for a food which disappeared, the perimeter wall is never a food cell
+            putVarInt(out, delta.getChangedFoodCell(i) + 1);
+        }
+        endFrame(out, start);
+    }
+
+    /**
+     * @param payload    the frame after its type
+     * @param directions receives the direction of every snake
+     * @param delta      receives the deaths and food changes
+     * @return the number of the tick
+     */
+    public static int readTick(ByteBuffer payload, Direction[] directions, ArenaDelta delta) {
+        int tick = getVarInt(payload);
+        int packed = 0;
+        for (int i = 0; i < directions.length; i++) {
+            if ((i & 3) == 0) {
+                packed = payload.get();
+            }
+            directions[i] = DIRECTIONS[(packed >> (2 * (i & 3))) & 3];
+        }
+        long died = 0;
+        int deaths = payload.get() & 0xFF;
+        for (int i = 0; i < deaths; i++) {
+            died |= 1L << payload.get();
+        }
+        delta.clear(died);
+        int changes = payload.get() & 0xFF;
+        for (int i = 0; i < changes; i++) {
+            int slot = payload.get() & 0xFF;
+            delta.addFoodChange(slot, getVarInt(payload) - 1);
+        }
+        return tick;
+    }
+
+    public static void writeInput(ByteBuffer out, Input input) {
+        int start = beginFrame(out, INPUT);
+        putVarInt(out, input.tick());
+        out.put((byte) input.direction().ordinal());
+        endFrame(out, start);
+    }
+
+    public static Input readInput(ByteBuffer payload) {
+        int tick = getVarInt(payload);
+        int ordinal = payload.get();
+        if (ordinal < 0 || ordinal >= DIRECTIONS.length)
+            throw new IllegalArgumentException("Invalid direction " + ordinal);
+        return new Input(tick, DIRECTIONS[ordinal]);
+    }
+
+    public static void writeEnd(ByteBuffer out, int tick) {
+        int start = beginFrame(out, END);
+        putVarInt(out, tick);
+        endFrame(out, start);
+    }
+
+    /**
+     * Takes the next complete frame out of a buffer of received bytes.
+     *
+     * @param in the received bytes, ready to be read
+     * @return the frame from its type to its end, sharing the content of the buffer, or null if the frame is not
+     * complete yet. The position of the buffer is moved behind the frame.
+     */
+    public static ByteBuffer nextFrame(ByteBuffer in) {
+        if (!in.hasRemaining())
+            return null;
+        int length = in.get(in.position()) & 0xFF;
+        if (length == 0)
+            throw new IllegalArgumentException("Empty frame");
+        if (in.remaining() < 1 + length)
+            return null;
+        ByteBuffer frame = in.slice(in.position() + 1, length);
+        in.position(in.position() + 1 + length);
+        return frame;
+    }
+
+    static void putVarInt(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+
+    private static int beginFrame(ByteBuffer out, byte type) {
+        int start = out.position();
+        out.put((byte) 0);
+        out.put(type);
+        return start;
+    }
+
+    private static void endFrame(ByteBuffer out, int start) {
+        int length = out.position() - start - 1;
+        if (length >= MAX_FRAME_SIZE)
+            throw new IllegalStateException("Frame too long: " + length);
+        out.put(start, (byte) length);
+    }
+}
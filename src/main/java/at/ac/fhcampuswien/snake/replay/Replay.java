@@ -0,0 +1,102 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+/**
+ * A recorded game: everything needed to simulate it again exactly.
+ * <p>
+ * All randomness of a game comes from its seed, so besides the game settings only the inputs of the player
+ * are stored, as the tick in which they were applied and the direction. Ticks without input keep the current
+ * direction.
+ */
+public class Replay {
+
+    private final long seed;
+    private final Difficulty difficulty;
+    private final int cols;
+    private final int rows;
+    private final int[] inputTicks;
+    private final Direction[] inputDirections;
+    private final int endTick;
+    private final int finalScore;
+
+    /**
+     * @param seed            seed of the game
+     * @param difficulty      Game difficulty level
+     * @param cols            number of columns of the board
+     * @param rows            number of rows of the board
+     * @param inputTicks      ticks in which an input was applied, strictly increasing
+     * @param inputDirections the direction applied in each of these ticks
+     * @param endTick         last tick of the game
+     * @param finalScore      score at the end of the game, as reported by the game that was recorded
+     */
+    public Replay(long seed, Difficulty difficulty, int cols, int rows, int[] inputTicks,
+                  Direction[] inputDirections, int endTick, int finalScore) {
+        if (inputTicks.length != inputDirections.length)
+            throw new IllegalArgumentException("Number of ticks and directions differs");
+        for (int i = 0; i < inputTicks.length; i++) {
+            if (inputTicks[i] < 1 || (i > 0 && inputTicks[i] <= inputTicks[i - 1]) || inputTicks[i] > endTick)
+                throw new IllegalArgumentException("Input ticks must be increasing and within the game");
+        }
+        this.seed = seed;
+        this.difficulty = difficulty;
+        this.cols = cols;
+        this.rows = rows;
+        this.inputTicks = inputTicks;
+        this.inputDirections = inputDirections;
+        this.endTick = endTick;
+        this.finalScore = finalScore;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @return a board configuration with the dimensions of the recorded board and a cell size of one pixel
+     */
+    public BoardConfig getBoardConfig() {
+        return new BoardConfig(cols, rows, 1);
+    }
+
+    public int getInputCount() {
+        return inputTicks.length;
+    }
+
+    public int getInputTick(int index) {
+        return inputTicks[index];
+    }
+
+    public Direction getInputDirection(int index) {
+        return inputDirections[index];
+    }
+
+    public int getEndTick() {
+        return endTick;
+    }
+
+    public int getFinalScore() {
+        return finalScore;
+    }
+
+    /**
+     * @return duration of the game when played in real time, in milliseconds
+     */
+    public long getDurationMillis() {
+        return (long) endTick * difficulty.getRefreshTime();
+    }
+}
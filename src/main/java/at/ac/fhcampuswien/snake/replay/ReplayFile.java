@@ -0,0 +1,240 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format of replays.
+ * <pre>
+ * magic "SNRP" (4) | version (1) | difficulty (1) | cols (varint) | rows (varint) | seed (8)
+ * | end tick (varint) | final score (varint) | input count (varint) | inputs | CRC32 of the preceding bytes (4)
+ * input: varint of ((ticks since the previous input - 1) &lt;&lt; 2 | direction)
+ * </pre>
+ * Varints use 7 bits per byte, the highest bit marks that another byte follows. An input less than 33 ticks
+ * after the previous one takes a single byte, so a game of 30 minutes with a turn every few ticks takes a few KB.
+ */
+public final class ReplayFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplayFile.class);
+
+    public static final int MAGIC = 0x534E5250; // "SNRP"
+    public static final byte VERSION = 1;
+    public static final String EXTENSION = ".snr";
+    /**
+     * Directory new replays are saved to, can be overridden with the system property {@code snake.replays.dir}.
+     */
+    public static final Path REPLAYS_DIRECTORY = Paths.get(System.getProperty("snake.replays.dir", "replays"));
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_VARINT_BYTES = 5;
+    private static final DateTimeFormatter FILE_NAME_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replay-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ReplayFile() {
+    }
+
+    /**
+     * Writes a replay to {@link #REPLAYS_DIRECTORY} on a background thread.
+     *
+     * @param replay the replay to save
+     * @return the file the replay was written to, completed exceptionally if it could not be written
+     */
+    public static CompletableFuture<Path> saveAsync(Replay replay) {
+        String name = "replay-" + LocalDateTime.now().format(FILE_NAME_TIME) + "-"
+                + Long.toHexString(replay.getSeed()) + EXTENSION;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Files.createDirectories(REPLAYS_DIRECTORY);
+                Path file = REPLAYS_DIRECTORY.resolve(name);
+                int size = write(file, replay);
+                LOG.info("Replay with {} inputs saved to {} ({} bytes)", replay.getInputCount(), file, size);
+                return file;
+            } catch (IOException e) {
+                LOG.error("Error saving replay", e);
+                throw new UncheckedIOException(e);
+            }
+        }, WRITER);
+    }
+
+    /**
+     * Writes a replay to a file, replacing it if it exists.
+     *
+     * @param file   the file
+     * @param replay the replay
+     * @return the size of the file in bytes
+     * @throws IOException if the file cannot be written
+     */
+    public static int write(Path file, Replay replay) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelOutput out = new ChannelOutput(channel);
+            out.putInt(MAGIC);
+            out.put(VERSION);
+            out.put((byte) replay.getDifficulty().ordinal());
+            out.putVarint(replay.getCols());
+            out.putVarint(replay.getRows());
+            out.putLong(replay.getSeed());
+            out.putVarint(replay.getEndTick());
+            out.putVarint(replay.getFinalScore());
+            out.putVarint(replay.getInputCount());
+            int previousTick = 0;
+            for (int i = 0; i < replay.getInputCount(); i++) {
+                int tick = replay.getInputTick(i);
+                out.putVarint((tick - previousTick - 1) << 2 | replay.getInputDirection(i).ordinal());
+                previousTick = tick;
+            }
+            return out.finish();
+        }
+    }
+
+    /**
+     * Reads a replay.
+     *
+     * @param file the file
+     * @return the replay
+     * @throws IOException if the file cannot be read or is not a valid replay
+     */
+    public static Replay read(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < 4 + 2 + 8 + 4)
+            throw new IOException(file + " is too short for a replay");
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != MAGIC)
+            throw new IOException(file + " is not a replay");
+        if (buffer.get() != VERSION)
+            throw new IOException(file + " has unsupported version " + bytes[4]);
+        if ((int) crc.getValue() != buffer.getInt(bytes.length - 4))
+            throw new IOException(file + " is corrupt");
+
+        try {
+            int difficulty = buffer.get();
+            if (difficulty < 0 || difficulty >= Difficulty.values().length)
+                throw new IOException(file + " has unknown difficulty " + difficulty);
+            int cols = getVarint(buffer);
+            int rows = getVarint(buffer);
+            long seed = buffer.getLong();
+            int endTick = getVarint(buffer);
+            int finalScore = getVarint(buffer);
+            int inputCount = getVarint(buffer);
+            if (inputCount > buffer.remaining())
+                throw new IOException(file + " has an invalid input count");
+
+            Direction[] allDirections = Direction.values();
+            int[] ticks = new int[inputCount];
+            Direction[] directions = new Direction[inputCount];
+            int previousTick = 0;
+            for (int i = 0; i < inputCount; i++) {
+                int input = getVarint(buffer);
+                ticks[i] = previousTick + (input >>> 2) + 1;
+                directions[i] = allDirections[input & 3];
+                previousTick = ticks[i];
+            }
+            return new Replay(seed, Difficulty.values()[difficulty], cols, rows, ticks, directions, endTick,
+                    finalScore);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException(file + " is not a valid replay", e);
+        }
+    }
+
+    private static int getVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new IOException("Varint is too long");
+    }
+
+    /**
+     * Writes through a small buffer to a channel and keeps the checksum of everything written.
+     */
+    private static final class ChannelOutput {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+        private int size;
+
+        ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void put(byte b) throws IOException {
+            ensureRemaining(1);
+            buffer.put(b);
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRemaining(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRemaining(Long.BYTES);
+            buffer.putLong(value);
+        }
+
+        void putVarint(int value) throws IOException {
+            ensureRemaining(MAX_VARINT_BYTES);
+            while ((value & ~0x7F) != 0) {
+                buffer.put((byte) (value & 0x7F | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        /**
+         * Appends the checksum and writes the rest of the buffer.
+         *
+         * @return the number of bytes written in total
+         */
+        int finish() throws IOException {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            flush();
+            return size;
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            size += buffer.remaining();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
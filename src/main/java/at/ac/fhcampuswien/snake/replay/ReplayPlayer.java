@@ -0,0 +1,167 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.engine.StepResult;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Plays a {@link Replay} by simulating the game again with the same seed and inputs.
+ * <p>
+ * The game can be played in real time, as fast as possible, or moved to any tick with {@link #seek(int)}.
+ * While playing, the player keeps a snapshot of the game every {@link #getSnapshotInterval()} ticks, so a seek
+ * restores the nearest snapshot before the target and simulates only the ticks from there, also backwards.
+ */
+public class ReplayPlayer {
+
+    public static final int DEFAULT_SNAPSHOT_INTERVAL = 256;
+
+    private record Checkpoint(GameEngine state, int nextInput) {
+    }
+
+    private final Replay replay;
+    private final int snapshotInterval;
+    private final GameEngine engine;
+    /**
+     * Snapshot i is the state after tick {@code i * snapshotInterval}.
+     */
+    private final List<Checkpoint> checkpoints = new ArrayList<>();
+    private int nextInput;
+
+    public ReplayPlayer(Replay replay) {
+        this(replay, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+
+    /**
+     * @param replay           the replay to play
+     * @param snapshotInterval number of ticks between two snapshots
+     */
+    public ReplayPlayer(Replay replay, int snapshotInterval) {
+        if (snapshotInterval < 1)
+            throw new IllegalArgumentException("Snapshot interval must be positive, but was " + snapshotInterval);
+        this.replay = replay;
+        this.snapshotInterval = snapshotInterval;
+        this.engine = new GameEngine(replay.getDifficulty(), replay.getBoardConfig(), replay.getSeed());
+        this.checkpoints.add(new Checkpoint(engine.snapshot(), 0));
+    }
+
+    /**
+     * Simulates a whole replay as fast as possible, without keeping snapshots.
+     *
+     * @param replay the replay
+     * @return the game after the last recorded tick, or after the tick it ended in if it ended earlier
+     */
+    public static GameEngine simulate(Replay replay) {
+        GameEngine engine = new GameEngine(replay.getDifficulty(), replay.getBoardConfig(), replay.getSeed());
+        int nextInput = 0;
+        while (!engine.isGameOver() && engine.getTick() < replay.getEndTick()) {
+            Direction input = null;
+            if (nextInput < replay.getInputCount() && replay.getInputTick(nextInput) == engine.getTick() + 1) {
+                input = replay.getInputDirection(nextInput++);
+            }
+            engine.step(input);
+        }
+        return engine;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * @return the game in its current state, to be drawn or inspected. It must not be modified.
+     */
+    public GameEngine getEngine() {
+        return engine;
+    }
+
+    public int getTick() {
+        return engine.getTick();
+    }
+
+    /**
+     * @return true if the last recorded tick has been played or the game is over
+     */
+    public boolean isFinished() {
+        return engine.isGameOver() || engine.getTick() >= replay.getEndTick();
+    }
+
+    /**
+     * Simulates the next tick with the recorded input.
+     *
+     * @return what happened during the tick
+     */
+    public StepResult step() {
+        if (isFinished())
+            return StepResult.GAME_OVER;
+
+        Direction input = null;
+        if (nextInput < replay.getInputCount() && replay.getInputTick(nextInput) == engine.getTick() + 1) {
+            input = replay.getInputDirection(nextInput++);
+        }
+        StepResult result = engine.step(input);
+
+        int tick = engine.getTick();
+        if (tick % snapshotInterval == 0 && tick / snapshotInterval == checkpoints.size()) {
+            checkpoints.add(new Checkpoint(engine.snapshot(), nextInput));
+        }
+        return result;
+    }
+
+    /**
+     * Plays the rest of the replay as fast as possible.
+     *
+     * @return the score at the end
+     */
+    public int playToEnd() {
+        while (!isFinished()) {
+            step();
+        }
+        return engine.getScore();
+    }
+
+    /**
+     * Plays the rest of the replay on the calling thread, at a speed relative to the recorded game.
+     *
+     * @param speed    1 for real time, 2 for twice as fast, ...
+     * @param listener called after every tick, e.g. to draw the game
+     * @throws InterruptedException if the thread is interrupted while waiting for the next tick
+     */
+    public void play(double speed, Consumer<StepResult> listener) throws InterruptedException {
+        long tickNanos = (long) (replay.getDifficulty().getRefreshTime() * 1_000_000L / speed);
+        long nextTick = System.nanoTime();
+        while (!isFinished()) {
+            nextTick += tickNanos;
+            long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+            }
+            listener.accept(step());
+        }
+    }
+
+    /**
+     * Moves the game to the state after the given tick.
+     *
+     * @param tick the target tick, limited to the recorded ticks
+     */
+    public void seek(int tick) {
+        tick = Math.max(0, Math.min(tick, replay.getEndTick()));
+        int checkpoint = Math.min(tick / snapshotInterval, checkpoints.size() - 1);
+        if (tick < engine.getTick() || checkpoint * snapshotInterval > engine.getTick()) {
+            Checkpoint restored = checkpoints.get(checkpoint);
+            engine.copyFrom(restored.state());
+            nextInput = restored.nextInput();
+        }
+        while (engine.getTick() < tick && !isFinished()) {
+            step();
+        }
+    }
+}
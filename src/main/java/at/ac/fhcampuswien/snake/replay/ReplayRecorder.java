@@ -0,0 +1,59 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Records the inputs of a running game.
+ * <p>
+ * Recording an input only stores it in an array, which grows by doubling, so the game loop is not slowed down.
+ * The replay is encoded and written when the game is over, see {@link ReplayFile#saveAsync}.
+ */
+public class ReplayRecorder {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final GameEngine engine;
+    private int[] ticks = new int[INITIAL_CAPACITY];
+    private Direction[] directions = new Direction[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * @param engine the game to record, before its first tick
+     */
+    public ReplayRecorder(GameEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Records the input which was passed to {@link GameEngine#step} for the tick that has just been simulated.
+     *
+     * @param input the direction, or null if the player made no input in this tick
+     */
+    public void record(Direction input) {
+        if (input == null)
+            return;
+        if (count == ticks.length) {
+            ticks = Arrays.copyOf(ticks, count * 2);
+            directions = Arrays.copyOf(directions, count * 2);
+        }
+        ticks[count] = engine.getTick();
+        directions[count] = input;
+        count++;
+    }
+
+    public int getInputCount() {
+        return count;
+    }
+
+    /**
+     * @return the game recorded so far, ending with the current tick
+     */
+    public Replay toReplay() {
+        return new Replay(engine.getSeed(), engine.getDifficulty(), engine.getBoardConfig().getCols(),
+                engine.getBoardConfig().getRows(), Arrays.copyOf(ticks, count), Arrays.copyOf(directions, count),
+                engine.getTick(), engine.getScore());
+    }
+}
@@ -0,0 +1,46 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Plays a replay without user interface and prints the result.
+ * <p>
+ * Usage: {@code ReplayTool <replay file> [speed]}, where speed 1 plays in real time and 0 (the default) plays
+ * as fast as possible.
+ */
+public class ReplayTool {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ReplayTool <replay file> [speed]");
+            System.exit(1);
+        }
+        Replay replay = ReplayFile.read(Paths.get(args[0]));
+        double speed = args.length == 2 ? Double.parseDouble(args[1]) : 0;
+        System.out.printf("Seed %x, %s, %dx%d board, %d ticks (%.1f s), %d inputs%n", replay.getSeed(),
+                replay.getDifficulty(), replay.getCols(), replay.getRows(), replay.getEndTick(),
+                replay.getDurationMillis() / 1000.0, replay.getInputCount());
+
+        ReplayPlayer player = new ReplayPlayer(replay);
+        long start = System.nanoTime();
+        if (speed > 0) {
+            player.play(speed, result -> {
+                if (player.getTick() % 100 == 0) {
+                    System.out.printf("Tick %d, score %d%n", player.getTick(), player.getEngine().getScore());
+                }
+            });
+        } else {
+            player.playToEnd();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int score = player.getEngine().getScore();
+        System.out.printf("Simulated %d ticks in %.2f ms, score %d (recorded %d)%n", player.getTick(),
+                elapsed / 1_000_000.0, score, replay.getFinalScore());
+        if (score != replay.getFinalScore() || player.getTick() != replay.getEndTick()) {
+            System.err.println("The simulated game differs from the recorded one");
+            System.exit(2);
+        }
+    }
+}
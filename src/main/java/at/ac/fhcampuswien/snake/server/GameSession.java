@@ -0,0 +1,159 @@
+package at.ac.fhcampuswien.snake.server;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.engine.StepResult;
+import at.ac.fhcampuswien.snake.manager.InputQueue;
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.replay.ReplayFile;
+import at.ac.fhcampuswien.snake.replay.ReplayRecorder;
+import at.ac.fhcampuswien.snake.service.HighscoreService;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One game hosted by a {@link SessionManager}, with its own engine and therefore its own snake, wall and food.
+ * <p>
+ * The game is advanced by the scheduler of the manager, at most by one thread at a time. Inputs may be offered
+ * from any thread, e.g. the one of a network connection, and are applied in the next tick. The score, tick and
+ * state are published after every tick and can be read from any thread; the engine itself must not be touched
+ * while the session is scheduled.
+ */
+public class GameSession {
+
+    private final long id;
+    private final GameEngine engine;
+    private final DirectionProvider bot;
+    private final long tickNanos;
+    private final InputQueue inputQueue = new InputQueue();
+    private final ReplayRecorder replayRecorder;
+
+    // Scheduling state, only used by the scheduler thread.
+    long dueNanos;
+    long dueSlice;
+
+    private volatile boolean closed;
+    private volatile boolean gameOver;
+    private volatile int score;
+    private volatile int tick;
+    private volatile String playerName;
+
+    /**
+     * @param id     unique id of the session
+     * @param engine the game
+     * @param bot    plays the game instead of the inputs, or null
+     */
+    GameSession(long id, GameEngine engine, DirectionProvider bot) {
+        this.id = id;
+        this.engine = engine;
+        this.bot = bot;
+        this.tickNanos = engine.getRules().tickMillis() * 1_000_000L;
+        this.replayRecorder = new ReplayRecorder(engine);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getSeed() {
+        return engine.getSeed();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * @param playerName name the score is saved under when the game ends, or null to save no score
+     */
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /**
+     * @return time between two ticks of this game in nanoseconds
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    /**
+     * Queues a turn of the player for the next ticks.
+     *
+     * @param direction the requested direction
+     * @return false if the input was dropped, see {@link InputQueue#offer}
+     */
+    public boolean offerInput(Direction direction) {
+        synchronized (inputQueue) {
+            return inputQueue.offer(direction, System.nanoTime());
+        }
+    }
+
+    /**
+     * Advances the game by one tick. Called by the scheduler only.
+     *
+     * @param nanoTime time of the tick as given by {@link System#nanoTime()}
+     * @return what happened during this tick
+     */
+    StepResult tick(long nanoTime) {
+        Direction input;
+        if (bot != null) {
+            input = bot.nextDirection(engine);
+        } else {
+            synchronized (inputQueue) {
+                input = inputQueue.poll(engine.getSnake().getDirection(), nanoTime);
+            }
+        }
+        StepResult result = engine.step(input);
+        replayRecorder.record(input);
+        score = engine.getScore();
+        tick = engine.getTick();
+        gameOver = engine.isGameOver();
+        return result;
+    }
+
+    /**
+     * Writes the replay of the ended game to {@link ReplayFile#REPLAYS_DIRECTORY} and, if a player name is set,
+     * submits the score to the {@link HighscoreService}. Blocks until the replay is written and the score is
+     * verified, so it must not be called on the thread of the batched scheduler.
+     *
+     * @throws IOException if the replay cannot be written
+     */
+    void saveResult() throws IOException {
+        Replay replay = replayRecorder.toReplay();
+        Files.createDirectories(ReplayFile.REPLAYS_DIRECTORY);
+        Path file = ReplayFile.REPLAYS_DIRECTORY.resolve("session-" + id + "-" + Long.toHexString(getSeed())
+                + ReplayFile.EXTENSION);
+        ReplayFile.write(file, replay);
+        String name = playerName;
+        if (name != null) {
+            HighscoreService.submitHighscore(name, replay).join();
+        }
+    }
+
+    /**
+     * Stops the session, the scheduler drops it before its next tick.
+     */
+    void close() {
+        closed = true;
+    }
+}
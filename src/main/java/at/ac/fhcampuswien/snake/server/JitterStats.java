@@ -0,0 +1,102 @@
+package at.ac.fhcampuswien.snake.server;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Distribution of how late the ticks of the sessions run compared to their due time.
+ * <p>
+ * Lateness is counted in buckets of powers of two microseconds, so percentiles are accurate to a factor of two,
+ * which is enough to tell stable ticks from stalls. The workers of the batched scheduler count their ticks in a
+ * local array and add it once per batch, so the lock is taken rarely.
+ */
+public class JitterStats {
+
+    static final int BUCKETS = 32;
+
+    private final long[] counts = new long[BUCKETS];
+    private long ticks;
+    private long sumNanos;
+    private long maxNanos;
+
+    /**
+     * Summary of the ticks since the last reset.
+     *
+     * @param ticks       number of ticks
+     * @param meanMicros  average lateness
+     * @param p50Micros   median lateness, upper bound of its bucket
+     * @param p99Micros   99th percentile, upper bound of its bucket
+     * @param p999Micros  99.9th percentile, upper bound of its bucket
+     * @param maxMicros   highest lateness
+     */
+    public record Snapshot(long ticks, double meanMicros, long p50Micros, long p99Micros, long p999Micros,
+                           long maxMicros) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%,d ticks, lateness mean %.0f us | p50 <%d us | p99 <%d us"
+                    + " | p99.9 <%d us | max %d us", ticks, meanMicros, p50Micros, p99Micros, p999Micros, maxMicros);
+        }
+    }
+
+    /**
+     * @param latenessNanos time between the due time and the start of a tick
+     * @return the bucket which counts the lateness
+     */
+    static int bucket(long latenessNanos) {
+        long micros = Math.max(latenessNanos / 1000, 0);
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    /**
+     * Adds a single tick.
+     *
+     * @param latenessNanos time between the due time and the start of the tick
+     */
+    synchronized void add(long latenessNanos) {
+        long lateness = Math.max(latenessNanos, 0);
+        counts[bucket(lateness)]++;
+        ticks++;
+        sumNanos += lateness;
+        maxNanos = Math.max(maxNanos, lateness);
+    }
+
+    /**
+     * Adds the ticks counted by a worker.
+     *
+     * @param bucketCounts ticks per {@link #bucket}
+     * @param sumNanos     sum of the lateness of the ticks
+     * @param maxNanos     highest lateness of the ticks
+     */
+    synchronized void add(long[] bucketCounts, long sumNanos, long maxNanos) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += bucketCounts[i];
+            ticks += bucketCounts[i];
+        }
+        this.sumNanos += sumNanos;
+        this.maxNanos = Math.max(this.maxNanos, maxNanos);
+    }
+
+    /**
+     * Returns the summary of the ticks since the last call and starts counting anew.
+     */
+    public synchronized Snapshot snapshotAndReset() {
+        Snapshot snapshot = new Snapshot(ticks, ticks == 0 ? 0 : sumNanos / 1000.0 / ticks, percentile(0.5),
+                percentile(0.99), percentile(0.999), maxNanos / 1000);
+        Arrays.fill(counts, 0);
+        ticks = 0;
+        sumNanos = 0;
+        maxNanos = 0;
+        return snapshot;
+    }
+
+    private long percentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * ticks);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0)
+                return 1L << i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,116 @@
+package at.ac.fhcampuswien.snake.server;
+
+import at.ac.fhcampuswien.snake.simulation.MonteCarlo.Policy;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.CommandLineOptions;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.GameRules;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hosts bot-played sessions in each {@link SessionManager.ExecutionMode} and compares throughput, tick lateness,
+ * threads and memory. Ended games are replaced by new ones, so the number of sessions stays constant.
+ * <p>
+ * Usage: {@code ServerBenchmark [options]}, see {@link #USAGE}. With {@code --save} every ended game writes its
+ * replay and submits its score, so set {@code snake.replays.dir} and {@code snake.highscores.dir} to scratch
+ * directories.
+ */
+public class ServerBenchmark {
+
+    public static final String USAGE = """
+            Usage: ServerBenchmark [options]
+              --sessions <n,...>                    concurrent sessions (default 1000,10000)
+              --mode <batched,virtual_threads,...>  execution modes (default all)
+              --difficulty <EASY,MEDIUM,HARD>       difficulty of the games (default MEDIUM)
+              --policy <greedy,autopilot,random>    bot playing the games (default greedy)
+              --warmup <s>                          seconds before measuring (default 5)
+              --seconds <s>                         seconds to measure (default 10)
+              --save                                save replay and score of every ended game
+            """;
+
+    public static void main(String[] args) throws InterruptedException {
+        List<Integer> sessionCounts = List.of(1_000, 10_000);
+        List<SessionManager.ExecutionMode> modes = List.of(SessionManager.ExecutionMode.values());
+        Difficulty difficulty = Difficulty.MEDIUM;
+        Policy policy = Policy.GREEDY;
+        int warmupSeconds = 5;
+        int seconds = 10;
+        boolean save = false;
+
+        CommandLineOptions options = new CommandLineOptions(args, USAGE);
+        while (options.next()) {
+            switch (options.name()) {
+                case "--sessions" -> sessionCounts = options.intListValue();
+                case "--mode" -> modes = options.enumListValue(SessionManager.ExecutionMode.class);
+                case "--difficulty" -> difficulty = options.enumValue(Difficulty.class);
+                case "--policy" -> policy = options.enumValue(Policy.class);
+                case "--warmup" -> warmupSeconds = options.intValue();
+                case "--seconds" -> seconds = options.intValue();
+                case "--save" -> save = true;
+                default -> options.unknown();
+            }
+        }
+
+        GameRules rules = GameRules.forDifficulty(difficulty);
+        System.out.printf(Locale.ROOT, "%s, %d ms per tick, %s bots, %d cores, virtual threads %s%n", difficulty,
+                rules.tickMillis(), policy.name().toLowerCase(), Runtime.getRuntime().availableProcessors(),
+                VirtualThreads.isAvailable() ? "available" : "not available, using platform threads");
+        for (int sessions : sessionCounts) {
+            for (SessionManager.ExecutionMode mode : modes) {
+                run(mode, sessions, rules, policy, warmupSeconds, seconds, save);
+            }
+        }
+    }
+
+    private static void run(SessionManager.ExecutionMode mode, int sessionCount, GameRules rules, Policy policy,
+                            int warmupSeconds, int seconds, boolean save) throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        BoardConfig board = BoardConfig.DEFAULT;
+        AtomicLong nextSeed = new AtomicLong(1);
+        AtomicLong gamesEnded = new AtomicLong();
+        try (SessionManager manager = new SessionManager(mode)) {
+            manager.setSaveResults(save);
+            manager.setGameOverListener(session -> {
+                gamesEnded.incrementAndGet();
+                manager.closeSession(session.getId());
+                long seed = nextSeed.getAndIncrement();
+                manager.createSession(rules, board, seed, policy.create(~seed));
+            });
+
+            // Spread the sessions over one tick interval, like players who do not all start at once.
+            int perMillis = Math.max(1, sessionCount / rules.tickMillis());
+            for (int i = 0; i < sessionCount; i++) {
+                long seed = nextSeed.getAndIncrement();
+                manager.createSession(rules, board, seed, policy.create(~seed));
+                if (i % perMillis == perMillis - 1) {
+                    Thread.sleep(1);
+                }
+            }
+
+            Thread.sleep(warmupSeconds * 1000L);
+            manager.getJitterStats().snapshotAndReset();
+            long overrunsBefore = manager.getOverruns();
+            long endedBefore = gamesEnded.get();
+            long start = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            JitterStats.Snapshot jitter = manager.getJitterStats().snapshotAndReset();
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            int platformThreads = Thread.activeCount();
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+            System.out.printf(Locale.ROOT, "%n%,d sessions %s: %,.0f ticks/s of %,.0f due, %,.1f games ended/s%n",
+                    sessionCount, mode.name().toLowerCase(), jitter.ticks() / elapsed,
+                    sessionCount * 1000.0 / rules.tickMillis(), (gamesEnded.get() - endedBefore) / elapsed);
+            System.out.printf(Locale.ROOT, "  %s%n", jitter);
+            System.out.printf(Locale.ROOT, "  overruns %,d | platform threads %,d | heap +%,d MB%n",
+                    manager.getOverruns() - overrunsBefore, platformThreads,
+                    (heapAfter - heapBefore) / (1024 * 1024));
+        }
+    }
+}
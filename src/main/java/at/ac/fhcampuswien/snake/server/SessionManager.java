@@ -0,0 +1,259 @@
+package at.ac.fhcampuswien.snake.server;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Hosts many independent games in one process, without user interface.
+ * <p>
+ * Every {@link GameSession} has its own {@link GameEngine}, and the engine keeps no static state, so the games
+ * do not influence each other. How the sessions are ticked is chosen by the {@link ExecutionMode}, and how late
+ * the ticks run is counted in the {@link JitterStats}.
+ * <p>
+ * Sessions whose game has ended are no longer ticked but stay available until they are closed, so their
+ * final score can be read. If {@link #setSaveResults results are saved}, the replay of every ended game is
+ * written and its score submitted; this blocking I/O does not run on a thread that ticks other sessions, unless
+ * thousands of results are already waiting for the platform threads which save them before Java 21.
+ */
+public class SessionManager implements AutoCloseable {
+
+    private final static Logger LOG = LoggerFactory.getLogger(SessionManager.class);
+
+    /**
+     * Default length of a time slice of the scheduler in milliseconds.
+     */
+    public static final int DEFAULT_SLICE_MILLIS = 1;
+
+    /**
+     * Platform threads which save the results of batched sessions before Java 21, and the number of results which
+     * may wait for them. Saving is mostly file I/O, so a few threads more than cores keep the disk busy.
+     */
+    private static final int IO_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final int IO_QUEUE_CAPACITY = 10_000;
+
+    public enum ExecutionMode {
+        /**
+         * One timer thread batches the sessions due in the same time slice onto a {@link ForkJoinPool}, see
+         * {@link TickScheduler}. Results are saved on virtual threads, or a fixed pool of platform threads before
+         * Java 21.
+         */
+        BATCHED,
+        /**
+         * Every session runs on its own virtual thread, which also saves its result. Falls back to platform
+         * threads before Java 21.
+         */
+        VIRTUAL_THREADS,
+        /**
+         * Every session runs on its own platform thread, for comparison with {@link #VIRTUAL_THREADS}.
+         */
+        PLATFORM_THREADS
+    }
+
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final JitterStats jitterStats = new JitterStats();
+    private final ExecutionMode mode;
+    private final ForkJoinPool pool;
+    private final ExecutorService ioExecutor;
+    private final SessionRunner runner;
+
+    private volatile Consumer<GameSession> gameOverListener = session -> {
+    };
+    private volatile boolean saveResults;
+
+    /**
+     * Creates a manager which ticks the sessions in batches on its own pool with one thread per core.
+     */
+    public SessionManager() {
+        this(ExecutionMode.BATCHED);
+    }
+
+    /**
+     * @param mode how the sessions are ticked, batched sessions run on a new pool with one thread per core
+     */
+    public SessionManager(ExecutionMode mode) {
+        this(mode, mode == ExecutionMode.BATCHED ? new ForkJoinPool(Runtime.getRuntime().availableProcessors())
+                : null, DEFAULT_SLICE_MILLIS);
+    }
+
+    /**
+     * Creates a manager which ticks the sessions in batches.
+     *
+     * @param pool        the pool the ticks run on, it is not shut down by {@link #close()}
+     * @param sliceMillis length of a time slice of the scheduler, the resolution of the tick times
+     */
+    public SessionManager(ForkJoinPool pool, int sliceMillis) {
+        this(ExecutionMode.BATCHED, null, sliceMillis, pool);
+    }
+
+    private SessionManager(ExecutionMode mode, ForkJoinPool ownPool, int sliceMillis) {
+        this(mode, ownPool, sliceMillis, ownPool);
+    }
+
+    private SessionManager(ExecutionMode mode, ForkJoinPool ownPool, int sliceMillis, ForkJoinPool tickPool) {
+        if (sliceMillis < 1)
+            throw new IllegalArgumentException("Slice must be at least 1 ms: " + sliceMillis);
+        this.mode = mode;
+        this.pool = ownPool;
+        this.runner = switch (mode) {
+            case BATCHED -> {
+                this.ioExecutor = VirtualThreads.newBoundedExecutor("session-io", IO_THREADS, IO_QUEUE_CAPACITY);
+                yield new TickScheduler(tickPool, TimeUnit.MILLISECONDS.toNanos(sliceMillis), jitterStats,
+                        session -> ioExecutor.execute(() -> endSession(session)));
+            }
+            case VIRTUAL_THREADS -> {
+                this.ioExecutor = null;
+                yield new ThreadPerSessionRunner(VirtualThreads.newThreadPerTaskExecutor("session"), jitterStats,
+                        this::endSession);
+            }
+            case PLATFORM_THREADS -> {
+                this.ioExecutor = null;
+                yield new ThreadPerSessionRunner(VirtualThreads.newPlatformThreadPerTaskExecutor("session"),
+                        jitterStats, this::endSession);
+            }
+        };
+        this.runner.start();
+        LOG.info("Session manager started, mode {}, virtual threads {}", mode,
+                VirtualThreads.isAvailable() ? "available" : "not available");
+    }
+
+    /**
+     * Starts a new game which is played by the inputs passed to {@link GameSession#offerInput}.
+     *
+     * @param rules the rules of the game
+     * @param board the board
+     * @param seed  seed of the game
+     * @return the new session, its first tick is due one tick interval from now
+     */
+    public GameSession createSession(GameRules rules, BoardConfig board, long seed) {
+        return createSession(rules, board, seed, null);
+    }
+
+    /**
+     * Starts a new game.
+     *
+     * @param rules the rules of the game
+     * @param board the board
+     * @param seed  seed of the game
+     * @param bot   plays the game instead of the inputs, e.g. for load tests, or null
+     * @return the new session, its first tick is due one tick interval from now
+     */
+    public GameSession createSession(GameRules rules, BoardConfig board, long seed, DirectionProvider bot) {
+        GameSession session = new GameSession(nextId.getAndIncrement(), new GameEngine(rules, board, seed), bot);
+        sessions.put(session.getId(), session);
+        runner.add(session);
+        return session;
+    }
+
+    /**
+     * @return the session, or null if there is none with this id or it was closed
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    public Collection<GameSession> getSessions() {
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+
+    /**
+     * @return number of sessions which are not closed, including ended games
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Stops and removes a session.
+     *
+     * @return false if there was no session with this id
+     */
+    public boolean closeSession(long id) {
+        GameSession session = sessions.remove(id);
+        if (session == null)
+            return false;
+        session.close();
+        return true;
+    }
+
+    /**
+     * @param listener called when a game ends, after its result was saved, on a thread which may block
+     */
+    public void setGameOverListener(Consumer<GameSession> listener) {
+        this.gameOverListener = listener;
+    }
+
+    /**
+     * @param saveResults true to write the replay and submit the score of every game that ends, see
+     *                    {@link GameSession#saveResult()}
+     */
+    public void setSaveResults(boolean saveResults) {
+        this.saveResults = saveResults;
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public JitterStats getJitterStats() {
+        return jitterStats;
+    }
+
+    /**
+     * @return how often the server could not keep up: time slices whose ticks took longer than the slice in
+     * {@link ExecutionMode#BATCHED} mode, ticks which were late by more than a tick interval otherwise
+     */
+    public long getOverruns() {
+        return runner.getOverruns();
+    }
+
+    /**
+     * Stops the scheduler and closes all sessions.
+     */
+    @Override
+    public void close() {
+        try {
+            runner.stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessions.values().forEach(GameSession::close);
+        sessions.clear();
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+        LOG.info("Session manager closed");
+    }
+
+    /**
+     * Saves the result of an ended game, if enabled, and notifies the listener. May block.
+     */
+    private void endSession(GameSession session) {
+        if (saveResults) {
+            try {
+                session.saveResult();
+            } catch (IOException | RuntimeException e) {
+                LOG.error("Error saving the result of session " + session.getId(), e);
+            }
+        }
+        gameOverListener.accept(session);
+    }
+}
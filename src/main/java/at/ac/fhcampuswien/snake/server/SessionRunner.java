@@ -0,0 +1,24 @@
+package at.ac.fhcampuswien.snake.server;
+
+/**
+ * Runs the ticks of the sessions of a {@link SessionManager}, see {@link SessionManager.ExecutionMode}.
+ */
+interface SessionRunner {
+
+    void start();
+
+    /**
+     * Schedules the first tick of a session one tick interval from now. May be called from any thread.
+     */
+    void add(GameSession session);
+
+    /**
+     * Stops all ticks and waits for running ticks to finish.
+     */
+    void stop() throws InterruptedException;
+
+    /**
+     * @return how often the runner could not keep up with the due ticks
+     */
+    long getOverruns();
+}
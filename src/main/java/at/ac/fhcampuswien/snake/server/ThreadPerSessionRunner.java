@@ -0,0 +1,104 @@
+package at.ac.fhcampuswien.snake.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Runs every session on its own thread, which sleeps until the next tick is due.
+ * <p>
+ * With virtual threads the sessions may block, e.g. while their result is written when the game ends, without
+ * holding up the ticks of other sessions or an operating system thread. With platform threads the same code
+ * shows what one native thread per session costs.
+ */
+final class ThreadPerSessionRunner implements SessionRunner {
+
+    private final static Logger LOG = LoggerFactory.getLogger(ThreadPerSessionRunner.class);
+
+    private final ExecutorService executor;
+    private final JitterStats jitterStats;
+    private final Consumer<GameSession> onGameOver;
+    private final LongAdder overruns = new LongAdder();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param executor    starts a thread per session
+     * @param jitterStats counts the lateness of the ticks
+     * @param onGameOver  called on the thread of a session whose game has ended, may block
+     */
+    ThreadPerSessionRunner(ExecutorService executor, JitterStats jitterStats, Consumer<GameSession> onGameOver) {
+        this.executor = executor;
+        this.jitterStats = jitterStats;
+        this.onGameOver = onGameOver;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void add(GameSession session) {
+        try {
+            executor.execute(() -> runSession(session));
+        } catch (RejectedExecutionException e) {
+            // Stopped, sessions created while shutting down are not run
+        }
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        executor.shutdownNow();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            LOG.warn("Session threads did not stop in time");
+        }
+    }
+
+    /**
+     * @return number of ticks which were more than a tick interval late, the missed ticks are skipped
+     */
+    @Override
+    public long getOverruns() {
+        return overruns.sum();
+    }
+
+    private void runSession(GameSession session) {
+        long tickNanos = session.getTickNanos();
+        long dueNanos = System.nanoTime() + tickNanos;
+        while (running && !session.isClosed()) {
+            long wait;
+            while (running && !session.isClosed() && (wait = dueNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running || session.isClosed())
+                return;
+
+            long now = System.nanoTime();
+            jitterStats.add(now - dueNanos);
+            try {
+                session.tick(now);
+            } catch (RuntimeException e) {
+                LOG.error("Error ticking session " + session.getId() + ", closing it", e);
+                session.close();
+                return;
+            }
+            if (session.isGameOver()) {
+                onGameOver.accept(session);
+                return;
+            }
+
+            dueNanos += tickNanos;
+            if (dueNanos < now - tickNanos) {
+                overruns.increment();
+                dueNanos = now;
+            }
+        }
+    }
+}
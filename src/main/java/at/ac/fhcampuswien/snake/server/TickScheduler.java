@@ -0,0 +1,224 @@
+package at.ac.fhcampuswien.snake.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Ticks all sessions of a {@link SessionManager} from one timer thread.
+ * <p>
+ * Time is divided into slices of a fixed length, and every session waits in the slot of a timing wheel for the
+ * slice in which its next tick is due. At the start of a slice the timer thread takes the due sessions out of
+ * their slot, ticks them in batches on a {@link ForkJoinPool}, waits for all batches and puts the sessions into
+ * the slots of their next ticks. So all sessions due in the same slice are ticked together, the timer wakes up
+ * once per slice instead of once per session, and no session is ever ticked by two threads at once.
+ * <p>
+ * Due times are kept in nanoseconds and advanced by exactly one tick interval, so rounding them up to the next
+ * slice does not add up to drift. The lateness of every tick is counted in the {@link JitterStats}.
+ */
+final class TickScheduler implements Runnable, SessionRunner {
+
+    private final static Logger LOG = LoggerFactory.getLogger(TickScheduler.class);
+
+    /**
+     * Number of slots of the timing wheel, a power of two. Sessions due after more than one turn of the wheel
+     * stay in their slot for the next turns.
+     */
+    static final int WHEEL_SIZE = 1024;
+
+    /**
+     * Number of sessions a task ticks itself instead of splitting them further.
+     */
+    static final int BATCH_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final long sliceNanos;
+    private final JitterStats jitterStats;
+    private final Consumer<GameSession> onGameOver;
+    private final Queue<GameSession> added = new ConcurrentLinkedQueue<>();
+    private final List<List<GameSession>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final List<GameSession> due = new ArrayList<>();
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private volatile long overruns;
+    private long startNanos;
+    private long currentSlice;
+
+    /**
+     * @param pool        the pool the ticks run on
+     * @param sliceNanos  length of a slice, the resolution of the due times
+     * @param jitterStats counts the lateness of the ticks
+     * @param onGameOver  called on the timer thread for every session whose game has ended, which is then no longer
+     *                    ticked
+     */
+    TickScheduler(ForkJoinPool pool, long sliceNanos, JitterStats jitterStats, Consumer<GameSession> onGameOver) {
+        this.pool = pool;
+        this.sliceNanos = sliceNanos;
+        this.jitterStats = jitterStats;
+        this.onGameOver = onGameOver;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.thread = new Thread(this, "tick-scheduler");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MAX_PRIORITY);
+    }
+
+    @Override
+    public void start() {
+        startNanos = System.nanoTime();
+        thread.start();
+    }
+
+    /**
+     * Stops the timer thread after the current slice.
+     */
+    @Override
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    @Override
+    public void add(GameSession session) {
+        added.add(session);
+    }
+
+    /**
+     * @return number of slices whose ticks took longer than the slice itself
+     */
+    @Override
+    public long getOverruns() {
+        return overruns;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            long sliceStart = startNanos + currentSlice * sliceNanos;
+            long wait;
+            while (running && (wait = sliceStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running)
+                break;
+
+            scheduleAdded();
+            collectDue();
+            if (!due.isEmpty()) {
+                pool.invoke(new TickTask(0, due.size()));
+                rescheduleDue();
+            }
+            if (System.nanoTime() - sliceStart > sliceNanos) {
+                overruns++;
+            }
+            currentSlice++;
+        }
+    }
+
+    private void scheduleAdded() {
+        GameSession session;
+        while ((session = added.poll()) != null) {
+            session.dueNanos = System.nanoTime() + session.getTickNanos();
+            schedule(session);
+        }
+    }
+
+    /**
+     * Moves the sessions due in the current slice from their slot into {@link #due} and drops closed sessions.
+     */
+    private void collectDue() {
+        List<GameSession> slot = wheel.get((int) (currentSlice & (WHEEL_SIZE - 1)));
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            GameSession session = slot.get(i);
+            if (session.isClosed() || session.dueSlice <= currentSlice) {
+                // Remove without shifting, the order within a slot does not matter.
+                slot.set(i, slot.get(slot.size() - 1));
+                slot.remove(slot.size() - 1);
+                if (!session.isClosed()) {
+                    due.add(session);
+                }
+            }
+        }
+    }
+
+    private void rescheduleDue() {
+        long now = System.nanoTime();
+        for (GameSession session : due) {
+            if (session.isGameOver()) {
+                onGameOver.accept(session);
+            } else if (!session.isClosed()) {
+                session.dueNanos += session.getTickNanos();
+                // After a stall the missed ticks are skipped instead of being caught up in a burst.
+                if (session.dueNanos < now - session.getTickNanos()) {
+                    session.dueNanos = now;
+                }
+                schedule(session);
+            }
+        }
+        due.clear();
+    }
+
+    private void schedule(GameSession session) {
+        long slice = Math.floorDiv(session.dueNanos - startNanos + sliceNanos - 1, sliceNanos);
+        session.dueSlice = Math.max(slice, currentSlice + 1);
+        wheel.get((int) (session.dueSlice & (WHEEL_SIZE - 1))).add(session);
+    }
+
+    /**
+     * Ticks a range of {@link #due}, split in halves until it is small enough for one thread.
+     */
+    private final class TickTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        TickTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                tickBatch();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickTask(from, mid), new TickTask(mid, to));
+        }
+
+        private void tickBatch() {
+            long[] bucketCounts = new long[JitterStats.BUCKETS];
+            long sumNanos = 0;
+            long maxNanos = 0;
+            for (int i = from; i < to; i++) {
+                GameSession session = due.get(i);
+                long now = System.nanoTime();
+                long lateness = Math.max(now - session.dueNanos, 0);
+                bucketCounts[JitterStats.bucket(lateness)]++;
+                sumNanos += lateness;
+                maxNanos = Math.max(maxNanos, lateness);
+                try {
+                    session.tick(now);
+                } catch (RuntimeException e) {
+                    // One broken game must not stop the others.
+                    LOG.error("Error ticking session " + session.getId() + ", closing it", e);
+                    session.close();
+                }
+            }
+            jitterStats.add(bucketCounts, sumNanos, maxNanos);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package at.ac.fhcampuswien.snake.server;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executors which start a new thread per task, virtual threads where the JVM has them.
+ * <p>
+ * The game is built for Java 17, which has no virtual threads. On Java 21 and later
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} is looked up by reflection, otherwise new platform threads
+ * are used, which behave the same but cost a native thread and its stack each. Where the number of tasks is not
+ * limited by anything else, {@link #newBoundedExecutor} falls back to a fixed number of platform threads instead.
+ */
+final class VirtualThreads {
+
+    private final static Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if the JVM supports virtual threads without preview flags
+     */
+    static boolean isAvailable() {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor == null)
+            return false;
+        executor.shutdown();
+        return true;
+    }
+
+    /**
+     * @param name prefix of the names of the threads, if platform threads are used
+     * @return an executor with a virtual thread per task, or with a platform thread per task as fallback
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor != null)
+            return executor;
+        LOG.debug("No virtual threads on Java {}, using platform threads", Runtime.version().feature());
+        return newPlatformThreadPerTaskExecutor(name);
+    }
+
+    /**
+     * Creates an executor for tasks which are submitted in bursts, e.g. the results of many games ending at once.
+     * Virtual threads are cheap enough for one per task, but a platform thread per task could exhaust the memory.
+     *
+     * @param name          prefix of the names of the threads, if platform threads are used
+     * @param threads       number of platform threads
+     * @param queueCapacity number of tasks which may wait for a platform thread. Further tasks run on the thread
+     *                      which submits them, which slows it down instead of starting more threads.
+     * @return an executor with a virtual thread per task, or with a fixed pool of platform threads as fallback
+     */
+    static ExecutorService newBoundedExecutor(String name, int threads, int queueCapacity) {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        if (executor != null)
+            return executor;
+        LOG.debug("No virtual threads on Java {}, using {} platform threads", Runtime.version().feature(), threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), newDaemonThreadFactory(name),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // Idle threads end, so a server without ended games holds none
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * @param name prefix of the names of the threads
+     * @return an executor which starts a new daemon thread for every task which finds no idle thread
+     */
+    static ExecutorService newPlatformThreadPerTaskExecutor(String name) {
+        return Executors.newCachedThreadPool(newDaemonThreadFactory(name));
+    }
+
+    private static ThreadFactory newDaemonThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            // Before Java 19 the method does not exist, Java 19 and 20 throw without --enable-preview
+            return null;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file format of the leaderboards.
+ * <p>
+ * A leaderboard is stored as a snapshot plus a journal. Both start with a 32 byte header, followed by
+ * records of 48 bytes. All numbers are big endian.
+ * <pre>
+ * Header:  magic "SNHS" (4) | version (2) | record size (2) | kind (1) | difficulty (1) | reserved (2)
+ *          | record count (4) | next sequence number (8) | reserved (4) | CRC32 of the preceding bytes (4)
+ * Record:  name length (1) | name, UTF-8, zero padded (31) | score (4) | sequence number (8)
+ *          | CRC32 of the preceding bytes (4)
+ * </pre>
+ * The snapshot contains the entries in rank order, so it can be loaded into a balanced tree in one pass.
+ * Its record count is fixed when it is written. The journal contains the scores saved since the snapshot,
+ * in the order they were saved. Its record count in the header is not used: records are appended until the
+ * end of the file, and a torn record at the end (e.g. after a power loss) is detected by its checksum and cut off
+ * when the journal is replayed.
+ * <p>
+ * Files are read through a {@link MappedByteBuffer}, so loading does not copy the file through the Java heap.
+ */
+public final class HighscoreFile {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HighscoreFile.class);
+
+    public static final int MAGIC = 0x534E4853; // "SNHS"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 48;
+    /**
+     * Longer names are truncated to this many bytes.
+     */
+    public static final int MAX_NAME_BYTES = 31;
+
+    private static final byte KIND_SNAPSHOT = 0;
+    private static final byte KIND_JOURNAL = 1;
+    private static final int HEADER_CRC_OFFSET = 28;
+    private static final int RECORD_SCORE_OFFSET = 32;
+    private static final int RECORD_SEQUENCE_OFFSET = 36;
+    private static final int RECORD_CRC_OFFSET = 44;
+    private static final int WRITE_BUFFER_RECORDS = 1024;
+    private static final byte[] PADDING = new byte[MAX_NAME_BYTES];
+
+    private HighscoreFile() {
+    }
+
+    /**
+     * Shortens a name so it fits into a record, without splitting a character.
+     *
+     * @param name the name of a player
+     * @return the name as it is stored
+     */
+    public static String normalizeName(String name) {
+        if (name.length() * 3 <= MAX_NAME_BYTES || name.getBytes(StandardCharsets.UTF_8).length <= MAX_NAME_BYTES)
+            return name;
+        int end = name.length();
+        while (name.substring(0, end).getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES) {
+            end = Character.isLowSurrogate(name.charAt(end - 1)) ? end - 2 : end - 1;
+        }
+        return name.substring(0, end);
+    }
+
+    /**
+     * Loads a snapshot into an empty leaderboard.
+     *
+     * @param file        the snapshot file
+     * @param difficulty  the difficulty the file is expected to belong to
+     * @param leaderboard the leaderboard to fill
+     * @return the number of entries loaded
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static int readSnapshot(Path file, Difficulty difficulty, Leaderboard leaderboard) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int count = readHeader(buffer, file, KIND_SNAPSHOT, difficulty);
+            long nextSequence = buffer.getLong(16);
+            int available = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+            if (count > available) {
+                LOG.warn("{} is truncated, reading {} of {} records", file, available, count);
+                count = available;
+            }
+
+            Leaderboard.RankedEntries entries = new Leaderboard.RankedEntries(
+                    new String[count], new int[count], new long[count], nextSequence);
+            int valid = 0;
+            byte[] record = new byte[RECORD_SIZE];
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < count; i++) {
+                buffer.get(HEADER_SIZE + i * RECORD_SIZE, record);
+                if (!isValid(record, crc)) {
+                    LOG.warn("Skipping corrupt record {} in {}", i, file);
+                    continue;
+                }
+                ByteBuffer fields = ByteBuffer.wrap(record);
+                entries.names()[valid] = new String(record, 1, record[0], StandardCharsets.UTF_8);
+                entries.scores()[valid] = fields.getInt(RECORD_SCORE_OFFSET);
+                entries.sequences()[valid] = fields.getLong(RECORD_SEQUENCE_OFFSET);
+                valid++;
+            }
+            leaderboard.loadRanked(entries, valid);
+            return valid;
+        }
+    }
+
+    /**
+     * Writes the entries of a leaderboard to a new snapshot, which then atomically replaces the old one.
+     *
+     * @param file        the snapshot file
+     * @param difficulty  the difficulty of the leaderboard
+     * @param leaderboard the leaderboard to write
+     * @return the number of entries written
+     * @throws IOException if the file cannot be written
+     */
+    public static int writeSnapshot(Path file, Difficulty difficulty, Leaderboard leaderboard) throws IOException {
+        Leaderboard.RankedEntries entries = leaderboard.snapshotInRankOrder();
+        int count = entries.names().length;
+        Path target = file.toAbsolutePath();
+        Path temp = Files.createTempFile(target.getParent(), "highscores", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + WRITE_BUFFER_RECORDS * RECORD_SIZE);
+                putHeader(buffer, KIND_SNAPSHOT, difficulty, count, entries.nextSequence());
+                CRC32 crc = new CRC32();
+                for (int i = 0; i < count; i++) {
+                    if (buffer.remaining() < RECORD_SIZE) {
+                        writeFully(channel, buffer);
+                    }
+                    putRecord(buffer, entries.names()[i], entries.scores()[i], entries.sequences()[i], crc);
+                }
+                writeFully(channel, buffer);
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return count;
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Replays the valid records of a journal into a leaderboard, with the sequence numbers they were saved with.
+     * Replay stops at the first corrupt record, e.g. one torn by a crash while it was appended. The journal is
+     * then truncated after the last valid record, so records appended later are aligned and can be read again.
+     *
+     * @param file        the journal file, may not exist
+     * @param difficulty  the difficulty the file is expected to belong to
+     * @param leaderboard the leaderboard to submit the scores to
+     * @return the number of scores replayed
+     * @throws IOException if the file cannot be read or truncated, or has an invalid header
+     */
+    public static int replayJournal(Path file, Difficulty difficulty, Leaderboard leaderboard) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+        int valid;
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            readHeader(buffer, file, KIND_JOURNAL, difficulty);
+
+            int records = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+            byte[] record = new byte[RECORD_SIZE];
+            CRC32 crc = new CRC32();
+            valid = 0;
+            while (valid < records) {
+                buffer.get(HEADER_SIZE + valid * RECORD_SIZE, record);
+                if (!isValid(record, crc)) {
+                    LOG.warn("Journal {} is corrupt after {} records, ignoring the rest", file, valid);
+                    break;
+                }
+                ByteBuffer fields = ByteBuffer.wrap(record);
+                leaderboard.restore(new String(record, 1, record[0], StandardCharsets.UTF_8),
+                        fields.getInt(RECORD_SCORE_OFFSET), fields.getLong(RECORD_SEQUENCE_OFFSET));
+                valid++;
+            }
+        }
+
+        // Truncated after the mapping is closed, some systems do not allow to shrink a mapped file.
+        long validSize = HEADER_SIZE + (long) valid * RECORD_SIZE;
+        if (size != validSize) {
+            LOG.warn("Truncating journal {} from {} to {} bytes", file, size, validSize);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validSize);
+                channel.force(false);
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Appends scores to a journal, creating it if necessary. The records are on the disk when the method returns.
+     *
+     * @param file       the journal file
+     * @param difficulty the difficulty of the leaderboard
+     * @param names      names of the players
+     * @param scores     scores, in the same order as the names
+     * @param sequences  sequence numbers of the submissions, in the same order as the names
+     * @throws IOException if the file cannot be written
+     */
+    public static void appendJournal(Path file, Difficulty difficulty, List<String> names, int[] scores,
+                                     long[] sequences) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + names.size() * RECORD_SIZE);
+            if (channel.size() == 0) {
+                putHeader(buffer, KIND_JOURNAL, difficulty, 0, 0);
+            }
+            CRC32 crc = new CRC32();
+            for (int i = 0; i < names.size(); i++) {
+                putRecord(buffer, names.get(i), scores[i], sequences[i], crc);
+            }
+            writeFully(channel, buffer);
+            channel.force(false);
+        }
+    }
+
+    private static int readHeader(ByteBuffer buffer, Path file, byte kind, Difficulty difficulty) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE)
+            throw new IOException(file + " is too short for a high scores file");
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a high scores file");
+        if (buffer.getShort(4) != VERSION)
+            throw new IOException(file + " has unsupported version " + buffer.getShort(4));
+        if (buffer.getShort(6) != RECORD_SIZE)
+            throw new IOException(file + " has unsupported record size " + buffer.getShort(6));
+
+        byte[] header = new byte[HEADER_CRC_OFFSET];
+        buffer.get(0, header);
+        CRC32 crc = new CRC32();
+        crc.update(header);
+        if ((int) crc.getValue() != buffer.getInt(HEADER_CRC_OFFSET))
+            throw new IOException(file + " has a corrupt header");
+        if (buffer.get(8) != kind || buffer.get(9) != difficulty.ordinal())
+            throw new IOException(file + " does not contain the expected leaderboard");
+        return buffer.getInt(12);
+    }
+
+    private static void putHeader(ByteBuffer buffer, byte kind, Difficulty difficulty, int count,
+                                  long nextSequence) {
+        int start = buffer.position();
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) RECORD_SIZE)
+                .put(kind)
+                .put((byte) difficulty.ordinal())
+                .putShort((short) 0)
+                .putInt(count)
+                .putLong(nextSequence)
+                .putInt(0);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start, HEADER_CRC_OFFSET);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static void putRecord(ByteBuffer buffer, String name, int score, long sequence, CRC32 crc) {
+        int start = buffer.position();
+        byte[] nameBytes = normalizeName(name).getBytes(StandardCharsets.UTF_8);
+        buffer.put((byte) nameBytes.length)
+                .put(nameBytes)
+                .put(PADDING, 0, MAX_NAME_BYTES - nameBytes.length)
+                .putInt(score)
+                .putLong(sequence);
+        crc.reset();
+        crc.update(buffer.array(), start, RECORD_CRC_OFFSET);
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private static boolean isValid(byte[] record, CRC32 crc) {
+        crc.reset();
+        crc.update(record, 0, RECORD_CRC_OFFSET);
+        int stored = ByteBuffer.wrap(record).getInt(RECORD_CRC_OFFSET);
+        return (int) crc.getValue() == stored && record[0] >= 0 && record[0] <= MAX_NAME_BYTES;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
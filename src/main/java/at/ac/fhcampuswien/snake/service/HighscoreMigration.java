@@ -0,0 +1,87 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts high scores in the text format of earlier versions (one {@code name:score} per line) into a
+ * {@link HighscoreFile} snapshot. Later lines of the same name replace earlier ones.
+ * <p>
+ * Usage: {@code HighscoreMigration <text file> <EASY|MEDIUM|HARD> [output directory]}
+ */
+public class HighscoreMigration {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HighscoreMigration.class);
+    private static final String HIGHSCORE_SEPARATOR = ":";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: HighscoreMigration <text file> <EASY|MEDIUM|HARD> [output directory]");
+            System.exit(1);
+        }
+        Path textFile = Paths.get(args[0]);
+        Difficulty difficulty = Difficulty.valueOf(args[1].toUpperCase());
+        Path directory = args.length == 3 ? Paths.get(args[2]) : textFile.toAbsolutePath().getParent();
+        Path snapshot = directory.resolve("highscores-" + difficulty.name().toLowerCase() + ".dat");
+
+        migrate(textFile, difficulty, snapshot);
+    }
+
+    /**
+     * Converts a text file into a snapshot.
+     *
+     * @param textFile   the high scores in text format
+     * @param difficulty the difficulty of the high scores
+     * @param snapshot   the snapshot file to write, replaced if it exists
+     * @return the number of entries written
+     * @throws IOException if a file cannot be read or written
+     */
+    public static int migrate(Path textFile, Difficulty difficulty, Path snapshot) throws IOException {
+        Leaderboard leaderboard = new Leaderboard();
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(textFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!parseLine(line, leaderboard)) {
+                    skipped++;
+                }
+            }
+        }
+        int written = HighscoreFile.writeSnapshot(snapshot, difficulty, leaderboard);
+        LOG.info("Migrated {} high scores from {} to {}, skipped {} invalid lines", written, textFile, snapshot,
+                skipped);
+        return written;
+    }
+
+    /**
+     * Parses a line and submits it to the leaderboard.
+     * The score follows the last separator, so the name may contain the separator itself.
+     *
+     * @param line        The line to parse.
+     * @param leaderboard The leaderboard to submit the score to.
+     * @return false if the line is invalid
+     */
+    private static boolean parseLine(String line, Leaderboard leaderboard) {
+        int separator = line.lastIndexOf(HIGHSCORE_SEPARATOR);
+        if (separator > 0) {
+            try {
+                String name = line.substring(0, separator).trim();
+                int score = Integer.parseInt(line.substring(separator + 1).trim());
+                leaderboard.submit(HighscoreFile.normalizeName(name), score);
+                return true;
+            } catch (NumberFormatException e) {
+                LOG.warn("Invalid score format in line: {}", line, e);
+            }
+        } else {
+            LOG.warn("Invalid line format: {}", line);
+        }
+        return false;
+    }
+}
@@ -1,123 +1,308 @@
 package at.ac.fhcampuswien.snake.service;
 
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
 import at.ac.fhcampuswien.snake.util.Player;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Utility class to manage high scores by reading from and writing to a text file.
+ * Utility class to manage high scores, with one {@link Leaderboard} per difficulty.
+ * <p>
+ * A difficulty can be played on boards of any size, but scores are only comparable on boards of the same size.
+ * The leaderboards therefore only rank games on the {@link ScoreVerifier#isRankedBoard ranked board}; submitted
+ * replays of other boards are rejected by the verifier and never reach a leaderboard or its files.
+ * <p>
+ * Each leaderboard is stored in the binary {@link HighscoreFile} format: a snapshot of all entries in rank order
+ * ({@code highscores-<difficulty>.dat}) and a journal of the scores saved since
+ * ({@code highscores-<difficulty>.journal}). On startup the snapshot is loaded and the journal is replayed,
+ * where a later score of a player replaces the earlier one. Once the journal has grown large compared to the
+ * snapshot, a new snapshot atomically replaces the old one and the journal starts over.
+ * If a file of a difficulty cannot be read, it is renamed to {@code <file>.<time>.corrupt} so it can be
+ * recovered by hand, and no snapshot is written for that difficulty until the next start, so the scores which
+ * could not be loaded are not replaced by a partial leaderboard.
+ * High scores of earlier versions in text format are migrated on first use, see {@link HighscoreMigration}.
+ * <p>
+ * Reading and saving scores never touches the disk on the calling thread. Saved scores are appended by a single
+ * background thread, which writes all scores queued in the meantime in one go.
+ * <p>
+ * Scores submitted together with the replay of their game are only saved after the {@link ScoreVerifier} has
+ * simulated the game and confirmed the score.
  */
 public class HighscoreService {
 
     private static final Logger LOG = LoggerFactory.getLogger(HighscoreService.class);
-    private static final int MAX_HIGHSCORES = 5;
-    private static final String HIGHSCORES_FILE_PATH = "src/main/resources/highscores.txt";
-    private static final String HIGHSCORE_SEPARATOR = ":"; // Assuming ':' as separator
+    /**
+     * Directory of the high scores files, can be overridden with the system property {@code snake.highscores.dir}
+     * (e.g. so benchmarks do not overwrite the real high scores).
+     */
+    private static final String HIGHSCORES_DIRECTORY =
+            System.getProperty("snake.highscores.dir", "src/main/resources");
+    /**
+     * High scores of earlier versions, without difficulty. They are imported as {@link Difficulty#MEDIUM} scores.
+     */
+    private static final String LEGACY_HIGHSCORES_FILE = "highscores.txt";
 
     /**
-     * Retrieves the high scores from the file.
-     *
-     * @return List of top players sorted by score in descending order.
+     * A new snapshot is written when the journal has more records than this fraction of the snapshot
+     * (plus some slack), so writing snapshots stays proportional to the number of saved scores.
      */
-    public static List<Player> getSavedPlayerList() {
-        try {
-            ensureHighscoresFileExists();
-            return Files.lines(Paths.get(HIGHSCORES_FILE_PATH))
-                    .map(HighscoreService::parsePlayer)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
-                    .sorted(Comparator.comparingInt(Player::getScore).reversed())
-                    .limit(MAX_HIGHSCORES)
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            LOG.error("Error retrieving high scores", e);
-            return List.of();
+    private static final int COMPACTION_DIVISOR = 4;
+    private static final int COMPACTION_MIN_RECORDS = 1024;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "highscore-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Scores saved but not yet appended to their journal.
+     */
+    private static final Queue<PendingScore> PENDING_SCORES = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Set while a write is queued which has not yet started to drain {@link #PENDING_SCORES}.
+     */
+    private static final AtomicBoolean WRITE_PENDING = new AtomicBoolean();
+
+    /**
+     * Loaded leaderboards. Guarded by the class lock.
+     */
+    private static final Map<Difficulty, LeaderboardFiles> FILES = new EnumMap<>(Difficulty.class);
+
+    private static final ScoreVerifier VERIFIER = new ScoreVerifier();
+
+    private record PendingScore(Difficulty difficulty, String name, int score, long sequence) {
+    }
+
+    /**
+     * A leaderboard together with its files. The record count of the journal is only used by the writer thread.
+     */
+    private static final class LeaderboardFiles {
+        final Difficulty difficulty;
+        final Path snapshot;
+        final Path journal;
+        final Leaderboard leaderboard = new Leaderboard();
+        int journalRecords;
+        /**
+         * Set if not all high scores could be loaded, the leaderboard is then never written to a snapshot.
+         */
+        boolean loadFailed;
+
+        LeaderboardFiles(Difficulty difficulty) {
+            String baseName = "highscores-" + difficulty.name().toLowerCase();
+            this.difficulty = difficulty;
+            this.snapshot = Paths.get(HIGHSCORES_DIRECTORY, baseName + ".dat");
+            this.journal = Paths.get(HIGHSCORES_DIRECTORY, baseName + ".journal");
+        }
+    }
+
+    /**
+     * Loads the high scores of all difficulties, unless they are already loaded.
+     * Can be called at startup so the first access from the UI does not have to wait for the disk.
+     */
+    public static void load() {
+        for (Difficulty difficulty : Difficulty.values()) {
+            getLeaderboard(difficulty);
         }
     }
 
     /**
-     * Saves a player's high score, maintaining only the top five scores.
+     * Returns the leaderboard of a difficulty, loading it from its log on first use.
      *
-     * @param player The player to save.
+     * @param difficulty Game difficulty level
+     * @return the leaderboard
      */
-    public static void savePlayerHighscore(Player player) {
-        try {
-            ensureHighscoresFileExists();
-            List<Player> players = getSavedPlayerList();
-            players = players.stream()
-                    .filter(p -> !p.getName().equals(player.getName()))
-                    .collect(Collectors.toList());
-            players.add(player);
-            players = players.stream()
-                    .sorted(Comparator.comparingInt(Player::getScore).reversed())
-                    .limit(MAX_HIGHSCORES)
-                    .collect(Collectors.toList());
-            writePlayersToFile(players);
-        } catch (IOException e) {
-            LOG.error("Error saving high score for player: " + player.getName(), e);
+    public static Leaderboard getLeaderboard(Difficulty difficulty) {
+        return getFiles(difficulty).leaderboard;
+    }
+
+    /**
+     * Saves a player's high score. A previous score of a player with the same name is replaced.
+     * The leaderboard is updated immediately, the journal is written in the background.
+     * The score must have been reached on the ranked board, see {@link #submitHighscore}.
+     * Names longer than {@link HighscoreFile#MAX_NAME_BYTES} bytes are shortened.
+     *
+     * @param difficulty Game difficulty level the score was reached in
+     * @param player     The player to save.
+     */
+    public static void savePlayerHighscore(Difficulty difficulty, Player player) {
+        String name = HighscoreFile.normalizeName(player.getName());
+        long sequence = getLeaderboard(difficulty).submit(name, player.getScore());
+        PENDING_SCORES.add(new PendingScore(difficulty, name, player.getScore(), sequence));
+        if (WRITE_PENDING.compareAndSet(false, true)) {
+            WRITER.execute(HighscoreService::writePendingScores);
         }
     }
 
     /**
-     * Ensures that the high scores file exists; creates it if it does not.
+     * Saves the score of a game after verifying it with its replay. The score and the difficulty are taken from
+     * the replay, the score is only saved if the game was played on the ranked board and the simulated game
+     * reaches the score.
      *
-     * @throws IOException if the file cannot be created.
-     */
-    private static void ensureHighscoresFileExists() throws IOException {
-        File file = new File(HIGHSCORES_FILE_PATH);
-        if (!file.exists()) {
-            boolean created = file.createNewFile();
-            if (!created) {
-                throw new IOException("Failed to create highscore file at " + HIGHSCORES_FILE_PATH);
+     * @param name   name of the player
+     * @param replay the recorded game
+     * @return the result of the verification, once the replay is verified and a valid score is saved
+     */
+    public static CompletableFuture<ScoreVerifier.Verification> submitHighscore(String name, Replay replay) {
+        return VERIFIER.submit(replay).thenApply(verification -> {
+            if (verification.isValid()) {
+                savePlayerHighscore(replay.getDifficulty(), new Player(name, verification.simulatedScore()));
+            } else {
+                LOG.warn("Rejected score {} of {}: {} (simulated score {} in tick {}, claimed tick {})",
+                        replay.getFinalScore(), name, verification.verdict(), verification.simulatedScore(),
+                        verification.simulatedTick(), replay.getEndTick());
             }
+            return verification;
+        });
+    }
+
+    /**
+     * Blocks until all saved high scores have been written to the log.
+     */
+    public static void flush() {
+        try {
+            WRITER.submit(() -> {
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.error("Error flushing high scores", e);
         }
     }
 
     /**
-     * Parses a line from the high scores file into a Player object.
-     *
-     * @param line The line to parse.
-     * @return Optional containing the Player if parsing is successful.
+     * Writes pending high scores and stops the background writer. Called when the application exits.
      */
-    private static Optional<Player> parsePlayer(String line) {
-        String[] parts = line.split(HIGHSCORE_SEPARATOR);
-        if (parts.length == 2) {
+    public static void shutdown() {
+        WRITER.shutdown();
+        try {
+            if (!WRITER.awaitTermination(5, TimeUnit.SECONDS)) {
+                LOG.warn("High scores could not be written before shutdown");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static synchronized LeaderboardFiles getFiles(Difficulty difficulty) {
+        LeaderboardFiles files = FILES.get(difficulty);
+        if (files == null) {
+            files = new LeaderboardFiles(difficulty);
+            try {
+                if (!Files.exists(files.snapshot) && !Files.exists(files.journal)) {
+                    migrateTextHighscores(files);
+                }
+            } catch (IOException e) {
+                LOG.error("Error migrating high scores for difficulty " + difficulty, e);
+                files.loadFailed = true;
+            }
             try {
-                String name = parts[0].trim();
-                int score = Integer.parseInt(parts[1].trim());
-                return Optional.of(new Player(name, score));
-            } catch (NumberFormatException e) {
-                LOG.warn("Invalid score format in line: {}", line, e);
+                if (Files.exists(files.snapshot)) {
+                    HighscoreFile.readSnapshot(files.snapshot, difficulty, files.leaderboard);
+                }
+            } catch (IOException e) {
+                LOG.error("Error reading high scores snapshot for difficulty " + difficulty, e);
+                files.loadFailed = true;
+                setAside(files.snapshot);
             }
-        } else {
-            LOG.warn("Invalid line format: {}", line);
+            try {
+                files.journalRecords = HighscoreFile.replayJournal(files.journal, difficulty, files.leaderboard);
+            } catch (IOException e) {
+                LOG.error("Error replaying high scores journal for difficulty " + difficulty, e);
+                files.loadFailed = true;
+                // New scores go into a new journal instead of being appended to the unreadable one.
+                setAside(files.journal);
+            }
+            FILES.put(difficulty, files);
         }
-        return Optional.empty();
+        return files;
     }
 
     /**
-     * Writes the list of players to the high scores file.
-     *
-     * @param players The list of players to write.
-     * @throws IOException if an I/O error occurs.
-     */
-    private static void writePlayersToFile(List<Player> players) throws IOException {
-        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(HIGHSCORES_FILE_PATH))) {
-            for (Player player : players) {
-                writer.write(player.getName() + HIGHSCORE_SEPARATOR + player.getScore());
-                writer.newLine();
-            }
+     * Renames a file which could not be read, so it is neither overwritten nor appended to.
+     */
+    private static void setAside(Path file) {
+        Path corrupt = file.resolveSibling(file.getFileName() + "." + System.currentTimeMillis() + ".corrupt");
+        try {
+            Files.move(file, corrupt);
+            LOG.warn("Moved unreadable high scores file {} to {}", file, corrupt);
         } catch (IOException e) {
-            LOG.error("Error writing high scores to file", e);
-            throw e;
+            LOG.error("Could not move unreadable high scores file " + file + " aside", e);
+        }
+    }
+
+    /**
+     * Converts high scores in text format of earlier versions, if there are any: the log of the same
+     * difficulty, or for {@link Difficulty#MEDIUM} the high scores file without difficulty.
+     */
+    private static void migrateTextHighscores(LeaderboardFiles files) throws IOException {
+        Path textLog = Paths.get(HIGHSCORES_DIRECTORY,
+                "highscores-" + files.difficulty.name().toLowerCase() + ".log");
+        Path legacyFile = Paths.get(HIGHSCORES_DIRECTORY, LEGACY_HIGHSCORES_FILE);
+        if (Files.exists(textLog)) {
+            HighscoreMigration.migrate(textLog, files.difficulty, files.snapshot);
+        } else if (files.difficulty == Difficulty.MEDIUM && Files.exists(legacyFile)) {
+            HighscoreMigration.migrate(legacyFile, files.difficulty, files.snapshot);
+        }
+    }
+
+    /**
+     * Runs on the writer thread. Scores saved after draining started queue another write.
+     */
+    private static void writePendingScores() {
+        WRITE_PENDING.set(false);
+        Map<Difficulty, List<PendingScore>> scoresByDifficulty = new EnumMap<>(Difficulty.class);
+        PendingScore score;
+        while ((score = PENDING_SCORES.poll()) != null) {
+            scoresByDifficulty.computeIfAbsent(score.difficulty(), d -> new ArrayList<>()).add(score);
+        }
+
+        scoresByDifficulty.forEach((difficulty, scores) -> {
+            LeaderboardFiles files = getFiles(difficulty);
+            try {
+                appendToJournal(files, scores);
+                int threshold = files.leaderboard.size() / COMPACTION_DIVISOR + COMPACTION_MIN_RECORDS;
+                if (files.journalRecords > threshold && !files.loadFailed) {
+                    HighscoreFile.writeSnapshot(files.snapshot, difficulty, files.leaderboard);
+                    // Scores saved after the snapshot was taken are still queued and go into the new journal.
+                    Files.deleteIfExists(files.journal);
+                    files.journalRecords = 0;
+                }
+            } catch (IOException e) {
+                LOG.error("Error saving high scores for difficulty " + difficulty, e);
+            }
+        });
+    }
+
+    private static void appendToJournal(LeaderboardFiles files, List<PendingScore> scores) throws IOException {
+        List<String> names = new ArrayList<>(scores.size());
+        int[] points = new int[scores.size()];
+        long[] sequences = new long[scores.size()];
+        for (int i = 0; i < scores.size(); i++) {
+            names.add(scores.get(i).name());
+            points[i] = scores.get(i).score();
+            sequences[i] = scores.get(i).sequence();
         }
+        HighscoreFile.appendJournal(files.journal, files.difficulty, names, points, sequences);
+        files.journalRecords += scores.size();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,368 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.util.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory leaderboard with one entry per player name, ordered by score.
+ * <p>
+ * The entries are kept in an order-statistic treap (a randomized balanced search tree where every node knows
+ * the size of its subtree), so submitting a score, looking up the rank of a player and finding the entry at a
+ * rank all take O(log n), and reading a page of k consecutive entries takes O(log n + k).
+ * A second map from name to entry finds the previous score of a player, which the new score replaces.
+ * <p>
+ * Entries with the same score are ordered by the time they were submitted, earlier first.
+ * All methods are thread-safe.
+ */
+public class Leaderboard {
+
+    private static final class Entry {
+        final String name;
+        final int score;
+        final long sequence;
+        int priority;
+        Entry left;
+        Entry right;
+        int size = 1;
+
+        Entry(String name, int score, long sequence, int priority) {
+            this.name = name;
+            this.score = score;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * The entries in rank order as parallel arrays, see {@link #snapshotInRankOrder()}.
+     */
+    record RankedEntries(String[] names, int[] scores, long[] sequences, long nextSequence) {
+    }
+
+    private Map<String, Entry> entriesByName = new HashMap<>();
+    private Entry root;
+    private long nextSequence;
+    private int seed = 0x2545F491;
+
+    /**
+     * Records the score of a player. A previous score of the same player is replaced, even if it was higher.
+     *
+     * @param name  name of the player
+     * @param score the new score
+     * @return the sequence number of the submission
+     */
+    public synchronized long submit(String name, int score) {
+        long sequence = nextSequence++;
+        put(name, score, sequence);
+        return sequence;
+    }
+
+    /**
+     * Records a score with the sequence number of its original submission, e.g. when a journal is replayed, so
+     * entries with the same score keep their order. A previous score of the same player is replaced.
+     *
+     * @param name     name of the player
+     * @param score    the score
+     * @param sequence the sequence number returned by {@link #submit} when the score was submitted
+     */
+    synchronized void restore(String name, int score, long sequence) {
+        put(name, score, sequence);
+        nextSequence = Math.max(nextSequence, sequence + 1);
+    }
+
+    /**
+     * Fills an empty leaderboard with entries which are already in rank order, in O(n).
+     * Entries which are not in rank order or repeat a name are submitted one by one instead.
+     *
+     * @param entries the entries, e.g. read from a file written from {@link #snapshotInRankOrder()}
+     * @param count   number of entries to take from the arrays
+     */
+    synchronized void loadRanked(RankedEntries entries, int count) {
+        if (root != null)
+            throw new IllegalStateException("Leaderboard is not empty");
+
+        Entry[] nodes = new Entry[count];
+        Map<String, Entry> byName = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+        long maxSequence = entries.nextSequence() - 1;
+        boolean ranked = true;
+        for (int i = 0; i < count && ranked; i++) {
+            Entry entry = new Entry(entries.names()[i], entries.scores()[i], entries.sequences()[i], 0);
+            ranked = (i == 0 || compare(nodes[i - 1], entry) < 0) && byName.put(entry.name, entry) == null;
+            nodes[i] = entry;
+            maxSequence = Math.max(maxSequence, entry.sequence);
+        }
+
+        if (ranked) {
+            entriesByName = byName;
+            nextSequence = maxSequence + 1;
+            root = build(nodes, 0, count - 1, 0);
+        } else {
+            nextSequence = Math.max(nextSequence, entries.nextSequence());
+            for (int i = 0; i < count; i++) {
+                restore(entries.names()[i], entries.scores()[i], entries.sequences()[i]);
+            }
+        }
+    }
+
+    /**
+     * @return all entries in rank order, taken atomically
+     */
+    synchronized RankedEntries snapshotInRankOrder() {
+        int size = size(root);
+        RankedEntries snapshot = new RankedEntries(new String[size], new int[size], new long[size], nextSequence);
+        int i = 0;
+        Deque<Entry> path = new ArrayDeque<>();
+        for (Entry node = root; node != null; node = node.left) {
+            path.push(node);
+        }
+        while (!path.isEmpty()) {
+            Entry next = path.pop();
+            snapshot.names()[i] = next.name;
+            snapshot.scores()[i] = next.score;
+            snapshot.sequences()[i] = next.sequence;
+            i++;
+            for (Entry child = next.right; child != null; child = child.left) {
+                path.push(child);
+            }
+        }
+        return snapshot;
+    }
+
+    public synchronized int size() {
+        return size(root);
+    }
+
+    /**
+     * @param name name of the player
+     * @return the rank of the player, starting at 1, or -1 if the player has no entry
+     */
+    public synchronized int rankOf(String name) {
+        Entry entry = entriesByName.get(name);
+        if (entry == null)
+            return -1;
+
+        int before = 0;
+        Entry node = root;
+        while (node != entry) {
+            if (compare(entry, node) < 0) {
+                node = node.left;
+            } else {
+                before += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return before + size(entry.left) + 1;
+    }
+
+    /**
+     * @param index position in the leaderboard, starting at 0 for the best score
+     * @return the entry at this position
+     */
+    public synchronized Player get(int index) {
+        if (index < 0 || index >= size(root))
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size(root));
+
+        Entry node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return toPlayer(node);
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * @param k number of entries
+     * @return the best k entries, fewer if the leaderboard is smaller
+     */
+    public List<Player> topK(int k) {
+        return page(0, k);
+    }
+
+    /**
+     * Returns the entries around a rank, e.g. to show the neighbours of a player.
+     *
+     * @param rank   rank in the middle, starting at 1
+     * @param radius number of entries before and after the rank
+     * @return up to {@code 2 * radius + 1} entries
+     */
+    public List<Player> around(int rank, int radius) {
+        int from = Math.max(0, rank - 1 - radius);
+        return page(from, rank - 1 + radius + 1 - from);
+    }
+
+    /**
+     * Returns consecutive entries of the leaderboard.
+     *
+     * @param offset index of the first entry, starting at 0
+     * @param limit  maximum number of entries
+     * @return the entries, ordered by rank
+     */
+    public synchronized List<Player> page(int offset, int limit) {
+        List<Player> result = new ArrayList<>(Math.max(0, Math.min(limit, size(root) - offset)));
+        if (offset < 0 || limit <= 0)
+            return result;
+
+        // Descend to the entry at the offset, remembering the ancestors which follow it in order.
+        Deque<Entry> path = new ArrayDeque<>();
+        Entry node = root;
+        int index = offset;
+        while (node != null) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                path.push(node);
+                node = node.left;
+            } else if (index == leftSize) {
+                path.push(node);
+                break;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+
+        // In-order traversal from there.
+        while (!path.isEmpty() && result.size() < limit) {
+            Entry next = path.pop();
+            result.add(toPlayer(next));
+            for (Entry child = next.right; child != null; child = child.left) {
+                path.push(child);
+            }
+        }
+        return result;
+    }
+
+    private void put(String name, int score, long sequence) {
+        Entry previous = entriesByName.get(name);
+        if (previous != null) {
+            root = remove(root, previous);
+        }
+        Entry entry = new Entry(name, score, sequence, nextPriority());
+        root = insert(root, entry);
+        entriesByName.put(name, entry);
+    }
+
+    private static Player toPlayer(Entry entry) {
+        return new Player(entry.name, entry.score);
+    }
+
+    private static int size(Entry node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static void update(Entry node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    /**
+     * Higher scores first, then earlier submissions first.
+     */
+    private static int compare(Entry a, Entry b) {
+        if (a.score != b.score)
+            return Integer.compare(b.score, a.score);
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    /**
+     * Builds a perfectly balanced treap from entries in rank order. The priorities decrease with the depth,
+     * so the heap order holds and entries submitted later find their place as usual.
+     */
+    private static Entry build(Entry[] nodes, int from, int to, int depth) {
+        if (from > to)
+            return null;
+        int mid = (from + to) >>> 1;
+        Entry node = nodes[mid];
+        node.priority = Integer.MAX_VALUE - (depth << 24);
+        node.left = build(nodes, from, mid - 1, depth + 1);
+        node.right = build(nodes, mid + 1, to, depth + 1);
+        update(node);
+        return node;
+    }
+
+    private static Entry insert(Entry node, Entry entry) {
+        if (node == null)
+            return entry;
+        if (compare(entry, node) < 0) {
+            node.left = insert(node.left, entry);
+            if (node.left.priority > node.priority)
+                node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, entry);
+            if (node.right.priority > node.priority)
+                node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private static Entry remove(Entry node, Entry entry) {
+        if (node == null)
+            return null;
+        if (node == entry)
+            return merge(node.left, node.right);
+        if (compare(entry, node) < 0) {
+            node.left = remove(node.left, entry);
+        } else {
+            node.right = remove(node.right, entry);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Joins two subtrees where all entries of the left one come before the entries of the right one.
+     */
+    private static Entry merge(Entry left, Entry right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Entry rotateRight(Entry node) {
+        Entry left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Entry rotateLeft(Entry node) {
+        Entry right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Xorshift, enough to keep the treap balanced.
+     */
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+}
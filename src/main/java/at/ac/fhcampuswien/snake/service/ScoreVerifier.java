@@ -0,0 +1,200 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.replay.ReplayPlayer;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Checks submitted scores by simulating their replay again, without user interface.
+ * <p>
+ * A replay contains only the seed, the settings and the inputs of a game, and the score the client claims.
+ * The score is accepted only if the simulated game ends in the same tick with the same score, so a modified
+ * client cannot submit a score without a game that reaches it under the rules of {@link GameEngine}.
+ * <p>
+ * Before anything is allocated, a replay is rejected if it was not played on a {@link #isRankedBoard ranked
+ * board}, or if it claims more ticks between two inputs than a snake can run straight before hitting a wall.
+ * So the work per replay is bounded by the number of its inputs times the size of the ranked board, whatever
+ * the replay claims.
+ * <p>
+ * Replays are verified in parallel on a {@link ForkJoinPool}, each one on a single thread.
+ */
+public class ScoreVerifier {
+
+    /**
+     * Number of replays a task verifies itself instead of splitting them further.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    public enum Verdict {
+        /**
+         * The simulated game reaches the claimed score in the claimed tick.
+         */
+        VALID,
+        /**
+         * The simulated game ends in the claimed tick, but with another score.
+         */
+        SCORE_MISMATCH,
+        /**
+         * The simulated game ends before the claimed tick or is still running in it, or the snake cannot survive
+         * until the claimed tick with the recorded inputs.
+         */
+        END_MISMATCH,
+        /**
+         * The replay was played on a board whose scores are not ranked, see {@link #isRankedBoard}.
+         */
+        UNRANKED_BOARD,
+        /**
+         * The replay cannot be simulated, e.g. because of an invalid board size.
+         */
+        INVALID_REPLAY
+    }
+
+    /**
+     * Result of a verification.
+     *
+     * @param replay         the verified replay
+     * @param verdict        whether the claimed score is accepted
+     * @param simulatedScore score at the end of the simulation, -1 if the replay was not simulated
+     * @param simulatedTick  last tick of the simulation, -1 if the replay was not simulated
+     */
+    public record Verification(Replay replay, Verdict verdict, int simulatedScore, int simulatedTick) {
+        public boolean isValid() {
+            return verdict == Verdict.VALID;
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a verifier running on the common pool.
+     */
+    public ScoreVerifier() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool to verify replays on
+     */
+    public ScoreVerifier(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Verifies a replay on the calling thread.
+     *
+     * @param replay the replay with the claimed score
+     * @return the result
+     */
+    public static Verification verify(Replay replay) {
+        if (!isRankedBoard(replay.getCols(), replay.getRows()))
+            return new Verification(replay, Verdict.UNRANKED_BOARD, -1, -1);
+        if (!isSurvivable(replay))
+            return new Verification(replay, Verdict.END_MISMATCH, -1, -1);
+
+        GameEngine engine;
+        try {
+            engine = ReplayPlayer.simulate(replay);
+        } catch (IllegalArgumentException e) {
+            return new Verification(replay, Verdict.INVALID_REPLAY, -1, -1);
+        }
+
+        Verdict verdict;
+        if (!engine.isGameOver() || engine.getTick() != replay.getEndTick()) {
+            verdict = Verdict.END_MISMATCH;
+        } else if (engine.getScore() != replay.getFinalScore()) {
+            verdict = Verdict.SCORE_MISMATCH;
+        } else {
+            verdict = Verdict.VALID;
+        }
+        return new Verification(replay, verdict, engine.getScore(), engine.getTick());
+    }
+
+    /**
+     * Scores are only comparable between games on boards of the same size, so only games on the
+     * {@link BoardConfig#DEFAULT default board} are ranked.
+     *
+     * @param cols number of columns of the board
+     * @param rows number of rows of the board
+     * @return true if scores on the board are accepted
+     */
+    public static boolean isRankedBoard(int cols, int rows) {
+        return cols == BoardConfig.DEFAULT.getCols() && rows == BoardConfig.DEFAULT.getRows();
+    }
+
+    /**
+     * A snake which does not turn hits a wall within as many ticks as the board is wide or high, so the claimed
+     * end and every input must follow the previous input, or the start, within that many ticks.
+     *
+     * @return false if the snake is dead before the end tick of the replay, whatever happens in the game
+     */
+    static boolean isSurvivable(Replay replay) {
+        int maxStraightTicks = Math.max(replay.getCols(), replay.getRows());
+        int previousTick = 0;
+        for (int i = 0; i < replay.getInputCount(); i++) {
+            if (replay.getInputTick(i) - previousTick > maxStraightTicks)
+                return false;
+            previousTick = replay.getInputTick(i);
+        }
+        return replay.getEndTick() - previousTick <= maxStraightTicks;
+    }
+
+    /**
+     * Verifies a replay on the pool.
+     *
+     * @param replay the replay with the claimed score
+     * @return the result, once the replay is verified
+     */
+    public CompletableFuture<Verification> submit(Replay replay) {
+        return CompletableFuture.supplyAsync(() -> verify(replay), pool);
+    }
+
+    /**
+     * Verifies many replays in parallel and waits for the results.
+     *
+     * @param replays the replays with the claimed scores
+     * @return the results, in the order of the replays
+     */
+    public List<Verification> verifyAll(List<Replay> replays) {
+        Verification[] results = new Verification[replays.size()];
+        pool.invoke(new VerifyTask(replays, results, 0, replays.size()));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Splits a range of replays in halves until it is small enough to be verified by one thread.
+     */
+    private static final class VerifyTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Replay> replays;
+        private final Verification[] results;
+        private final int from;
+        private final int to;
+
+        VerifyTask(List<Replay> replays, Verification[] results, int from, int to) {
+            this.replays = replays;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = verify(replays.get(i));
+                }
+            } else {
+                int mid = (from + to) >>> 1;
+                invokeAll(new VerifyTask(replays, results, from, mid), new VerifyTask(replays, results, mid, to));
+            }
+        }
+    }
+}
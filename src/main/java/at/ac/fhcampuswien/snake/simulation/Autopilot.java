@@ -0,0 +1,213 @@
+package at.ac.fhcampuswien.snake.simulation;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Plays the game on its own, for the attract mode and as a strong baseline in simulations.
+ * <p>
+ * Every tick a breadth-first search from the head over the free cells of the {@link OccupancyGrid} finds the
+ * shortest paths to the food. The special food is chased only if it can be reached before its time to live
+ * runs out. Before a move is taken, a second search checks that the snake can still reach its tail afterwards,
+ * so it does not lock itself into a dead end. If no food can be reached safely, the snake follows its tail until
+ * the way opens up, and as a last resort moves to the side with the most free space. If following the tail
+ * goes on for longer than a lap of the board, the snake risks the way to the food or takes another way to get
+ * out of the loop.
+ * <p>
+ * The search buffers are allocated once per board size and reused, and cells are marked as visited by writing
+ * the number of the current search instead of clearing an array, so planning does not allocate and costs
+ * O(free cells) per search.
+ */
+public class Autopilot implements DirectionProvider {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final byte NO_MOVE = -1;
+
+    private final int[] neighbourOffsets = new int[DIRECTIONS.length];
+    private int[] queue = new int[0];
+    private int[] visitedStamps = new int[0];
+    private int[] distances = new int[0];
+    private byte[] firstMoves = new byte[0];
+    private int stamp;
+    private boolean goalFound;
+    private int lastLength;
+    private int ticksWithoutFood;
+
+    @Override
+    public Direction nextDirection(GameEngine engine) {
+        ensureCapacity(engine.getBoardConfig().getCellCount());
+        for (Direction direction : DIRECTIONS) {
+            neighbourOffsets[direction.ordinal()] = engine.getNeighbourCell(0, direction);
+        }
+        Snake snake = engine.getSnake();
+        int head = snake.getHeadCell();
+        int tail = snake.getTailCell();
+        // The tail moves away in the same tick, unless the snake is growing.
+        int freedCell = snake.isGrowing() ? -1 : tail;
+
+        // All moves are taken from one search; the safety checks below overwrite the buffers.
+        search(engine, head, freedCell, -1);
+        Food specialFood = engine.getFoodManager().getSpecialFood();
+        Food regularFood = engine.getFoodManager().getRegularFood();
+        byte specialMove = NO_MOVE;
+        if (specialFood != null && isReached(specialFood.getCell())
+                && distances[specialFood.getCell()] <= specialFood.getSpecialFoodTimeToLive()) {
+            specialMove = firstMoves[specialFood.getCell()];
+        }
+        byte regularMove = regularFood != null && isReached(regularFood.getCell())
+                ? firstMoves[regularFood.getCell()] : NO_MOVE;
+        byte tailMove = moveTowards(engine, tail);
+
+        // Following the tail can end in a loop the food never comes into. Once the snake has circled the
+        // whole board without eating, it takes the way to the food even if the check fails, or if the food
+        // is walled in, leaves the loop on another safe way to change the shape of its body.
+        ticksWithoutFood = snake.getLength() == lastLength ? ticksWithoutFood + 1 : 0;
+        lastLength = snake.getLength();
+        if (ticksWithoutFood > visitedStamps.length) {
+            ticksWithoutFood = 0;
+            if (regularMove != NO_MOVE)
+                return turn(snake, DIRECTIONS[regularMove]);
+            for (Direction direction : DIRECTIONS) {
+                if (direction.ordinal() != tailMove && isSafe(engine, direction))
+                    return turn(snake, direction);
+            }
+        }
+
+        if (specialMove != NO_MOVE && isSafe(engine, DIRECTIONS[specialMove]))
+            return turn(snake, DIRECTIONS[specialMove]);
+        if (regularMove != NO_MOVE && isSafe(engine, DIRECTIONS[regularMove]))
+            return turn(snake, DIRECTIONS[regularMove]);
+        if (tailMove != NO_MOVE && isSafe(engine, DIRECTIONS[tailMove]))
+            return turn(snake, DIRECTIONS[tailMove]);
+        for (Direction direction : DIRECTIONS) {
+            if (isSafe(engine, direction))
+                return turn(snake, direction);
+        }
+
+        // Trapped: at least take the way with the most room, it may open up before the snake gets stuck.
+        Direction best = null;
+        int bestArea = 0;
+        for (Direction direction : DIRECTIONS) {
+            int next = engine.getNeighbourCell(head, direction);
+            if (isBlocked(engine.getGrid(), next, freedCell))
+                continue;
+            int area = search(engine, next, freedCell, -1);
+            if (area > bestArea) {
+                bestArea = area;
+                best = direction;
+            }
+        }
+        return best == null ? null : turn(snake, best);
+    }
+
+    private static Direction turn(Snake snake, Direction direction) {
+        return direction == snake.getDirection() ? null : direction;
+    }
+
+    /**
+     * Checks if the snake can still reach its tail after a move, i.e. it can keep moving forever.
+     */
+    private boolean isSafe(GameEngine engine, Direction direction) {
+        Snake snake = engine.getSnake();
+        int tail = snake.getTailCell();
+        boolean tailMoves = !snake.isGrowing();
+        int next = engine.getNeighbourCell(snake.getHeadCell(), direction);
+        if (isBlocked(engine.getGrid(), next, tailMoves ? tail : -1))
+            return false;
+        if (snake.getLength() < 3)
+            return true;
+
+        // After the move the head is at next and the tail has moved one segment towards it.
+        int newTail = tailMoves ? snake.getCell(snake.getLength() - 2) : tail;
+        search(engine, next, tailMoves ? tail : -1, newTail);
+        return goalFound;
+    }
+
+    /**
+     * Returns the first move of a shortest path to a cell or, if the cell itself is blocked (like the tail),
+     * to its nearest free neighbour. Needs the results of a search from the head.
+     */
+    private byte moveTowards(GameEngine engine, int cell) {
+        if (isReached(cell) && distances[cell] > 0)
+            return firstMoves[cell];
+        byte move = NO_MOVE;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction direction : DIRECTIONS) {
+            int neighbour = engine.getNeighbourCell(cell, direction);
+            if (neighbour >= 0 && neighbour < visitedStamps.length && isReached(neighbour)
+                    && distances[neighbour] > 0 && distances[neighbour] < bestDistance) {
+                bestDistance = distances[neighbour];
+                move = firstMoves[neighbour];
+            }
+        }
+        return move;
+    }
+
+    /**
+     * Breadth-first search over the free cells.
+     *
+     * @param start     the cell to start from, counts as visited
+     * @param freedCell an occupied cell which counts as free, or -1
+     * @param goal      a cell, free or not, at which the search stops and sets {@link #goalFound}, or -1
+     * @return the number of visited cells
+     */
+    private int search(GameEngine engine, int start, int freedCell, int goal) {
+        OccupancyGrid grid = engine.getGrid();
+        nextStamp();
+        goalFound = false;
+        visitedStamps[start] = stamp;
+        distances[start] = 0;
+        firstMoves[start] = NO_MOVE;
+        queue[0] = start;
+        int readIndex = 0;
+        int writeIndex = 1;
+        while (readIndex < writeIndex) {
+            int cell = queue[readIndex++];
+            for (int move = 0; move < neighbourOffsets.length; move++) {
+                int neighbour = cell + neighbourOffsets[move];
+                if (neighbour == goal) {
+                    goalFound = true;
+                    return writeIndex;
+                }
+                if (visitedStamps[neighbour] == stamp || isBlocked(grid, neighbour, freedCell))
+                    continue;
+                visitedStamps[neighbour] = stamp;
+                distances[neighbour] = distances[cell] + 1;
+                firstMoves[neighbour] = cell == start ? (byte) move : firstMoves[cell];
+                queue[writeIndex++] = neighbour;
+            }
+        }
+        return writeIndex;
+    }
+
+    private static boolean isBlocked(OccupancyGrid grid, int cell, int freedCell) {
+        return cell != freedCell && grid.isOccupied(cell);
+    }
+
+    private boolean isReached(int cell) {
+        return visitedStamps[cell] == stamp;
+    }
+
+    private void nextStamp() {
+        if (++stamp == 0) {
+            Arrays.fill(visitedStamps, 0);
+            stamp = 1;
+        }
+    }
+
+    private void ensureCapacity(int cellCount) {
+        if (visitedStamps.length != cellCount) {
+            queue = new int[cellCount];
+            visitedStamps = new int[cellCount];
+            distances = new int[cellCount];
+            firstMoves = new byte[cellCount];
+            stamp = 0;
+        }
+    }
+}
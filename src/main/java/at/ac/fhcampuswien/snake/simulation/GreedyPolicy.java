@@ -0,0 +1,62 @@
+package at.ac.fhcampuswien.snake.simulation;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+
+/**
+ * Heads for the nearest food on the shortest path ignoring obstacles, and only avoids cells which are blocked
+ * right now. Roughly plays like a hasty beginner: it never runs into a wall on purpose, but traps itself easily.
+ */
+public class GreedyPolicy implements DirectionProvider {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final GameRandom random;
+
+    /**
+     * @param seed seed to break ties between equally good directions
+     */
+    public GreedyPolicy(long seed) {
+        this.random = new GameRandom(seed);
+    }
+
+    @Override
+    public Direction nextDirection(GameEngine engine) {
+        int cols = engine.getBoardConfig().getCols();
+        int head = engine.getSnake().getHeadCell();
+        int target = nearestFood(engine, head, cols);
+        Direction current = engine.getSnake().getDirection();
+        Direction opposite = GameEngine.getOppositeDirection(current);
+
+        Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (Direction direction : DIRECTIONS) {
+            int cell = engine.getNeighbourCell(head, direction);
+            if (direction == opposite || engine.getGrid().isOccupied(cell))
+                continue;
+            // The random part breaks ties and keeps the snake from running in the same pattern in every game.
+            int distance = 4 * distance(cell, target, cols) + random.nextInt(3);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = direction;
+            }
+        }
+        return best == current ? null : best;
+    }
+
+    private static int nearestFood(GameEngine engine, int head, int cols) {
+        Food regular = engine.getFoodManager().getRegularFood();
+        Food special = engine.getFoodManager().getSpecialFood();
+        if (special != null && (regular == null
+                || distance(head, special.getCell(), cols) < distance(head, regular.getCell(), cols)))
+            return special.getCell();
+        return regular != null ? regular.getCell() : head;
+    }
+
+    static int distance(int from, int to, int cols) {
+        return Math.abs(from % cols - to % cols) + Math.abs(from / cols - to / cols);
+    }
+}
@@ -0,0 +1,219 @@
+package at.ac.fhcampuswien.snake.simulation;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.engine.StepResult;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.CommandLineOptions;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.GameRules;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongFunction;
+
+/**
+ * Plays many games without user interface to see how changes of the {@link GameRules} affect the scores.
+ * <p>
+ * The games of a configuration are split into batches which run in parallel on a {@link ForkJoinPool}.
+ * Every game has its own engine, policy and random numbers, and every batch collects its own
+ * {@link SimulationStats}, so the threads share nothing and the throughput grows with the number of cores.
+ * Game i of a run uses the seed {@code seed + i}, so the results do not depend on the number of threads.
+ * <p>
+ * Usage: {@code MonteCarlo [options]}, see {@link #USAGE}.
+ */
+public class MonteCarlo {
+
+    public static final String USAGE = """
+            Usage: MonteCarlo [options]
+              --games <n>                        games per configuration (default 100000)
+              --difficulty <EASY,MEDIUM,...>     difficulties to simulate (default all)
+              --policy <autopilot,greedy,...>    policies to simulate (default all)
+              --board <n>                        columns and rows of the board (default 20)
+              --threads <n>                      worker threads (default number of cores)
+              --seed <n>                         seed of the first game (default 1)
+              --max-ticks <n>                    stop games after this many ticks (default 100000)
+              --tick-millis <n>                  duration of a tick instead of the one of the difficulty
+              --score-values <regular,special>   points per food instead of the ones of the difficulty
+              --special-ttl <min-max>            ticks a special food stays (default 18-35)
+              --foods-until-special <min-max>    regular foods between special foods (default 5-10)
+            """;
+
+    private static final int BATCH_SIZE = 256;
+
+    public enum Policy {
+        AUTOPILOT(seed -> new Autopilot()),
+        GREEDY(GreedyPolicy::new),
+        RANDOM(RandomPolicy::new);
+
+        private final LongFunction<DirectionProvider> factory;
+
+        Policy(LongFunction<DirectionProvider> factory) {
+            this.factory = factory;
+        }
+
+        public DirectionProvider create(long seed) {
+            return factory.apply(seed);
+        }
+    }
+
+    /**
+     * A variant of the game to simulate.
+     *
+     * @param rules    the rules
+     * @param board    the board
+     * @param policy   who plays the games
+     * @param maxTicks games still running after this many ticks are stopped
+     */
+    public record Configuration(GameRules rules, BoardConfig board, Policy policy, int maxTicks) {
+        @Override
+        public String toString() {
+            return rules.difficulty() + " " + board + " " + policy.name().toLowerCase()
+                    + (rules.isStandard() ? "" : " " + rules);
+        }
+    }
+
+    public static void main(String[] args) {
+        long games = 100_000;
+        List<Difficulty> difficulties = List.of(Difficulty.values());
+        List<Policy> policies = List.of(Policy.values());
+        int boardSize = 20;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        int maxTicks = 100_000;
+        Integer tickMillis = null;
+        int[] scoreValues = null;
+        int[] specialTimeToLive = null;
+        int[] foodsUntilSpecial = null;
+
+        CommandLineOptions options = new CommandLineOptions(args, USAGE);
+        while (options.next()) {
+            switch (options.name()) {
+                case "--games" -> games = options.longValue();
+                case "--difficulty" -> difficulties = options.enumListValue(Difficulty.class);
+                case "--policy" -> policies = options.enumListValue(Policy.class);
+                case "--board" -> boardSize = options.intValue();
+                case "--threads" -> threads = options.intValue();
+                case "--seed" -> seed = options.longValue();
+                case "--max-ticks" -> maxTicks = options.intValue();
+                case "--tick-millis" -> tickMillis = options.intValue();
+                case "--score-values" -> scoreValues = options.pairValue(",");
+                case "--special-ttl" -> specialTimeToLive = options.pairValue("-");
+                case "--foods-until-special" -> foodsUntilSpecial = options.pairValue("-");
+                default -> options.unknown();
+            }
+        }
+
+        BoardConfig board = new BoardConfig(boardSize, boardSize, 1);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        System.out.printf(Locale.ROOT, "%,d games per configuration on %d threads%n", games, threads);
+        for (Difficulty difficulty : difficulties) {
+            GameRules rules = GameRules.forDifficulty(difficulty);
+            if (tickMillis != null)
+                rules = rules.withTickMillis(tickMillis);
+            if (scoreValues != null)
+                rules = rules.withScoreValues(scoreValues[0], scoreValues[1]);
+            if (specialTimeToLive != null)
+                rules = rules.withSpecialFoodTimeToLive(specialTimeToLive[0], specialTimeToLive[1]);
+            if (foodsUntilSpecial != null)
+                rules = rules.withFoodsUntilSpecialFood(foodsUntilSpecial[0], foodsUntilSpecial[1]);
+
+            for (Policy policy : policies) {
+                Configuration configuration = new Configuration(rules, board, policy, maxTicks);
+                long start = System.nanoTime();
+                SimulationStats stats = simulate(configuration, games, seed, pool);
+                print(configuration, stats, System.nanoTime() - start);
+            }
+        }
+        pool.shutdown();
+    }
+
+    /**
+     * Simulates games of a configuration in parallel.
+     *
+     * @param configuration the variant of the game
+     * @param games         number of games
+     * @param seed          seed of the first game, the following games use the following seeds
+     * @param pool          the pool to run the games on
+     * @return the results of all games
+     */
+    public static SimulationStats simulate(Configuration configuration, long games, long seed, ForkJoinPool pool) {
+        return pool.invoke(new SimulateTask(configuration, seed, 0, games));
+    }
+
+    /**
+     * Plays a single game to its end or the tick limit.
+     */
+    static void playGame(Configuration configuration, long seed, SimulationStats stats) {
+        GameEngine engine = new GameEngine(configuration.rules(), configuration.board(), seed);
+        DirectionProvider player = configuration.policy().create(~seed);
+        int specialFoodsEaten = 0;
+        while (!engine.isGameOver() && engine.getTick() < configuration.maxTicks()) {
+            if (engine.step(player.nextDirection(engine)) == StepResult.ATE_SPECIAL_FOOD) {
+                specialFoodsEaten++;
+            }
+        }
+        stats.add(engine, specialFoodsEaten);
+    }
+
+    private static void print(Configuration configuration, SimulationStats stats, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        double tickSeconds = configuration.rules().tickMillis() / 1000.0;
+        SimulationStats.Histogram scores = stats.getScores();
+        SimulationStats.Histogram ticks = stats.getSurvivalTicks();
+        System.out.printf(Locale.ROOT, "%n%s: %.1f s, %,.0f games/s%n", configuration, seconds,
+                stats.getGames() / seconds);
+        System.out.printf(Locale.ROOT, "  score     mean %8.1f | p10 %6d | p50 %6d | p90 %6d | p99 %6d | max %6d%n",
+                scores.mean(), scores.percentile(0.1), scores.percentile(0.5), scores.percentile(0.9),
+                scores.percentile(0.99), scores.max());
+        System.out.printf(Locale.ROOT, "  survival  mean %8.1f s | p10 %6.1f | p50 %6.1f | p90 %6.1f | p99 %6.1f"
+                        + " | max %6.1f (%d ticks of %d ms)%n",
+                ticks.mean() * tickSeconds, ticks.percentile(0.1) * tickSeconds,
+                ticks.percentile(0.5) * tickSeconds, ticks.percentile(0.9) * tickSeconds,
+                ticks.percentile(0.99) * tickSeconds, ticks.max() * tickSeconds, ticks.max(),
+                configuration.rules().tickMillis());
+        System.out.printf(Locale.ROOT, "  special   hit rate %.1f %% (%,d of %,d eaten)%n",
+                stats.getSpecialFoodHitRate() * 100, stats.getSpecialFoodsEaten(), stats.getSpecialFoodsGenerated());
+        if (stats.getTimedOut() > 0) {
+            System.out.printf(Locale.ROOT, "  %,d games stopped after %,d ticks%n", stats.getTimedOut(),
+                    configuration.maxTicks());
+        }
+    }
+
+    /**
+     * Splits a range of games in halves until it is small enough to be played by one thread.
+     */
+    private static final class SimulateTask extends RecursiveTask<SimulationStats> {
+        private static final long serialVersionUID = 1L;
+
+        private final Configuration configuration;
+        private final long seed;
+        private final long from;
+        private final long to;
+
+        SimulateTask(Configuration configuration, long seed, long from, long to) {
+            this.configuration = configuration;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= BATCH_SIZE) {
+                SimulationStats stats = new SimulationStats();
+                for (long game = from; game < to; game++) {
+                    playGame(configuration, seed + game, stats);
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            SimulateTask left = new SimulateTask(configuration, seed, from, mid);
+            left.fork();
+            SimulationStats right = new SimulateTask(configuration, seed, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
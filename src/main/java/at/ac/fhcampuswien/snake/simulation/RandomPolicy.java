@@ -0,0 +1,56 @@
+package at.ac.fhcampuswien.snake.simulation;
+
+import at.ac.fhcampuswien.snake.engine.DirectionProvider;
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRandom;
+
+/**
+ * Turns at random and ignores the food. It avoids cells which are blocked right now, if it can,
+ * so games do not end after a few ticks. Shows how much score the rules hand out to a player without a plan.
+ */
+public class RandomPolicy implements DirectionProvider {
+
+    public static final double DEFAULT_TURN_PROBABILITY = 0.2;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final GameRandom random;
+    private final int turnPercent;
+
+    /**
+     * @param seed seed of the random decisions
+     */
+    public RandomPolicy(long seed) {
+        this(seed, DEFAULT_TURN_PROBABILITY);
+    }
+
+    /**
+     * @param seed            seed of the random decisions
+     * @param turnProbability probability of a turn in a tick where going straight is possible
+     */
+    public RandomPolicy(long seed, double turnProbability) {
+        this.random = new GameRandom(seed);
+        this.turnPercent = (int) Math.round(turnProbability * 100);
+    }
+
+    @Override
+    public Direction nextDirection(GameEngine engine) {
+        int head = engine.getSnake().getHeadCell();
+        Direction current = engine.getSnake().getDirection();
+        boolean straightBlocked = engine.getGrid().isOccupied(engine.getNeighbourCell(head, current));
+        if (!straightBlocked && random.nextInt(100) >= turnPercent)
+            return null;
+
+        // Pick one of the free sides, or give up if both are blocked.
+        Direction opposite = GameEngine.getOppositeDirection(current);
+        int offset = random.nextInt(DIRECTIONS.length);
+        for (int i = 0; i < DIRECTIONS.length; i++) {
+            Direction direction = DIRECTIONS[(offset + i) % DIRECTIONS.length];
+            if (direction != current && direction != opposite
+                    && !engine.getGrid().isOccupied(engine.getNeighbourCell(head, direction)))
+                return direction;
+        }
+        return null;
+    }
+}
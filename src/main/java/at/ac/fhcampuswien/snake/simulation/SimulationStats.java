@@ -0,0 +1,143 @@
+package at.ac.fhcampuswien.snake.simulation;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+
+import java.util.Arrays;
+
+/**
+ * Results of many simulated games: distributions of the score and the survival time, and how many of the
+ * special foods were eaten before they vanished.
+ * <p>
+ * Every worker thread fills its own instance, which are merged at the end, so the threads share no state.
+ */
+public class SimulationStats {
+
+    /**
+     * Exact distribution of non-negative values, stored as one counter per value.
+     */
+    public static final class Histogram {
+        private long[] counts = new long[64];
+        private long total;
+        private long sum;
+        private int max;
+
+        void add(int value) {
+            if (value >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(value + 1, counts.length * 2));
+            }
+            counts[value]++;
+            total++;
+            sum += value;
+            max = Math.max(max, value);
+        }
+
+        void merge(Histogram other) {
+            if (other.counts.length > counts.length) {
+                counts = Arrays.copyOf(counts, other.counts.length);
+            }
+            for (int i = 0; i <= other.max && i < other.counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            sum += other.sum;
+            max = Math.max(max, other.max);
+        }
+
+        public double mean() {
+            return total == 0 ? 0 : (double) sum / total;
+        }
+
+        public int max() {
+            return max;
+        }
+
+        /**
+         * @param fraction e.g. 0.9 for the 90th percentile
+         * @return the smallest value which at least this fraction of the values does not exceed
+         */
+        public int percentile(double fraction) {
+            long rank = (long) Math.ceil(fraction * total);
+            long seen = 0;
+            for (int value = 0; value <= max; value++) {
+                seen += counts[value];
+                if (seen >= rank && seen > 0)
+                    return value;
+            }
+            return max;
+        }
+    }
+
+    private final Histogram scores = new Histogram();
+    private final Histogram survivalTicks = new Histogram();
+    private long games;
+    private long timedOut;
+    private long specialFoodsGenerated;
+    private long specialFoodsEaten;
+
+    /**
+     * Adds the result of a game.
+     *
+     * @param engine            the game after its last tick
+     * @param specialFoodsEaten number of special foods the snake has eaten
+     */
+    void add(GameEngine engine, int specialFoodsEaten) {
+        games++;
+        if (!engine.isGameOver()) {
+            timedOut++;
+        }
+        scores.add(engine.getScore());
+        survivalTicks.add(engine.getTick());
+        this.specialFoodsGenerated += engine.getFoodManager().getSpecialFoodsGenerated();
+        this.specialFoodsEaten += specialFoodsEaten;
+    }
+
+    /**
+     * Adds the results of another instance to this one.
+     *
+     * @param other the results to add
+     * @return this instance
+     */
+    SimulationStats merge(SimulationStats other) {
+        scores.merge(other.scores);
+        survivalTicks.merge(other.survivalTicks);
+        games += other.games;
+        timedOut += other.timedOut;
+        specialFoodsGenerated += other.specialFoodsGenerated;
+        specialFoodsEaten += other.specialFoodsEaten;
+        return this;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return number of games stopped at the tick limit before the snake died
+     */
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    public Histogram getScores() {
+        return scores;
+    }
+
+    public Histogram getSurvivalTicks() {
+        return survivalTicks;
+    }
+
+    public long getSpecialFoodsGenerated() {
+        return specialFoodsGenerated;
+    }
+
+    public long getSpecialFoodsEaten() {
+        return specialFoodsEaten;
+    }
+
+    /**
+     * @return fraction of the special foods which were eaten before they vanished
+     */
+    public double getSpecialFoodHitRate() {
+        return specialFoodsGenerated == 0 ? 0 : (double) specialFoodsEaten / specialFoodsGenerated;
+    }
+}
@@ -0,0 +1,88 @@
+package at.ac.fhcampuswien.snake.util;
+
+import static at.ac.fhcampuswien.snake.util.Constants.GAME_BOARD_SIZE_MEDIUM;
+import static at.ac.fhcampuswien.snake.util.Constants.NUMBER_OF_ROWS_AND_COLS;
+
+/**
+ * Dimensions of the game board, chosen at runtime.
+ * <p>
+ * The game rules only use the number of columns and rows. The cell size in pixels is used for rendering
+ * and is usually computed from the size of the viewport the board is drawn into.
+ */
+public class BoardConfig {
+
+    public static final int MIN_SIZE = 10;
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * The classic 20x20 board on the standard game board canvas.
+     */
+    public static final BoardConfig DEFAULT = forViewport(NUMBER_OF_ROWS_AND_COLS, NUMBER_OF_ROWS_AND_COLS,
+            GAME_BOARD_SIZE_MEDIUM, GAME_BOARD_SIZE_MEDIUM);
+
+    private final int cols;
+    private final int rows;
+    private final double cellSize;
+
+    /**
+     * Creates a board configuration.
+     *
+     * @param cols     number of columns, including the perimeter walls
+     * @param rows     number of rows, including the perimeter walls
+     * @param cellSize size of a cell in pixels
+     */
+    public BoardConfig(int cols, int rows, double cellSize) {
+        if (cols < MIN_SIZE || cols > MAX_SIZE || rows < MIN_SIZE || rows > MAX_SIZE) {
+            throw new IllegalArgumentException("Board size must be between " + MIN_SIZE + " and " + MAX_SIZE
+                    + " cells, but was " + cols + "x" + rows);
+        }
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive, but was " + cellSize);
+        }
+        this.cols = cols;
+        this.rows = rows;
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Creates a board configuration whose cells are as large as possible while the board still fits the viewport.
+     *
+     * @param cols           number of columns, including the perimeter walls
+     * @param rows           number of rows, including the perimeter walls
+     * @param viewportWidth  available width in pixels
+     * @param viewportHeight available height in pixels
+     * @return the board configuration
+     */
+    public static BoardConfig forViewport(int cols, int rows, double viewportWidth, double viewportHeight) {
+        return new BoardConfig(cols, rows, Math.min(viewportWidth / cols, viewportHeight / rows));
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCellCount() {
+        return cols * rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public double getWidth() {
+        return cols * cellSize;
+    }
+
+    public double getHeight() {
+        return rows * cellSize;
+    }
+
+    @Override
+    public String toString() {
+        return cols + "x" + rows;
+    }
+}
@@ -0,0 +1,146 @@
+package at.ac.fhcampuswien.snake.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads the options of a command line tool, e.g. {@code --players 64 --no-prediction}, one at a time:
+ * <pre>{@code
+ * CommandLineOptions options = new CommandLineOptions(args, USAGE);
+ * while (options.next()) {
+ *     switch (options.name()) {
+ *         case "--players" -> players = options.intValue();
+ *         case "--no-prediction" -> predicting = false;
+ *         default -> options.unknown();
+ *     }
+ * }
+ * }</pre>
+ * An option takes the next argument as its value when one of the value methods is called, a flag does not.
+ * An unknown option, a missing value or a value which cannot be parsed ends the program with the message and
+ * the usage on the standard error stream.
+ */
+public final class CommandLineOptions {
+
+    private final String[] args;
+    private final String usage;
+    private int index = -1;
+
+    /**
+     * @param args  the arguments of the main method
+     * @param usage printed after an error
+     */
+    public CommandLineOptions(String[] args, String usage) {
+        this.args = args;
+        this.usage = usage;
+    }
+
+    /**
+     * Moves to the next option.
+     *
+     * @return false if there are no more options
+     */
+    public boolean next() {
+        index++;
+        return index < args.length;
+    }
+
+    /**
+     * @return the name of the current option
+     */
+    public String name() {
+        return args[index];
+    }
+
+    /**
+     * Takes the value of the current option, the argument after its name.
+     *
+     * @return the value
+     */
+    public String value() {
+        if (index + 1 >= args.length)
+            fail("Missing value of " + name());
+        return args[++index];
+    }
+
+    public int intValue() {
+        return parse(Integer::parseInt);
+    }
+
+    public long longValue() {
+        return parse(Long::parseLong);
+    }
+
+    /**
+     * @param type the enum class
+     * @return the constant whose name is the value, ignoring case
+     */
+    public <E extends Enum<E>> E enumValue(Class<E> type) {
+        return parse(value -> Enum.valueOf(type, value.trim().toUpperCase()));
+    }
+
+    /**
+     * @param type the enum class
+     * @return the constants whose names are listed separated by commas, ignoring case
+     */
+    public <E extends Enum<E>> List<E> enumListValue(Class<E> type) {
+        return parse(value -> parseList(value, item -> Enum.valueOf(type, item.toUpperCase())));
+    }
+
+    /**
+     * @return the numbers listed separated by commas
+     */
+    public List<Integer> intListValue() {
+        return parse(value -> parseList(value, Integer::parseInt));
+    }
+
+    /**
+     * @param separator the separator of the two numbers, e.g. {@code "-"} for a range like {@code 12-24}
+     * @return the two numbers
+     */
+    public int[] pairValue(String separator) {
+        return parse(value -> {
+            String[] parts = value.split(separator);
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Expected two numbers separated by '" + separator + "'");
+            return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+        });
+    }
+
+    /**
+     * Ends the program because the current option is not known.
+     */
+    public void unknown() {
+        fail("Unknown option " + name());
+    }
+
+    /**
+     * Prints the message and the usage and ends the program.
+     *
+     * @param message what is wrong with the options
+     */
+    public void fail(String message) {
+        System.err.println(message);
+        System.err.print(usage);
+        System.exit(1);
+    }
+
+    private <T> T parse(Function<String, T> parser) {
+        String option = name();
+        String value = value();
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            fail("Invalid value of " + option + ": " + value + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    private static <T> List<T> parseList(String value, Function<String, T> parser) {
+        List<T> result = new ArrayList<>();
+        for (String item : value.split(",")) {
+            result.add(parser.apply(item.trim()));
+        }
+        return result;
+    }
+}
@@ -3,7 +3,6 @@ package at.ac.fhcampuswien.snake.util;
 public class Constants {
 
     public static final String TITLE = "Snake";
-    public static final String HIGHSCORE_SEPARATOR = "%%%";
 
     public static final int GAME_BOARD_SIZE_MEDIUM = 500;
 
@@ -12,7 +11,8 @@ public class Constants {
 
     public static final int HIGHSCORE_BOARD_HEIGHT = 170;
     public static final int HIGHSCORE_BOARD_WIDTH = GAME_BOARD_SIZE_MEDIUM;
-    public static final int HIGHSCORE_BOARD_NAME_COL_WIDTH = HIGHSCORE_BOARD_WIDTH - 125;
+    public static final int HIGHSCORE_BOARD_RANK_COL_WIDTH = 60;
+    public static final int HIGHSCORE_BOARD_NAME_COL_WIDTH = HIGHSCORE_BOARD_WIDTH - 125 - HIGHSCORE_BOARD_RANK_COL_WIDTH;
     public static final int HIGHSCORE_BOARD_SCORE_COL_WIDTH = 100;
 
     public static final int APP_HEIGHT_MEDIUM = GAME_BOARD_SIZE_MEDIUM + SCOREBOARD_HEIGHT + 25; // + 25 for menu bar
@@ -24,6 +24,14 @@ public class Constants {
     public static final String GAMEBOARD_COLOR_LIGHT = "FFCC66";
     public static final String GAMEBOARD_COLOR_DARK = "CC9933";
 
+    // Repaint only the cells that changed since the last frame instead of the whole board.
+    public static final boolean INCREMENTAL_RENDERING = true;
+
+    // The attract mode starts after the start screen was left alone for this long.
+    public static final int ATTRACT_MODE_IDLE_SECONDS = 30;
+    // Attract mode games are restarted after this many ticks, in case the snake circles without end.
+    public static final int ATTRACT_MODE_MAX_TICKS = 3000;
+
     public final static int INITIAL_SIZE = 4;
     public final static Direction INITIAL_DIRECTION = Direction.RIGHT;
 
@@ -0,0 +1,90 @@
+package at.ac.fhcampuswien.snake.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seedable random number generator for everything random in a game (inner wall, food cells, food types and
+ * timings), so a game can be reproduced exactly from its seed and the player's inputs.
+ * <p>
+ * Uses the SplitMix64 algorithm, which is also behind {@link java.util.SplittableRandom}: the whole state is a
+ * single long, so it can be saved with {@link #getState()} and restored with {@link #setState(long)}, e.g. to
+ * rewind a game. Unlike {@link java.util.Random} it does no synchronization, so every game has its own instance
+ * and games simulated in parallel do not contend on a shared generator. Not thread-safe.
+ */
+public class GameRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final long seed;
+    private long state;
+
+    /**
+     * @param seed the seed, equal seeds give equal sequences
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+        this.state = seed;
+    }
+
+    /**
+     * @return a seed for a new game, different for every call
+     */
+    public static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * @return the seed this generator was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return the current state, which determines all following numbers
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Continues the sequence from a state returned by {@link #getState()}.
+     *
+     * @param state the state to restore
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a uniformly distributed number between 0 (inclusive) and the bound (exclusive).
+     *
+     * @param bound the upper bound, must be positive
+     * @return the random number
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0)
+            throw new IllegalArgumentException("Bound must be positive, but was " + bound);
+
+        // Multiply-shift of the upper 32 bits, retried in the rare cases which would favour some results.
+        long product = (nextLong() >>> 32) * bound;
+        if ((product & 0xFFFFFFFFL) < bound) {
+            long threshold = (1L << 32) % bound;
+            while ((product & 0xFFFFFFFFL) < threshold) {
+                product = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}
@@ -0,0 +1,86 @@
+package at.ac.fhcampuswien.snake.util;
+
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+
+/**
+ * The tunable numbers of the game rules.
+ * <p>
+ * {@link #forDifficulty(Difficulty)} gives the rules of the real game. The {@code with...} methods return
+ * modified copies, e.g. to compare variants of the rules in simulations.
+ *
+ * @param difficulty               Game difficulty level, the leaderboard a game belongs to
+ * @param tickMillis               duration of a tick in milliseconds
+ * @param regularScoreValue        points for a regular food
+ * @param specialScoreValue        points for a special food
+ * @param minSpecialFoodTimeToLive fewest ticks a special food stays on the board
+ * @param maxSpecialFoodTimeToLive most ticks a special food stays on the board
+ * @param minFoodsUntilSpecialFood fewest regular foods to eat before the next special food appears
+ * @param maxFoodsUntilSpecialFood most regular foods to eat before the next special food appears
+ */
+public record GameRules(Difficulty difficulty, int tickMillis, int regularScoreValue, int specialScoreValue,
+                        int minSpecialFoodTimeToLive, int maxSpecialFoodTimeToLive,
+                        int minFoodsUntilSpecialFood, int maxFoodsUntilSpecialFood) {
+
+    private final static int REGULAR_SCORE_VALUE = 1;
+    private final static int SPECIAL_SCORE_VALUE = 3;
+    private final static int MIN_SPECIAL_FOOD_TIME_TO_LIVE = 18;
+    private final static int MAX_SPECIAL_FOOD_TIME_TO_LIVE = 35;
+    private final static int MIN_FOODS_UNTIL_SPECIAL_FOOD = 5;
+    private final static int MAX_FOODS_UNTIL_SPECIAL_FOOD = 10;
+
+    public GameRules {
+        if (tickMillis <= 0)
+            throw new IllegalArgumentException("Tick duration must be positive, but was " + tickMillis);
+        if (minSpecialFoodTimeToLive < 1 || maxSpecialFoodTimeToLive < minSpecialFoodTimeToLive)
+            throw new IllegalArgumentException("Invalid special food time to live: "
+                    + minSpecialFoodTimeToLive + "-" + maxSpecialFoodTimeToLive);
+        if (minFoodsUntilSpecialFood < 0 || maxFoodsUntilSpecialFood < minFoodsUntilSpecialFood)
+            throw new IllegalArgumentException("Invalid number of foods until special food: "
+                    + minFoodsUntilSpecialFood + "-" + maxFoodsUntilSpecialFood);
+    }
+
+    /**
+     * Returns the rules of the real game. The score values are multiplied by 1, 2 or 3 depending on the difficulty.
+     *
+     * @param difficulty Game difficulty level
+     * @return the rules
+     */
+    public static GameRules forDifficulty(Difficulty difficulty) {
+        int scoreValueMultiplier = switch (difficulty) {
+            case EASY -> 1;
+            case MEDIUM -> 2;
+            case HARD -> 3;
+        };
+        return new GameRules(difficulty, difficulty.getRefreshTime(),
+                REGULAR_SCORE_VALUE * scoreValueMultiplier, SPECIAL_SCORE_VALUE * scoreValueMultiplier,
+                MIN_SPECIAL_FOOD_TIME_TO_LIVE, MAX_SPECIAL_FOOD_TIME_TO_LIVE,
+                MIN_FOODS_UNTIL_SPECIAL_FOOD, MAX_FOODS_UNTIL_SPECIAL_FOOD);
+    }
+
+    public GameRules withTickMillis(int tickMillis) {
+        return new GameRules(difficulty, tickMillis, regularScoreValue, specialScoreValue,
+                minSpecialFoodTimeToLive, maxSpecialFoodTimeToLive, minFoodsUntilSpecialFood, maxFoodsUntilSpecialFood);
+    }
+
+    public GameRules withScoreValues(int regularScoreValue, int specialScoreValue) {
+        return new GameRules(difficulty, tickMillis, regularScoreValue, specialScoreValue,
+                minSpecialFoodTimeToLive, maxSpecialFoodTimeToLive, minFoodsUntilSpecialFood, maxFoodsUntilSpecialFood);
+    }
+
+    public GameRules withSpecialFoodTimeToLive(int min, int max) {
+        return new GameRules(difficulty, tickMillis, regularScoreValue, specialScoreValue,
+                min, max, minFoodsUntilSpecialFood, maxFoodsUntilSpecialFood);
+    }
+
+    public GameRules withFoodsUntilSpecialFood(int min, int max) {
+        return new GameRules(difficulty, tickMillis, regularScoreValue, specialScoreValue,
+                minSpecialFoodTimeToLive, maxSpecialFoodTimeToLive, min, max);
+    }
+
+    /**
+     * @return true if these are the rules of the real game, so scores are comparable with the leaderboard
+     */
+    public boolean isStandard() {
+        return equals(forDifficulty(difficulty));
+    }
+}
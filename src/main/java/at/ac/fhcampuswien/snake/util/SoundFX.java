@@ -1,41 +1,192 @@
 package at.ac.fhcampuswien.snake.util;
 
 import javafx.scene.media.AudioClip;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.net.URISyntaxException;
-import java.util.Objects;
+import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+/**
+ * Plays the sound effects of the game.
+ * <p>
+ * The clips are decoded once by {@link #preload()}, with a few voices per sound so that a sound can start again
+ * while it is still playing. The play methods only put the sound into a queue, which a daemon thread works off,
+ * so the game tick never waits for the audio system. If too many sounds are queued, new ones are dropped.
+ * <p>
+ * With the system property {@code snake.sound=off} the class runs headless: no clip is loaded and no thread is
+ * started, e.g. for simulations without the JavaFX media module. {@link #setMuted(boolean)} silences the sounds
+ * while the game runs.
+ */
 public class SoundFX {
 
-    private final static String INTRO_SOUND = "/sounds/game-intro.wav";
-    private final static String BONUS_POINT_SOUND = "/sounds/bonus-point.wav";
-    private final static String EATING_SOUND = "/sounds/eat.mp3";
-    private final static String GAME_OVER_SOUND = "/sounds/game-over.wav";
+    private final static Logger LOG = LoggerFactory.getLogger(SoundFX.class);
+
+    /**
+     * The sound effects with the number of voices that may play at the same time.
+     */
+    public enum Sound {
+        INTRO("/sounds/game-intro.wav", 1),
+        EATING("/sounds/eat.mp3", 3),
+        BONUS_POINT("/sounds/bonus-point.wav", 2),
+        GAME_OVER("/sounds/game-over.wav", 1);
+
+        private final String resourcePath;
+        private final int voices;
+
+        Sound(String resourcePath, int voices) {
+            this.resourcePath = resourcePath;
+            this.voices = voices;
+        }
+    }
+
+    public static final boolean HEADLESS = "off".equalsIgnoreCase(System.getProperty("snake.sound"));
+
+    private static final int QUEUE_CAPACITY = 16;
+
+    private static final BlockingQueue<Sound> EVENTS = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    /**
+     * Voices per sound, indexed by the ordinal of the sound. Only used by the player thread.
+     */
+    private static final AudioClip[][] VOICES = new AudioClip[Sound.values().length][];
+    private static final int[] NEXT_VOICE = new int[Sound.values().length];
+
+    private static volatile boolean muted;
+
+    private static volatile Thread player;
 
     public static void playIntroSound() {
-        playSoundFx(INTRO_SOUND);
+        play(Sound.INTRO);
     }
 
     public static void playEatingSound() {
-        playSoundFx(EATING_SOUND);
+        play(Sound.EATING);
     }
 
     public static void playBonusPointSound() {
-        playSoundFx(BONUS_POINT_SOUND);
+        play(Sound.BONUS_POINT);
     }
 
     public static void playGameOverSound() {
-        playSoundFx(GAME_OVER_SOUND);
+        play(Sound.GAME_OVER);
+    }
+
+    /**
+     * Queues a sound to be played. Does not block and does not allocate.
+     *
+     * @param sound the sound to play
+     */
+    public static void play(Sound sound) {
+        if (HEADLESS || muted)
+            return;
+        if (player == null)
+            preload();
+        if (!EVENTS.offer(sound)) {
+            LOG.debug("Sound {} dropped, the queue is full", sound);
+        }
     }
 
-    private static void playSoundFx(String resourcePath) {
+    /**
+     * Starts the player thread, which decodes all clips before it plays the first sound.
+     * Should be called at startup, otherwise the first sound starts it.
+     */
+    public static synchronized void preload() {
+        if (HEADLESS || player != null)
+            return;
+        player = new Thread(SoundFX::runPlayer, "sound-fx");
+        player.setDaemon(true);
+        player.start();
+    }
+
+    /**
+     * Stops the player thread and all sounds.
+     */
+    public static synchronized void shutdown() {
+        if (player != null) {
+            player.interrupt();
+        }
+    }
+
+    public static boolean isMuted() {
+        return muted;
+    }
+
+    /**
+     * @param muted true to drop all sounds until unmuted
+     */
+    public static void setMuted(boolean muted) {
+        SoundFX.muted = muted;
+        if (muted) {
+            EVENTS.clear();
+        }
+    }
+
+    private static void runPlayer() {
+        long start = System.nanoTime();
+        for (Sound sound : Sound.values()) {
+            VOICES[sound.ordinal()] = loadVoices(sound);
+        }
+        LOG.info("Sounds loaded in {} ms", (System.nanoTime() - start) / 1_000_000);
+
         try {
-            String path = Objects.requireNonNull(SoundFX.class.getResource(resourcePath)).toURI().toString();
-            AudioClip audioClip = new AudioClip(path);
-            audioClip.play();
+            while (!Thread.currentThread().isInterrupted()) {
+                Sound sound = EVENTS.take();
+                if (!muted) {
+                    playVoice(sound);
+                }
+            }
+        } catch (InterruptedException e) {
+            // Shutdown
+        }
+        stopAll();
+    }
+
+    /**
+     * Plays the next voice of a sound, round robin. A voice which still plays is started again from the beginning,
+     * so the oldest instance of a sound makes way for the new one.
+     */
+    private static void playVoice(Sound sound) {
+        AudioClip[] voices = VOICES[sound.ordinal()];
+        if (voices.length == 0)
+            return;
+        int index = NEXT_VOICE[sound.ordinal()];
+        NEXT_VOICE[sound.ordinal()] = (index + 1) % voices.length;
+        AudioClip voice = voices[index];
+        if (voice.isPlaying()) {
+            voice.stop();
+        }
+        voice.play();
+    }
+
+    private static AudioClip[] loadVoices(Sound sound) {
+        try {
+            URL resource = SoundFX.class.getResource(sound.resourcePath);
+            if (resource == null) {
+                LOG.error("Sound {} not found", sound.resourcePath);
+                return new AudioClip[0];
+            }
+            String source = resource.toURI().toString();
+            AudioClip[] voices = new AudioClip[sound.voices];
+            for (int i = 0; i < voices.length; i++) {
+                voices[i] = new AudioClip(source);
+            }
+            return voices;
+        } catch (URISyntaxException | RuntimeException e) {
+            LOG.error("Error loading sound " + sound.resourcePath, e);
+            return new AudioClip[0];
+        }
+    }
 
-        } catch (URISyntaxException e) {
-            e.printStackTrace();
+    private static void stopAll() {
+        for (AudioClip[] voices : VOICES) {
+            if (voices == null)
+                continue;
+            for (AudioClip voice : voices) {
+                voice.stop();
+            }
         }
     }
 }
@@ -7,12 +7,18 @@ import at.ac.fhcampuswien.snake.board.ScoreBoard;
 import at.ac.fhcampuswien.snake.controller.GameOverController;
 import at.ac.fhcampuswien.snake.controller.GameViewController;
 import at.ac.fhcampuswien.snake.controller.MainViewController;
+import at.ac.fhcampuswien.snake.simulation.Autopilot;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.input.InputEvent;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
@@ -22,10 +28,14 @@ import static at.ac.fhcampuswien.snake.util.Constants.*;
  * This class is responsible for switching between the different views and managing the gameBoard state.
  */
 public class StateManager {
+    private final static Logger LOG = LoggerFactory.getLogger(StateManager.class);
+
     private static Stage stage = null;
 
     public static Difficulty difficulty = Difficulty.MEDIUM;
 
+    public static BoardConfig boardConfig = BoardConfig.DEFAULT;
+
     private static GameBoard gameBoard;
 
     private static ScoreBoard scoreBoard;
@@ -57,19 +67,67 @@ public class StateManager {
 
         logo.fitWidthProperty().bind(stage.widthProperty());
 
+        startAttractModeWhenIdle(startScreen);
+
         stage.setScene(startScreen);
         stage.show();
     }
+
+    /**
+     * Starts the attract mode if nobody touches the start screen for {@link Constants#ATTRACT_MODE_IDLE_SECONDS}.
+     */
+    private static void startAttractModeWhenIdle(Scene startScreen) {
+        PauseTransition idleTimer = new PauseTransition(Duration.seconds(ATTRACT_MODE_IDLE_SECONDS));
+        idleTimer.setOnFinished(event -> {
+            // Only if the start screen is still shown, the player may have started a game in the meantime.
+            if (stage.getScene() != startScreen)
+                return;
+            try {
+                switchToAttractMode();
+            } catch (IOException e) {
+                LOG.error("Error switching to the attract mode", e);
+            }
+        });
+        startScreen.addEventFilter(InputEvent.ANY, event -> idleTimer.playFromStart());
+        idleTimer.play();
+    }
+
+    /**
+     * Shows games played by the {@link Autopilot} until a key is pressed, like an arcade cabinet nobody plays on.
+     */
+    public static void switchToAttractMode() throws IOException {
+        stopGameIfRunning();
+
+        FXMLLoader gameBoardViewFxmlLoader = new FXMLLoader(SnakeApp.class.getResource("game-view.fxml"));
+        Scene attractScreen = new Scene(gameBoardViewFxmlLoader.load(), APP_WIDTH_MEDIUM, APP_HEIGHT_MEDIUM);
+        GameViewController gameViewController = gameBoardViewFxmlLoader.getController();
+        gameViewController.setStage(stage);
+        stage.setScene(attractScreen);
+        scoreBoard = new ScoreBoard(gameViewController.getScoreBoardCanvas());
+        gameBoard = new GameBoard(gameViewController.getGameBoardCanvas(), Difficulty.MEDIUM, BoardConfig.DEFAULT,
+                new Autopilot());
+        gameBoard.startAttractMode();
+
+        stage.setOnCloseRequest(event -> gameBoard.stopAnimation());
+    }
     public static void switchToGameOverView() throws IOException {
+        switchToGameOverView(null);
+    }
+
+    /**
+     * @param notice shown below the score, e.g. why the score was not saved, or null
+     */
+    public static void switchToGameOverView(String notice) throws IOException {
         stopGameIfRunning();
 
         FXMLLoader gameOverViewFxmlLoader = new FXMLLoader(SnakeApp.class.getResource("gameover-view.fxml"));
         Scene gameOverScreen = new Scene(gameOverViewFxmlLoader.load(), APP_WIDTH_MEDIUM, APP_HEIGHT_MEDIUM);
         GameOverController gameOverController = gameOverViewFxmlLoader.getController();
         gameOverController.setScoreTextField(String.valueOf(gameBoard.getScore()));
+        gameOverController.setNoticeText(notice);
 
         VBox highScoreVBox = gameOverController.getHighScoreTable();
-        highscoreBoard = new HighscoreBoard(highScoreVBox);
+        highscoreBoard = new HighscoreBoard(highScoreVBox, difficulty);
 
         stage.setScene(gameOverScreen);
         stage.show();
@@ -84,7 +142,7 @@ public class StateManager {
         Canvas gameBoardCanvas = gameViewController.getGameBoardCanvas();
         Canvas scoreBoardCanvas = gameViewController.getScoreBoardCanvas();
         scoreBoard = new ScoreBoard(scoreBoardCanvas);
-        gameBoard = new GameBoard(gameBoardCanvas, difficulty);
+        gameBoard = new GameBoard(gameBoardCanvas, difficulty, boardConfig);
         gameBoard.startGame();
 
         stage.setOnCloseRequest(event -> gameBoard.stopAnimation());
@@ -11,6 +11,7 @@ module at.ac.fhcampuswien.snake {
     exports at.ac.fhcampuswien.snake.controller;
     exports at.ac.fhcampuswien.snake.util;
     exports at.ac.fhcampuswien.snake.board;
+    exports at.ac.fhcampuswien.snake.engine;
     exports at.ac.fhcampuswien.snake.manager;
     exports at.ac.fhcampuswien.snake.ingameobjects;
 
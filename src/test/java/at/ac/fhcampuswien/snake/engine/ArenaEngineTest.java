@@ -0,0 +1,252 @@
+package at.ac.fhcampuswien.snake.engine;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.FreeCellIndex;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static at.ac.fhcampuswien.snake.util.Constants.Direction.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Collisions between the snakes of an {@link ArenaEngine}.
+ * <p>
+ * Two players on a 20x20 board start in row 10 heading right, the heads at (7,10) and (13,10) and the tails at
+ * (4,10) and (10,10). The seed places the food away from the paths, which {@link #step} checks.
+ * <p>
+ * Rollbacks to a {@link ArenaEngine.Checkpoint} are compared with a {@link ArenaEngine#snapshot()} of the same
+ * tick, in games of eight snakes with random turns.
+ */
+class ArenaEngineTest {
+
+    private static final int COLS = 20;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private ArenaEngine arena;
+    private OccupancyGrid grid;
+
+    @BeforeEach
+    void createArena() {
+        arena = new ArenaEngine(GameRules.forDifficulty(Difficulty.MEDIUM), new BoardConfig(COLS, 20, 1), 1, 2);
+        grid = arena.getGrid();
+        assertEquals(cell(7, 10), arena.getSnake(0).getHeadCell());
+        assertEquals(cell(13, 10), arena.getSnake(1).getHeadCell());
+    }
+
+    @Test
+    void headsInSameCellKillBothSnakes() {
+        step(UP, UP);
+        step(RIGHT, LEFT);
+        step(null, null);
+        StepResult[] results = step(null, null);
+
+        // Both heads moved into (10,9)
+        assertEquals(StepResult.GAME_OVER, results[0]);
+        assertEquals(StepResult.GAME_OVER, results[1]);
+        assertTrue(arena.isGameOver());
+        assertFalse(grid.isOccupied(cell(10, 9)));
+        for (int x = 1; x < COLS - 1; x++) {
+            assertFalse(grid.isOccupied(cell(x, 9)), "cell (" + x + ",9)");
+            assertFalse(grid.isOccupied(cell(x, 10)), "cell (" + x + ",10)");
+        }
+    }
+
+    @Test
+    void snakeMayFollowDirectlyBehindTailOfAnother() {
+        // The second snake takes a detour through row 9, the first one catches up with its tail in row 10.
+        step(null, UP);
+        step(null, RIGHT);
+        step(null, DOWN);
+        step(null, RIGHT);
+        step(null, null);
+        step(null, null);
+        assertEquals(cell(13, 10), arena.getSnake(0).getHeadCell());
+        assertEquals(cell(14, 10), arena.getSnake(1).getTailCell());
+
+        StepResult[] results = step(null, null);
+
+        assertEquals(StepResult.MOVED, results[0]);
+        assertEquals(StepResult.MOVED, results[1]);
+        assertEquals(cell(14, 10), arena.getSnake(0).getHeadCell());
+        assertEquals(cell(15, 10), arena.getSnake(1).getTailCell());
+        assertTrue(grid.isOccupied(cell(14, 10)));
+    }
+
+    @Test
+    void headHittingSnakeWhichDiesInSameTickDies() {
+        // The second snake turns back through row 8 above the first one, which runs right in row 9.
+        step(UP, UP);
+        step(RIGHT, UP);
+        step(null, LEFT);
+        step(null, null);
+        step(null, null);
+        StepResult[] results = step(UP, DOWN);
+
+        // Each head moved into the body of the other snake, (11,8) and (10,9)
+        assertEquals(StepResult.GAME_OVER, results[0]);
+        assertEquals(StepResult.GAME_OVER, results[1]);
+        assertEquals(cell(11, 8), arena.getSnake(0).getHeadCell());
+        assertEquals(cell(10, 9), arena.getSnake(1).getHeadCell());
+        for (Snake snake : new Snake[]{arena.getSnake(0), arena.getSnake(1)}) {
+            for (int i = 0; i < snake.getLength(); i++) {
+                assertFalse(grid.isOccupied(snake.getCell(i)));
+            }
+        }
+    }
+
+    @Test
+    void collidedHeadCellStaysBlocked() {
+        // The second snake turns back through row 9 and down into the body of the first one.
+        step(null, UP);
+        step(null, LEFT);
+        step(null, null);
+        step(null, null);
+        StepResult[] results = step(null, DOWN);
+
+        assertEquals(StepResult.MOVED, results[0]);
+        assertEquals(StepResult.GAME_OVER, results[1]);
+        assertEquals(1, arena.getAliveCount());
+        // (10,10) is part of the first snake and stays blocked, the rest of the dead snake is freed
+        assertTrue(grid.isOccupied(cell(10, 10)));
+        for (int x = 10; x <= 13; x++) {
+            assertFalse(grid.isOccupied(cell(x, 9)), "cell (" + x + ",9)");
+        }
+
+        // Until the tail of the first snake moves on
+        step(null, null);
+        assertTrue(grid.isOccupied(cell(10, 10)));
+        step(null, null);
+        assertFalse(grid.isOccupied(cell(10, 10)));
+    }
+
+    @Test
+    void wallCellStaysBlocked() {
+        StepResult[] results = null;
+        for (int i = 0; i < 6; i++) {
+            results = step(null, null);
+        }
+
+        assertEquals(StepResult.MOVED, results[0]);
+        assertEquals(StepResult.GAME_OVER, results[1]);
+        assertEquals(cell(COLS - 1, 10), arena.getSnake(1).getHeadCell());
+        assertTrue(grid.isOccupied(cell(COLS - 1, 10)));
+        assertFalse(grid.isOccupied(cell(COLS - 2, 10)));
+    }
+
+    @Test
+    void rollBackRestoresStateOfCheckpoint() {
+        Random random = new Random(1);
+        int players = 8;
+        Direction[][] inputs = new Direction[10][players];
+        boolean sawDeath = false;
+        boolean sawFood = false;
+
+        // Random snakes rarely eat, so a few games are played until food has been eaten during a rolled back tick
+        for (int seed = 1; seed <= 100 && !(sawDeath && sawFood); seed++) {
+            ArenaEngine game = new ArenaEngine(GameRules.forDifficulty(Difficulty.MEDIUM),
+                    new BoardConfig(COLS, 20, 1), seed, players);
+            ArenaEngine.Checkpoint checkpoint = game.newCheckpoint();
+            while (!game.isGameOver()) {
+                game.checkpoint(checkpoint);
+                game.forgetChangesBefore(checkpoint);
+                ArenaEngine atCheckpoint = game.snapshot();
+
+                int ticks = 1 + random.nextInt(inputs.length);
+                for (int t = 0; t < ticks; t++) {
+                    for (int i = 0; i < players; i++) {
+                        inputs[t][i] = random.nextInt(3) == 0 ? DIRECTIONS[random.nextInt(4)] : null;
+                    }
+                    for (StepResult result : game.step(inputs[t])) {
+                        sawFood |= result == StepResult.ATE_REGULAR_FOOD || result == StepResult.ATE_SPECIAL_FOOD;
+                    }
+                }
+                sawDeath |= game.getAliveCount() < atCheckpoint.getAliveCount();
+                ArenaEngine afterTicks = game.snapshot();
+
+                game.rollBack(checkpoint);
+                assertSameState(atCheckpoint, game);
+
+                // The random state has been restored as well, so the same inputs lead to the same game again
+                for (int t = 0; t < ticks; t++) {
+                    game.step(inputs[t]);
+                }
+                assertSameState(afterTicks, game);
+            }
+        }
+        assertTrue(sawDeath);
+        assertTrue(sawFood);
+    }
+
+    /**
+     * Advances the game and checks that no snake has eaten, which would change the length of the snakes.
+     */
+    private StepResult[] step(Direction first, Direction second) {
+        StepResult[] results = arena.step(new Direction[]{first, second});
+        for (StepResult result : results) {
+            assertTrue(result == StepResult.MOVED || result == StepResult.GAME_OVER, "Food in the way: " + result);
+        }
+        return results;
+    }
+
+    private static int cell(int x, int y) {
+        return y * COLS + x;
+    }
+
+    private static void assertSameState(ArenaEngine expected, ArenaEngine actual) {
+        int tick = expected.getTick();
+        assertEquals(tick, actual.getTick());
+        assertEquals(expected.getAliveCount(), actual.getAliveCount(), "alive snakes in tick " + tick);
+        assertEquals(expected.isGameOver(), actual.isGameOver(), "game over in tick " + tick);
+
+        OccupancyGrid expectedGrid = expected.getGrid();
+        OccupancyGrid actualGrid = actual.getGrid();
+        for (int cell = 0; cell < expectedGrid.getCols() * expectedGrid.getRows(); cell++) {
+            assertEquals(expectedGrid.isOccupied(cell), actualGrid.isOccupied(cell), "cell " + cell + " in tick " + tick);
+        }
+        // The order of the free cells decides where the next food is placed
+        FreeCellIndex expectedFree = expectedGrid.getFreeCells();
+        FreeCellIndex actualFree = actualGrid.getFreeCells();
+        assertEquals(expectedFree.size(), actualFree.size(), "free cells in tick " + tick);
+        for (int i = 0; i < expectedFree.size(); i++) {
+            assertEquals(expectedFree.get(i), actualFree.get(i), "free cell " + i + " in tick " + tick);
+        }
+
+        for (int i = 0; i < expected.getPlayerCount(); i++) {
+            Snake a = expected.getSnake(i);
+            Snake b = actual.getSnake(i);
+            String snake = "snake " + i + " in tick " + tick;
+            assertEquals(expected.getScore(i), actual.getScore(i), snake);
+            assertEquals(a.isAlive(), b.isAlive(), snake);
+            assertEquals(a.getDirection(), b.getDirection(), snake);
+            assertEquals(a.isGrowing(), b.isGrowing(), snake);
+            assertEquals(a.getLength(), b.getLength(), snake);
+            for (int j = 0; j < a.getLength(); j++) {
+                assertEquals(a.getCell(j), b.getCell(j), "segment " + j + " of " + snake);
+            }
+        }
+
+        for (int i = 0; i < expected.getFoodManager().getRegularFoodCount(); i++) {
+            assertSameFood(expected.getFoodManager().getRegularFood(i), actual.getFoodManager().getRegularFood(i),
+                    "regular food " + i + " in tick " + tick);
+        }
+        assertSameFood(expected.getFoodManager().getSpecialFood(), actual.getFoodManager().getSpecialFood(),
+                "special food in tick " + tick);
+    }
+
+    private static void assertSameFood(Food expected, Food actual, String message) {
+        assertEquals(expected == null, actual == null, message);
+        if (expected != null) {
+            assertEquals(expected.getCell(), actual.getCell(), message);
+            assertEquals(expected.getScoreValue(), actual.getScoreValue(), message);
+            assertEquals(expected.getSpecialFoodTimeToLive(), actual.getSpecialFoodTimeToLive(), message);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package at.ac.fhcampuswien.snake.engine;
+
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.FreeCellIndex;
+import at.ac.fhcampuswien.snake.ingameobjects.OccupancyGrid;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.manager.FoodManager;
+import at.ac.fhcampuswien.snake.simulation.GreedyPolicy;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Determinism of the {@link GameEngine}: games with the same seed and inputs are equal after every tick, also
+ * when one of them continues from a {@link GameEngine#snapshot()} or is reset with {@link GameEngine#copyFrom}.
+ * The whole state is compared, including the order of the free cells, which decides where food is placed.
+ * <p>
+ * The inputs are chosen by the {@link GreedyPolicy} from the first game, with a random turn now and then.
+ */
+class GameEngineTest {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @ParameterizedTest
+    @EnumSource(Difficulty.class)
+    void sameSeedAndInputsGiveSameGame(Difficulty difficulty) {
+        int totalScore = 0;
+        for (long seed = 1; seed <= 10; seed++) {
+            GameEngine first = new GameEngine(difficulty, BoardConfig.DEFAULT, seed);
+            GameEngine second = new GameEngine(difficulty, BoardConfig.DEFAULT, seed);
+            Inputs inputs = new Inputs(seed);
+            assertSameState(first, second);
+
+            while (!first.isGameOver()) {
+                Direction input = inputs.next(first);
+                assertEquals(first.step(input), second.step(input), "result in tick " + first.getTick());
+                assertSameState(first, second);
+            }
+            totalScore += first.getScore();
+        }
+        assertTrue(totalScore > 0, "no food eaten");
+    }
+
+    @Test
+    void snapshotAndCopyFromContinueLikeOriginal() {
+        for (long seed = 1; seed <= 10; seed++) {
+            GameEngine game = new GameEngine(Difficulty.MEDIUM, BoardConfig.DEFAULT, seed);
+            GameEngine follower = game.snapshot();
+            Inputs inputs = new Inputs(seed);
+            // A snapshot to rewind the follower to, and the inputs since
+            GameEngine saved = game.snapshot();
+            List<Direction> inputsSinceSaved = new ArrayList<>();
+
+            while (!game.isGameOver()) {
+                Direction input = inputs.next(game);
+                game.step(input);
+                follower.step(input);
+                inputsSinceSaved.add(input);
+                assertSameState(game, follower);
+
+                int tick = game.getTick();
+                if (tick % 37 == 0) {
+                    // A new engine from a snapshot
+                    follower = game.snapshot();
+                    assertSameState(game, follower);
+                } else if (tick % 23 == 0) {
+                    // The follower is rewound to an earlier snapshot and plays the same ticks again
+                    follower.copyFrom(saved);
+                    assertEquals(saved.getTick(), follower.getTick());
+                    for (Direction again : inputsSinceSaved) {
+                        follower.step(again);
+                    }
+                    assertSameState(game, follower);
+                    saved.copyFrom(game);
+                    inputsSinceSaved.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Inputs of the greedy policy, with a random direction in every 20th tick on average.
+     */
+    private static final class Inputs {
+        private final GreedyPolicy policy;
+        private final Random random;
+
+        Inputs(long seed) {
+            this.policy = new GreedyPolicy(~seed);
+            this.random = new Random(seed);
+        }
+
+        Direction next(GameEngine game) {
+            Direction planned = policy.nextDirection(game);
+            return random.nextInt(20) == 0 ? DIRECTIONS[random.nextInt(4)] : planned;
+        }
+    }
+
+    private static void assertSameState(GameEngine expected, GameEngine actual) {
+        int tick = expected.getTick();
+        assertEquals(tick, actual.getTick());
+        assertEquals(expected.getScore(), actual.getScore(), "score in tick " + tick);
+        assertEquals(expected.isGameOver(), actual.isGameOver(), "game over in tick " + tick);
+
+        OccupancyGrid expectedGrid = expected.getGrid();
+        OccupancyGrid actualGrid = actual.getGrid();
+        for (int cell = 0; cell < expectedGrid.getCols() * expectedGrid.getRows(); cell++) {
+            assertEquals(expectedGrid.isOccupied(cell), actualGrid.isOccupied(cell), "cell " + cell + " in tick " + tick);
+        }
+        FreeCellIndex expectedFree = expectedGrid.getFreeCells();
+        FreeCellIndex actualFree = actualGrid.getFreeCells();
+        assertEquals(expectedFree.size(), actualFree.size(), "free cells in tick " + tick);
+        for (int i = 0; i < expectedFree.size(); i++) {
+            assertEquals(expectedFree.get(i), actualFree.get(i), "free cell " + i + " in tick " + tick);
+        }
+
+        Snake a = expected.getSnake();
+        Snake b = actual.getSnake();
+        assertEquals(a.isAlive(), b.isAlive(), "snake in tick " + tick);
+        assertEquals(a.getDirection(), b.getDirection(), "snake in tick " + tick);
+        assertEquals(a.isGrowing(), b.isGrowing(), "snake in tick " + tick);
+        assertEquals(a.getLength(), b.getLength(), "snake in tick " + tick);
+        for (int i = 0; i < a.getLength(); i++) {
+            assertEquals(a.getCell(i), b.getCell(i), "segment " + i + " in tick " + tick);
+        }
+
+        FoodManager expectedFoods = expected.getFoodManager();
+        FoodManager actualFoods = actual.getFoodManager();
+        assertEquals(expectedFoods.getSpecialFoodsGenerated(), actualFoods.getSpecialFoodsGenerated(),
+                "special foods in tick " + tick);
+        assertSameFood(expectedFoods.getRegularFood(), actualFoods.getRegularFood(), "regular food in tick " + tick);
+        assertSameFood(expectedFoods.getSpecialFood(), actualFoods.getSpecialFood(), "special food in tick " + tick);
+    }
+
+    private static void assertSameFood(Food expected, Food actual, String message) {
+        assertEquals(expected == null, actual == null, message);
+        if (expected != null) {
+            assertEquals(expected.getCell(), actual.getCell(), message);
+            assertEquals(expected.getScoreValue(), actual.getScoreValue(), message);
+            assertEquals(expected.getSpecialFoodTimeToLive(), actual.getSpecialFoodTimeToLive(), message);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package at.ac.fhcampuswien.snake.net;
+
+import at.ac.fhcampuswien.snake.engine.ArenaEngine;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import at.ac.fhcampuswien.snake.util.GameRules;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of {@link ArenaProtocol#writeTick} and {@link ArenaProtocol#readTick}. The player counts cover a
+ * single snake, exactly one and a bit more than one byte of directions, and the maximum.
+ */
+class ArenaProtocolTest {
+
+    private static final GameRules RULES = GameRules.forDifficulty(Difficulty.HARD);
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 5, 64})
+    void ticksOfGamesRoundTrip(int players) {
+        Random random = new Random(players);
+        Direction[] inputs = new Direction[players];
+        ArenaDelta delta = new ArenaDelta(players);
+        boolean sawDeath = false;
+        boolean sawFoodChange = false;
+
+        // Random snakes rarely eat, so a few games are played until food has been eaten
+        for (int seed = 1; seed <= 100 && !(sawDeath && sawFoodChange); seed++) {
+            ArenaEngine arena = new ArenaEngine(RULES, new BoardConfig(48, 48, 1), seed, players);
+            while (!arena.isGameOver()) {
+                for (int i = 0; i < players; i++) {
+                    inputs[i] = random.nextInt(4) == 0 ? DIRECTIONS[random.nextInt(4)] : null;
+                }
+                delta.begin(arena);
+                arena.step(inputs);
+                delta.end(arena);
+                assertRoundTrip(arena, delta);
+                sawDeath |= delta.getDiedMask() != 0;
+                sawFoodChange |= delta.getFoodChangeCount() > 0;
+            }
+        }
+        assertTrue(sawDeath);
+        assertTrue(sawFoodChange);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 5, 64})
+    void directionsDeathsAndFoodsRoundTrip(int players) {
+        // A board of the largest size, so food cells need three bytes
+        ArenaEngine arena = new ArenaEngine(RULES, new BoardConfig(BoardConfig.MAX_SIZE, BoardConfig.MAX_SIZE, 1),
+                7, players);
+        for (int i = 0; i < players; i++) {
+            arena.getSnake(i).setDirection(DIRECTIONS[(i * 3 + i / 4) % 4]);
+        }
+        ArenaDelta delta = new ArenaDelta(players);
+        delta.clear(players == 64 ? 0x8000_0000_0000_0001L | 1L << 37 : (1L << players) - 1);
+        // The last slot loses its food, the others move to cells whose encoding needs 1 to 3 bytes
+        int[] cells = {0, 126, 127, 16_383, BoardConfig.MAX_SIZE * BoardConfig.MAX_SIZE - 2};
+        int slots = ArenaEngine.getRegularFoodCount(players) + 1;
+        for (int slot = 0; slot < slots; slot++) {
+            delta.addFoodChange(slot, slot == slots - 1 ? -1 : cells[slot % cells.length]);
+        }
+
+        assertRoundTrip(arena, delta);
+    }
+
+    private static void assertRoundTrip(ArenaEngine arena, ArenaDelta delta) {
+        ByteBuffer buffer = ByteBuffer.allocate(ArenaProtocol.MAX_FRAME_SIZE);
+        ArenaProtocol.writeTick(buffer, arena, delta);
+        buffer.flip();
+        ByteBuffer frame = ArenaProtocol.nextFrame(buffer);
+        assertNotNull(frame);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(ArenaProtocol.TICK, frame.get());
+
+        Direction[] directions = new Direction[arena.getPlayerCount()];
+        ArenaDelta received = new ArenaDelta(arena.getPlayerCount());
+        assertEquals(arena.getTick(), ArenaProtocol.readTick(frame, directions, received));
+        assertFalse(frame.hasRemaining());
+        for (int i = 0; i < directions.length; i++) {
+            assertEquals(arena.getSnake(i).getDirection(), directions[i], "direction of player " + i);
+        }
+        assertEquals(delta.getDiedMask(), received.getDiedMask());
+        assertEquals(delta.getFoodChangeCount(), received.getFoodChangeCount());
+        for (int i = 0; i < delta.getFoodChangeCount(); i++) {
+            assertEquals(delta.getChangedFoodSlot(i), received.getChangedFoodSlot(i));
+            assertEquals(delta.getChangedFoodCell(i), received.getChangedFoodCell(i));
+        }
+        assertTrue(received.matches(delta));
+    }
+}
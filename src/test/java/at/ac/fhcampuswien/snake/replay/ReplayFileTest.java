@@ -0,0 +1,193 @@
+package at.ac.fhcampuswien.snake.replay;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.ingameobjects.Food;
+import at.ac.fhcampuswien.snake.ingameobjects.Snake;
+import at.ac.fhcampuswien.snake.simulation.GreedyPolicy;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of recorded games through {@link ReplayFile}, and their simulation by the {@link ReplayPlayer}.
+ * The games are played by the {@link GreedyPolicy}, mostly with some random turns, so the inputs include
+ * reversals and turns into the current direction, which the engine ignores but the replay has to keep.
+ */
+class ReplayFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recordedGamesRoundTripAndReachTheirScore() throws IOException {
+        for (long seed = 1; seed <= 10; seed++) {
+            Difficulty difficulty = Difficulty.values()[(int) (seed % Difficulty.values().length)];
+            Replay recorded = playGame(difficulty, seed, true);
+            Path file = directory.resolve("game-" + seed + ReplayFile.EXTENSION);
+
+            int size = ReplayFile.write(file, recorded);
+            assertEquals(Files.size(file), size);
+            Replay read = ReplayFile.read(file);
+
+            assertSameReplay(recorded, read);
+            GameEngine simulated = ReplayPlayer.simulate(read);
+            assertTrue(simulated.isGameOver(), "seed " + seed);
+            assertEquals(recorded.getEndTick(), simulated.getTick(), "seed " + seed);
+            assertEquals(recorded.getFinalScore(), simulated.getScore(), "seed " + seed);
+            ReplayPlayer player = new ReplayPlayer(read);
+            assertEquals(recorded.getFinalScore(), player.playToEnd(), "seed " + seed);
+            assertEquals(recorded.getEndTick(), player.getTick(), "seed " + seed);
+        }
+    }
+
+    /**
+     * Gaps between inputs at the limits of one, two, three and four varint bytes, with all four directions
+     * in the two lowest bits, and a board and score which need two-byte varints as well.
+     */
+    @Test
+    void varintsOfAllSizesRoundTrip() throws IOException {
+        int[] gaps = {1, 2, 32, 33, 4096, 4097, 524_288, 524_289, 1};
+        int[] ticks = new int[gaps.length];
+        Direction[] directions = new Direction[gaps.length];
+        int tick = 0;
+        for (int i = 0; i < gaps.length; i++) {
+            tick += gaps[i];
+            ticks[i] = tick;
+            directions[i] = Direction.values()[i % 4];
+        }
+        Replay replay = new Replay(-1L, Difficulty.HARD, BoardConfig.MAX_SIZE, 128, ticks, directions, tick + 1,
+                300_000);
+        Path file = directory.resolve("varints" + ReplayFile.EXTENSION);
+
+        ReplayFile.write(file, replay);
+
+        assertSameReplay(replay, ReplayFile.read(file));
+    }
+
+    @Test
+    void corruptOrTruncatedFileIsRejected() throws IOException {
+        Path file = directory.resolve("corrupt" + ReplayFile.EXTENSION);
+        ReplayFile.write(file, playGame(Difficulty.MEDIUM, 3, true));
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] flipped = bytes.clone();
+        flipped[flipped.length / 2] ^= 0x10;
+        Files.write(file, flipped);
+        IOException corrupt = assertThrows(IOException.class, () -> ReplayFile.read(file));
+        assertTrue(corrupt.getMessage().endsWith("is corrupt"), corrupt.getMessage());
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> ReplayFile.read(file));
+    }
+
+    @Test
+    void seekRestoresStateOfEveryTick() throws IOException {
+        Path file = directory.resolve("seek" + ReplayFile.EXTENSION);
+        // Without random turns, so the game lasts long enough for several snapshots
+        ReplayFile.write(file, playGame(Difficulty.MEDIUM, 7, false));
+        Replay replay = ReplayFile.read(file);
+        List<GameEngine> states = simulateAllTicks(replay);
+        assertTrue(states.size() > 100, "game is too short: " + states.size() + " ticks");
+
+        ReplayPlayer player = new ReplayPlayer(replay, 16);
+        Random random = new Random(7);
+        // Forward past the snapshots not taken yet, then back and forth between the snapshots taken
+        player.seek(states.size() / 2);
+        assertSameState(states.get(states.size() / 2), player.getEngine());
+        for (int i = 0; i < 200; i++) {
+            int tick = random.nextInt(states.size());
+            player.seek(tick);
+            assertSameState(states.get(tick), player.getEngine());
+        }
+        player.seek(Integer.MAX_VALUE);
+        assertTrue(player.isFinished());
+        assertSameState(states.get(states.size() - 1), player.getEngine());
+    }
+
+    /**
+     * @param randomTurns true to take a random direction in every 20th tick on average
+     */
+    private static Replay playGame(Difficulty difficulty, long seed, boolean randomTurns) {
+        GameEngine engine = new GameEngine(difficulty, BoardConfig.DEFAULT, seed);
+        ReplayRecorder recorder = new ReplayRecorder(engine);
+        GreedyPolicy policy = new GreedyPolicy(~seed);
+        Random random = new Random(seed);
+        while (!engine.isGameOver()) {
+            Direction input = randomTurns && random.nextInt(20) == 0
+                    ? Direction.values()[random.nextInt(4)]
+                    : policy.nextDirection(engine);
+            engine.step(input);
+            recorder.record(input);
+        }
+        return recorder.toReplay();
+    }
+
+    /**
+     * @return the state after every tick, the one before the first tick at index 0
+     */
+    private static List<GameEngine> simulateAllTicks(Replay replay) {
+        GameEngine engine = new GameEngine(replay.getDifficulty(), replay.getBoardConfig(), replay.getSeed());
+        List<GameEngine> states = new ArrayList<>();
+        states.add(engine.snapshot());
+        int nextInput = 0;
+        while (!engine.isGameOver()) {
+            Direction input = null;
+            if (nextInput < replay.getInputCount() && replay.getInputTick(nextInput) == engine.getTick() + 1) {
+                input = replay.getInputDirection(nextInput++);
+            }
+            engine.step(input);
+            states.add(engine.snapshot());
+        }
+        return states;
+    }
+
+    private static void assertSameReplay(Replay expected, Replay actual) {
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getDifficulty(), actual.getDifficulty());
+        assertEquals(expected.getCols(), actual.getCols());
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getEndTick(), actual.getEndTick());
+        assertEquals(expected.getFinalScore(), actual.getFinalScore());
+        assertEquals(expected.getInputCount(), actual.getInputCount());
+        for (int i = 0; i < expected.getInputCount(); i++) {
+            assertEquals(expected.getInputTick(i), actual.getInputTick(i), "tick of input " + i);
+            assertEquals(expected.getInputDirection(i), actual.getInputDirection(i), "direction of input " + i);
+        }
+    }
+
+    private static void assertSameState(GameEngine expected, GameEngine actual) {
+        String tick = "tick " + expected.getTick();
+        assertEquals(expected.getTick(), actual.getTick());
+        assertEquals(expected.getScore(), actual.getScore(), tick);
+        assertEquals(expected.isGameOver(), actual.isGameOver(), tick);
+        Snake a = expected.getSnake();
+        Snake b = actual.getSnake();
+        assertEquals(a.getDirection(), b.getDirection(), tick);
+        assertEquals(a.getLength(), b.getLength(), tick);
+        for (int i = 0; i < a.getLength(); i++) {
+            assertEquals(a.getCell(i), b.getCell(i), "segment " + i + " in " + tick);
+        }
+        assertSameFood(expected.getFoodManager().getRegularFood(), actual.getFoodManager().getRegularFood(), tick);
+        assertSameFood(expected.getFoodManager().getSpecialFood(), actual.getFoodManager().getSpecialFood(), tick);
+    }
+
+    private static void assertSameFood(Food expected, Food actual, String tick) {
+        assertEquals(expected == null, actual == null, tick);
+        if (expected != null) {
+            assertEquals(expected.getCell(), actual.getCell(), tick);
+            assertEquals(expected.getSpecialFoodTimeToLive(), actual.getSpecialFoodTimeToLive(), tick);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Journals of {@link HighscoreFile} whose last append was torn, e.g. by a power loss. The valid records must
+ * survive, and records appended after the journal has been replayed must be readable on the next start.
+ */
+class HighscoreFileTest {
+
+    private static final Difficulty DIFFICULTY = Difficulty.HARD;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * @param tornBytes bytes of the record which reached the disk, a whole record with a wrong checksum for
+     *                  {@link HighscoreFile#RECORD_SIZE}
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, HighscoreFile.RECORD_SIZE - 1, HighscoreFile.RECORD_SIZE})
+    void tornRecordIsCutOffAndLaterAppendsCanBeRead(int tornBytes) throws IOException {
+        Path journal = directory.resolve("highscores-hard.journal");
+        HighscoreFile.appendJournal(journal, DIFFICULTY, List.of("anna", "bert", "clara"),
+                new int[]{30, 10, 20}, new long[]{0, 1, 2});
+        long validSize = Files.size(journal);
+        Files.write(journal, tornRecord(tornBytes), StandardOpenOption.APPEND);
+
+        Leaderboard afterCrash = new Leaderboard();
+        assertEquals(3, HighscoreFile.replayJournal(journal, DIFFICULTY, afterCrash));
+        assertEntries(afterCrash, new String[]{"anna", "clara", "bert"}, new int[]{30, 20, 10}, new long[]{0, 2, 1});
+        assertEquals(validSize, Files.size(journal));
+
+        // The next scores get the sequence numbers after the replayed ones, like in the HighscoreService
+        long sequence = afterCrash.submit("dora", 25);
+        assertEquals(3, sequence);
+        HighscoreFile.appendJournal(journal, DIFFICULTY, List.of("dora", "anna"), new int[]{25, 40},
+                new long[]{sequence, afterCrash.submit("anna", 40)});
+
+        Leaderboard nextStart = new Leaderboard();
+        assertEquals(5, HighscoreFile.replayJournal(journal, DIFFICULTY, nextStart));
+        assertEntries(nextStart, new String[]{"anna", "dora", "clara", "bert"}, new int[]{40, 25, 20, 10},
+                new long[]{4, 3, 2, 1});
+        assertEquals(5, nextStart.submit("emil", 5));
+    }
+
+    /**
+     * @return the first bytes of a valid record, or a whole record with a flipped bit in its score
+     */
+    private byte[] tornRecord(int length) throws IOException {
+        Path other = directory.resolve("other.journal");
+        HighscoreFile.appendJournal(other, DIFFICULTY, List.of("torn"), new int[]{50}, new long[]{3});
+        byte[] record = Arrays.copyOfRange(Files.readAllBytes(other), HighscoreFile.HEADER_SIZE,
+                HighscoreFile.HEADER_SIZE + length);
+        if (length == HighscoreFile.RECORD_SIZE) {
+            record[35] ^= 1;
+        }
+        return record;
+    }
+
+    private static void assertEntries(Leaderboard leaderboard, String[] names, int[] scores, long[] sequences) {
+        Leaderboard.RankedEntries entries = leaderboard.snapshotInRankOrder();
+        assertArrayEquals(names, entries.names());
+        assertArrayEquals(scores, entries.scores());
+        assertArrayEquals(sequences, entries.sequences());
+    }
+}
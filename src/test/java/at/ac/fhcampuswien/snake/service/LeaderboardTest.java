@@ -0,0 +1,162 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.util.Player;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the treap of {@link Leaderboard} against a sorted list.
+ */
+class LeaderboardTest {
+
+    private record Expected(String name, int score, long sequence) {
+    }
+
+    private static final Comparator<Expected> RANK_ORDER = Comparator.comparingInt((Expected e) -> -e.score())
+            .thenComparingLong(Expected::sequence);
+
+    @Test
+    void randomSubmissionsMatchSortedList() {
+        Random random = new Random(42);
+        Leaderboard leaderboard = new Leaderboard();
+        Map<String, Expected> expectedByName = new HashMap<>();
+        List<Expected> expected = new ArrayList<>();
+
+        for (int i = 1; i <= 20_000; i++) {
+            // Few names and scores, so players replace their own scores and many scores are equal.
+            String name = "player" + random.nextInt(2_000);
+            int score = random.nextInt(500);
+            long sequence = leaderboard.submit(name, score);
+
+            Expected entry = new Expected(name, score, sequence);
+            Expected previous = expectedByName.put(name, entry);
+            if (previous != null) {
+                expected.remove(previous);
+            }
+            int insertAt = -Collections.binarySearch(expected, entry, RANK_ORDER) - 1;
+            expected.add(insertAt, entry);
+
+            assertEquals(expected.size(), leaderboard.size());
+            assertEquals(insertAt + 1, leaderboard.rankOf(name));
+            if (i % 1_000 == 0) {
+                assertMatches(expected, leaderboard, random);
+            }
+        }
+    }
+
+    @Test
+    void lowerScoreReplacesHigherScoreOfSamePlayer() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.submit("anna", 50);
+        leaderboard.submit("bert", 30);
+        leaderboard.submit("anna", 10);
+
+        assertEquals(2, leaderboard.size());
+        assertEquals(1, leaderboard.rankOf("bert"));
+        assertEquals(2, leaderboard.rankOf("anna"));
+        assertEquals(10, leaderboard.get(1).getScore());
+    }
+
+    @Test
+    void equalScoresKeepSubmissionOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.submit("anna", 20);
+        leaderboard.submit("bert", 20);
+        leaderboard.submit("carl", 20);
+        // Submitting again counts as a new submission, so anna moves behind the others.
+        leaderboard.submit("anna", 20);
+
+        assertEquals(List.of("bert", "carl", "anna"), names(leaderboard.topK(10)));
+    }
+
+    @Test
+    void restoredSequencesKeepTheirOrder() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.restore("carl", 20, 7);
+        leaderboard.restore("anna", 20, 3);
+
+        assertEquals(List.of("anna", "carl"), names(leaderboard.topK(10)));
+        assertEquals(8, leaderboard.submit("bert", 20));
+    }
+
+    @Test
+    void snapshotLoadsIntoEqualLeaderboard() {
+        Random random = new Random(7);
+        Leaderboard leaderboard = new Leaderboard();
+        for (int i = 0; i < 5_000; i++) {
+            leaderboard.submit("player" + random.nextInt(1_000), random.nextInt(100));
+        }
+        Leaderboard.RankedEntries snapshot = leaderboard.snapshotInRankOrder();
+
+        Leaderboard loaded = new Leaderboard();
+        loaded.loadRanked(snapshot, snapshot.names().length);
+
+        assertEquals(leaderboard.size(), loaded.size());
+        for (int index = 0; index < leaderboard.size(); index++) {
+            Player player = leaderboard.get(index);
+            assertEquals(player.getName(), loaded.get(index).getName());
+            assertEquals(index + 1, loaded.rankOf(player.getName()));
+        }
+        assertEquals(snapshot.nextSequence(), loaded.submit("new", 0));
+    }
+
+    @Test
+    void queriesOutsideTheLeaderboard() {
+        Leaderboard leaderboard = new Leaderboard();
+        assertEquals(-1, leaderboard.rankOf("nobody"));
+        assertTrue(leaderboard.page(0, 10).isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> leaderboard.get(0));
+
+        leaderboard.submit("anna", 1);
+        assertTrue(leaderboard.page(1, 10).isEmpty());
+        assertTrue(leaderboard.page(0, 0).isEmpty());
+        assertEquals(List.of("anna"), names(leaderboard.around(1, 5)));
+        assertThrows(IndexOutOfBoundsException.class, () -> leaderboard.get(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> leaderboard.get(1));
+    }
+
+    private static void assertMatches(List<Expected> expected, Leaderboard leaderboard, Random random) {
+        for (int index = 0; index < expected.size(); index++) {
+            Expected entry = expected.get(index);
+            assertEquals(index + 1, leaderboard.rankOf(entry.name()), entry.name());
+            assertPlayer(entry, leaderboard.get(index));
+        }
+
+        for (int k = 0; k < 20; k++) {
+            int offset = random.nextInt(expected.size() + 10);
+            int limit = random.nextInt(50);
+            assertPage(expected, offset, limit, leaderboard.page(offset, limit));
+
+            int rank = 1 + random.nextInt(expected.size());
+            int radius = random.nextInt(10);
+            int from = Math.max(0, rank - 1 - radius);
+            assertPage(expected, from, rank + radius - from, leaderboard.around(rank, radius));
+        }
+    }
+
+    private static void assertPage(List<Expected> expected, int offset, int limit, List<Player> page) {
+        int to = Math.min(expected.size(), offset + limit);
+        assertEquals(Math.max(0, to - offset), page.size(), "page at " + offset + " of " + limit);
+        for (int i = 0; i < page.size(); i++) {
+            assertPlayer(expected.get(offset + i), page.get(i));
+        }
+    }
+
+    private static void assertPlayer(Expected expected, Player player) {
+        assertEquals(expected.name(), player.getName());
+        assertEquals(expected.score(), player.getScore());
+    }
+
+    private static List<String> names(List<Player> players) {
+        return players.stream().map(Player::getName).toList();
+    }
+}
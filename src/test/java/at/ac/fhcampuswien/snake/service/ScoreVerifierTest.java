@@ -0,0 +1,96 @@
+package at.ac.fhcampuswien.snake.service;
+
+import at.ac.fhcampuswien.snake.engine.GameEngine;
+import at.ac.fhcampuswien.snake.replay.Replay;
+import at.ac.fhcampuswien.snake.replay.ReplayRecorder;
+import at.ac.fhcampuswien.snake.simulation.GreedyPolicy;
+import at.ac.fhcampuswien.snake.util.BoardConfig;
+import at.ac.fhcampuswien.snake.util.Constants.Difficulty;
+import at.ac.fhcampuswien.snake.util.Constants.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verdicts of the {@link ScoreVerifier} for recorded and for forged replays. The replays rejected before the
+ * simulation report -1 as simulated score and tick.
+ */
+class ScoreVerifierTest {
+
+    @Test
+    void recordedGamesAreValid() {
+        for (long seed = 1; seed <= 20; seed++) {
+            Replay replay = playGame(seed);
+            ScoreVerifier.Verification verification = ScoreVerifier.verify(replay);
+
+            assertEquals(ScoreVerifier.Verdict.VALID, verification.verdict(), "seed " + seed);
+            assertEquals(replay.getFinalScore(), verification.simulatedScore());
+            assertEquals(replay.getEndTick(), verification.simulatedTick());
+        }
+    }
+
+    @Test
+    void higherScoreIsRejected() {
+        Replay replay = playGame(3);
+        Replay forged = new Replay(replay.getSeed(), replay.getDifficulty(), replay.getCols(), replay.getRows(),
+                inputTicks(replay), inputDirections(replay), replay.getEndTick(), replay.getFinalScore() + 1);
+
+        ScoreVerifier.Verification verification = ScoreVerifier.verify(forged);
+
+        assertEquals(ScoreVerifier.Verdict.SCORE_MISMATCH, verification.verdict());
+        assertEquals(replay.getFinalScore(), verification.simulatedScore());
+    }
+
+    @Test
+    void largestBoardIsRejectedBeforeSimulation() {
+        Replay replay = new Replay(1, Difficulty.MEDIUM, BoardConfig.MAX_SIZE, BoardConfig.MAX_SIZE,
+                new int[0], new Direction[0], 100, 0);
+
+        ScoreVerifier.Verification verification = ScoreVerifier.verify(replay);
+
+        assertEquals(ScoreVerifier.Verdict.UNRANKED_BOARD, verification.verdict());
+        assertEquals(-1, verification.simulatedTick());
+    }
+
+    @Test
+    void endTickBeyondStraightRunIsRejectedBeforeSimulation() {
+        Replay replay = playGame(5);
+        int[] ticks = inputTicks(replay);
+        int lastTick = ticks.length == 0 ? 0 : ticks[ticks.length - 1];
+        int unreachableEnd = lastTick + Math.max(replay.getCols(), replay.getRows()) + 1;
+        Replay forged = new Replay(replay.getSeed(), replay.getDifficulty(), replay.getCols(), replay.getRows(),
+                ticks, inputDirections(replay), unreachableEnd, replay.getFinalScore());
+
+        assertTrue(ScoreVerifier.isSurvivable(replay));
+        assertFalse(ScoreVerifier.isSurvivable(forged));
+        ScoreVerifier.Verification verification = ScoreVerifier.verify(forged);
+        assertEquals(ScoreVerifier.Verdict.END_MISMATCH, verification.verdict());
+        assertEquals(-1, verification.simulatedTick());
+    }
+
+    private static Replay playGame(long seed) {
+        GameEngine engine = new GameEngine(Difficulty.MEDIUM, BoardConfig.DEFAULT, seed);
+        ReplayRecorder recorder = new ReplayRecorder(engine);
+        GreedyPolicy player = new GreedyPolicy(~seed);
+        while (!engine.isGameOver()) {
+            Direction input = player.nextDirection(engine);
+            engine.step(input);
+            recorder.record(input);
+        }
+        return recorder.toReplay();
+    }
+
+    private static int[] inputTicks(Replay replay) {
+        int[] ticks = new int[replay.getInputCount()];
+        Arrays.setAll(ticks, replay::getInputTick);
+        return ticks;
+    }
+
+    private static Direction[] inputDirections(Replay replay) {
+        Direction[] directions = new Direction[replay.getInputCount()];
+        Arrays.setAll(directions, replay::getInputDirection);
+        return directions;
+    }
+}